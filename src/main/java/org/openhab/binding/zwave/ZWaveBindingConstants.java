@@ -39,6 +39,12 @@ public class ZWaveBindingConstants {
     public final static String CONFIGURATION_INCLUSION_MODE = "inclusion_mode";
     public final static String CONFIGURATION_INCLUSIONTIMEOUT = "controller_inclusiontimeout";
     public final static String CONFIGURATION_DEFAULTWAKEUPPERIOD = "controller_wakeupperiod";
+    public final static String CONFIGURATION_MAXTRANSACTIONS = "controller_maxtransactions";
+    public final static String CONFIGURATION_INITCONCURRENCY = "controller_initconcurrency";
+    public final static String CONFIGURATION_DEADDELAY = "controller_deaddelay";
+    public final static String CONFIGURATION_STATEHOLD = "controller_statehold";
+    public final static String CONFIGURATION_STATISTICSPERIOD = "controller_statisticsperiod";
+    public final static String CONFIGURATION_BINARYSNAPSHOT = "controller_binarysnapshot";
 
     public final static String CONFIGURATION_NODEID = "node_id";
 
@@ -87,6 +93,7 @@ public class ZWaveBindingConstants {
     public final static String PROPERTY_LASTWAKEUP = "zwave_lastwakeup";
     public final static String PROPERTY_USINGSECURITY = "zwave_secure";
     public final static String PROPERTY_LASTHEAL = "zwave_lastheal";
+    public final static String PROPERTY_STATISTIC_PREFIX = "zwave_stat_";
 
     public final static String CHANNEL_SERIAL_SOF = "serial_sof";
     public final static String CHANNEL_SERIAL_ACK = "serial_ack";
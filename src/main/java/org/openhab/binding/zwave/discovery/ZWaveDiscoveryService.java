@@ -150,17 +150,7 @@ public class ZWaveDiscoveryService extends AbstractDiscoveryService {
         ThingUID bridgeUID = controllerHandler.getThing().getUID();
 
         // Search the database for this product information
-        ZWaveProduct foundProduct = null;
-        for (ZWaveProduct product : ZWaveConfigProvider.getProductIndex()) {
-            if (product == null) {
-                continue;
-            }
-            logger.trace("NODE {}: Checking {}", node.getNodeId(), product.getThingTypeUID());
-            if (product.match(node) == true) {
-                foundProduct = product;
-                break;
-            }
-        }
+        ZWaveProduct foundProduct = ZWaveConfigProvider.findProduct(node);
 
         ThingTypeUID thingTypeUID;
 
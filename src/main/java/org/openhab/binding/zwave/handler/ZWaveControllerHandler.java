@@ -17,6 +17,7 @@ import static org.openhab.binding.zwave.ZWaveBindingConstants.*;
 import java.math.BigDecimal;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Map;
@@ -42,11 +43,16 @@ import org.openhab.binding.zwave.event.BindingEventDTO;
 import org.openhab.binding.zwave.event.BindingEventFactory;
 import org.openhab.binding.zwave.event.BindingEventType;
 import org.openhab.binding.zwave.internal.ZWaveEventPublisher;
+import org.openhab.binding.zwave.internal.ZWavePollScheduler;
+import org.openhab.binding.zwave.internal.ZWaveStatisticsAggregator;
+import org.openhab.binding.zwave.internal.ZWaveStatisticsAggregator.StatisticsListener;
+import org.openhab.binding.zwave.internal.converter.ZWaveCommandClassConverter;
 import org.openhab.binding.zwave.internal.protocol.SerialMessage;
 import org.openhab.binding.zwave.internal.protocol.ZWaveController;
 import org.openhab.binding.zwave.internal.protocol.ZWaveEventListener;
 import org.openhab.binding.zwave.internal.protocol.ZWaveIoHandler;
 import org.openhab.binding.zwave.internal.protocol.ZWaveNode;
+import org.openhab.binding.zwave.internal.protocol.commandclass.ZWaveCommandClass.CommandClass;
 import org.openhab.binding.zwave.internal.protocol.event.ZWaveEvent;
 import org.openhab.binding.zwave.internal.protocol.event.ZWaveInclusionEvent;
 import org.openhab.binding.zwave.internal.protocol.event.ZWaveInitializationStateEvent;
@@ -79,12 +85,48 @@ public abstract class ZWaveControllerHandler extends BaseBridgeHandler implement
     private Integer secureInclusionMode;
     private Integer healTime;
     private Integer wakeupDefaultPeriod;
+    private Integer maxTransactions;
+    private Integer initConcurrency;
+    private Integer deadDelay;
+    private Integer stateHoldPeriod;
+    private Integer statisticsPeriod;
+    private Boolean binarySnapshot;
 
     private final int SEARCHTIME_MINIMUM = 20;
     private final int SEARCHTIME_DEFAULT = 30;
     private final int SEARCHTIME_MAXIMUM = 300;
     private int searchTime;
 
+    private final int DEADDELAY_DEFAULT = 5;
+    private final int STATEHOLD_DEFAULT = 10;
+
+    private final int STATISTICSPERIOD_MINIMUM = 1;
+    private final int STATISTICSPERIOD_DEFAULT = 30;
+
+    private final ZWaveStatisticsAggregator statisticsAggregator = new ZWaveStatisticsAggregator();
+
+    private final StatisticsListener controllerStatisticsListener = new StatisticsListener() {
+        @Override
+        public void statisticsUpdated(Map<String, Long> statistics) {
+            for (Map.Entry<String, Long> statistic : statistics.entrySet()) {
+                updateProperty(PROPERTY_STATISTIC_PREFIX + statistic.getKey(), statistic.getValue().toString());
+            }
+        }
+    };
+
+    private final ZWavePollScheduler pollScheduler = new ZWavePollScheduler(new ZWavePollScheduler.QueueMonitor() {
+        @Override
+        public int getSendQueueLength() {
+            ZWaveController controller = ZWaveControllerHandler.this.controller;
+            if (controller == null) {
+                return 0;
+            }
+            return controller.getSendQueueLength();
+        }
+    });
+
+    private final Map<CommandClass, ZWaveCommandClassConverter> converters = new EnumMap<>(CommandClass.class);
+
     private ScheduledFuture<?> healJob = null;
 
     public ZWaveControllerHandler(Bridge bridge) {
@@ -128,6 +170,51 @@ public abstract class ZWaveControllerHandler extends BaseBridgeHandler implement
             wakeupDefaultPeriod = 0;
         }
 
+        param = getConfig().get(CONFIGURATION_MAXTRANSACTIONS);
+        if (param instanceof BigDecimal) {
+            maxTransactions = ((BigDecimal) param).intValue();
+        } else {
+            maxTransactions = 0;
+        }
+
+        param = getConfig().get(CONFIGURATION_INITCONCURRENCY);
+        if (param instanceof BigDecimal) {
+            initConcurrency = ((BigDecimal) param).intValue();
+        } else {
+            initConcurrency = 0;
+        }
+
+        param = getConfig().get(CONFIGURATION_DEADDELAY);
+        if (param instanceof BigDecimal) {
+            deadDelay = ((BigDecimal) param).intValue();
+        } else {
+            deadDelay = DEADDELAY_DEFAULT;
+        }
+
+        param = getConfig().get(CONFIGURATION_STATEHOLD);
+        if (param instanceof BigDecimal) {
+            stateHoldPeriod = ((BigDecimal) param).intValue();
+        } else {
+            stateHoldPeriod = STATEHOLD_DEFAULT;
+        }
+
+        param = getConfig().get(CONFIGURATION_STATISTICSPERIOD);
+        if (param instanceof BigDecimal) {
+            statisticsPeriod = ((BigDecimal) param).intValue();
+        } else {
+            statisticsPeriod = STATISTICSPERIOD_DEFAULT;
+        }
+        initializeStatistics();
+
+        pollScheduler.start(scheduler);
+
+        param = getConfig().get(CONFIGURATION_BINARYSNAPSHOT);
+        if (param instanceof Boolean) {
+            binarySnapshot = (Boolean) param;
+        } else {
+            binarySnapshot = false;
+        }
+
         param = getConfig().get(CONFIGURATION_SISNODE);
         if (param instanceof BigDecimal) {
             sucNode = ((BigDecimal) param).intValue();
@@ -189,10 +276,16 @@ public abstract class ZWaveControllerHandler extends BaseBridgeHandler implement
         config.put("secureInclusion", secureInclusionMode.toString());
         config.put("networkKey", networkKey);
         config.put("wakeupDefaultPeriod", wakeupDefaultPeriod.toString());
+        config.put("maxTransactions", maxTransactions.toString());
+        config.put("initConcurrency", initConcurrency.toString());
+        config.put("deadDelay", deadDelay.toString());
+        config.put("stateHoldPeriod", stateHoldPeriod.toString());
+        config.put("binarySnapshot", binarySnapshot.toString());
 
         // TODO: Handle soft reset?
         controller = new ZWaveController(this, config);
         controller.addEventListener(this);
+        statisticsAggregator.addGauges(controllerStatisticsListener, controller.getStatistics());
 
         // Start the discovery service
         discoveryService = new ZWaveDiscoveryService(this, searchTime);
@@ -203,6 +296,51 @@ public abstract class ZWaveControllerHandler extends BaseBridgeHandler implement
                 new Hashtable<String, Object>());
     }
 
+    private void initializeStatistics() {
+        if (statisticsPeriod < STATISTICSPERIOD_MINIMUM) {
+            statisticsPeriod = STATISTICSPERIOD_DEFAULT;
+        }
+        statisticsAggregator.start(scheduler, statisticsPeriod, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Gets the {@link ZWaveStatisticsAggregator} used to publish the statistics for this controller and its nodes.
+     * Statistics are published at the period set by the {@link ZWaveBindingConstants#CONFIGURATION_STATISTICSPERIOD}
+     * configuration parameter.
+     *
+     * @return the {@link ZWaveStatisticsAggregator}
+     */
+    public ZWaveStatisticsAggregator getStatisticsAggregator() {
+        return statisticsAggregator;
+    }
+
+    /**
+     * Gets the {@link ZWavePollScheduler} used to poll the nodes on this controller.
+     *
+     * @return the {@link ZWavePollScheduler}
+     */
+    public ZWavePollScheduler getPollScheduler() {
+        return pollScheduler;
+    }
+
+    /**
+     * Gets the converter for a command class. Converters are created the first time they are requested, and the same
+     * instance is then shared by all channels on this controller.
+     *
+     * @param commandClass the {@link CommandClass}
+     * @return the {@link ZWaveCommandClassConverter}, or null if the command class is not supported
+     */
+    public ZWaveCommandClassConverter getConverter(CommandClass commandClass) {
+        synchronized (converters) {
+            if (converters.containsKey(commandClass)) {
+                return converters.get(commandClass);
+            }
+            ZWaveCommandClassConverter converter = ZWaveCommandClassConverter.createConverter(this, commandClass);
+            converters.put(commandClass, converter);
+            return converter;
+        }
+    }
+
     private void initializeHeal() {
         if (healJob != null) {
             healJob.cancel(true);
@@ -243,6 +381,10 @@ public abstract class ZWaveControllerHandler extends BaseBridgeHandler implement
             healJob = null;
         }
 
+        statisticsAggregator.stop();
+        statisticsAggregator.removeStatistics(controllerStatisticsListener);
+        pollScheduler.stop();
+
         // Remove the discovery service
         if (discoveryService != null) {
             discoveryService.deactivate();
@@ -303,6 +445,20 @@ public abstract class ZWaveControllerHandler extends BaseBridgeHandler implement
                     // TODO: Do we need to set this immediately
                 } else if (cfg[1].equals("inclusiontimeout") && value instanceof BigDecimal) {
                     reinitialise = true;
+                } else if (cfg[1].equals("maxtransactions") && value instanceof BigDecimal) {
+                    controller.setMaxOutstandingTransactions(((BigDecimal) value).intValue());
+                } else if (cfg[1].equals("initconcurrency") && value instanceof BigDecimal) {
+                    controller.setInitConcurrency(((BigDecimal) value).intValue());
+                } else if (cfg[1].equals("deaddelay") && value instanceof BigDecimal) {
+                    controller.setDeadDelay(((BigDecimal) value).intValue());
+                } else if (cfg[1].equals("statehold") && value instanceof BigDecimal) {
+                    controller.setStateHoldPeriod(((BigDecimal) value).intValue());
+                } else if (cfg[1].equals("statisticsperiod") && value instanceof BigDecimal) {
+                    statisticsPeriod = ((BigDecimal) value).intValue();
+                    initializeStatistics();
+                } else if (cfg[1].equals("binarysnapshot") && value instanceof Boolean) {
+                    binarySnapshot = (Boolean) value;
+                    controller.setBinarySnapshot(binarySnapshot);
                 }
             }
             if ("security".equals(cfg[0])) {
@@ -698,12 +854,12 @@ public abstract class ZWaveControllerHandler extends BaseBridgeHandler implement
         controller.sendData(transaction);
     }
 
-    public boolean addEventListener(ZWaveThingHandler zWaveThingHandler) {
+    public boolean addEventListener(ZWaveThingHandler zWaveThingHandler, int nodeId) {
         if (controller == null) {
             logger.error("Attempting to add listener when controller is null");
             return false;
         }
-        controller.addEventListener(zWaveThingHandler);
+        controller.addEventListener(zWaveThingHandler, nodeId);
         return true;
     }
 
@@ -775,6 +931,15 @@ public abstract class ZWaveControllerHandler extends BaseBridgeHandler implement
         return isMaster;
     }
 
+    /**
+     * Returns true if binary snapshots of the nodes on this controller are stored alongside the node XML files
+     *
+     * @return true if binary snapshots are stored
+     */
+    public boolean isBinarySnapshot() {
+        return binarySnapshot;
+    }
+
     private void updateNeighbours() {
         if (controller == null) {
             return;
@@ -15,7 +15,10 @@ package org.openhab.binding.zwave.handler;
 import static org.openhab.binding.zwave.ZWaveBindingConstants.*;
 
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.TooManyListenersException;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.eclipse.smarthome.core.library.types.DecimalType;
 import org.eclipse.smarthome.core.thing.Bridge;
@@ -31,7 +34,11 @@ import org.eclipse.smarthome.io.transport.serial.SerialPortIdentifier;
 import org.eclipse.smarthome.io.transport.serial.SerialPortManager;
 import org.eclipse.smarthome.io.transport.serial.UnsupportedCommOperationException;
 import org.openhab.binding.zwave.ZWaveBindingConstants;
+import org.openhab.binding.zwave.internal.ZWaveStatisticsAggregator;
+import org.openhab.binding.zwave.internal.ZWaveStatisticsAggregator.StatisticsListener;
 import org.openhab.binding.zwave.internal.protocol.SerialMessage;
+import org.openhab.binding.zwave.internal.protocol.ZWaveSerialFrameDecoder;
+import org.openhab.binding.zwave.internal.protocol.ZWaveSerialFrameDecoder.FrameHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -53,17 +60,21 @@ public class ZWaveSerialHandler extends ZWaveControllerHandler {
 
     private org.eclipse.smarthome.io.transport.serial.SerialPort serialPort;
 
-    private int SOFCount = 0;
-    private int CANCount = 0;
-    private int NAKCount = 0;
-    private int ACKCount = 0;
-    private int OOFCount = 0;
-    private int CSECount = 0;
-
     private static final int SERIAL_RECEIVE_TIMEOUT = 250;
+    private static final int READ_BUFFER_SIZE = 256;
 
     private ZWaveReceiveThread receiveThread;
 
+    private final StatisticsListener statisticsListener = new StatisticsListener() {
+        @Override
+        public void statisticsUpdated(Map<String, Long> statistics) {
+            for (Map.Entry<String, Long> statistic : statistics.entrySet()) {
+                updateState(new ChannelUID(getThing().getUID(), statistic.getKey()),
+                        new DecimalType(statistic.getValue()));
+            }
+        }
+    };
+
     public ZWaveSerialHandler(Bridge bridge) {
         super(bridge);
     }
@@ -101,6 +112,7 @@ public class ZWaveSerialHandler extends ZWaveControllerHandler {
             serialPort.enableReceiveTimeout(SERIAL_RECEIVE_TIMEOUT);
             logger.debug("Starting receive thread");
             receiveThread = new ZWaveReceiveThread();
+            getStatisticsAggregator().addStatistics(statisticsListener, receiveThread.getStatistics());
             receiveThread.start();
 
             // RXTX serial port library causes high CPU load
@@ -128,6 +140,7 @@ public class ZWaveSerialHandler extends ZWaveControllerHandler {
      */
     @Override
     public void dispose() {
+        getStatisticsAggregator().removeStatistics(statisticsListener);
         if (receiveThread != null) {
             receiveThread.interrupt();
             try {
@@ -151,30 +164,35 @@ public class ZWaveSerialHandler extends ZWaveControllerHandler {
 
     /**
      * ZWave controller Receive Thread. Takes care of receiving all messages.
-     * It uses a semaphore to synchronize communication with the sending thread.
+     * Data is read from the serial port in blocks and passed to the {@link ZWaveSerialFrameDecoder}. The serial
+     * statistics are counted by the decoder and published to the channels by the {@link ZWaveStatisticsAggregator}.
      */
-    private class ZWaveReceiveThread extends Thread implements SerialPortEventListener {
-
-        private final int SEARCH_SOF = 0;
-        private final int SEARCH_LEN = 1;
-        private final int SEARCH_DAT = 2;
-
-        private int rxState = SEARCH_SOF;
-        private int messageLength;
-        private int rxLength;
-        private byte[] rxBuffer;
-
-        private static final int SOF = 0x01;
-        private static final int ACK = 0x06;
-        private static final int NAK = 0x15;
-        private static final int CAN = 0x18;
-
+    private class ZWaveReceiveThread extends Thread implements SerialPortEventListener, FrameHandler {
         private final Logger logger = LoggerFactory.getLogger(ZWaveReceiveThread.class);
 
+        private final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+        private final ZWaveSerialFrameDecoder decoder = new ZWaveSerialFrameDecoder(this);
+
         ZWaveReceiveThread() {
             super("ZWaveReceiveInputThread");
         }
 
+        /**
+         * Gets the serial statistics counters, keyed by the channel they are published to
+         *
+         * @return map of channel ID to counter
+         */
+        Map<String, LongAdder> getStatistics() {
+            Map<String, LongAdder> statistics = new LinkedHashMap<String, LongAdder>();
+            statistics.put(CHANNEL_SERIAL_SOF, decoder.getSOFCounter());
+            statistics.put(CHANNEL_SERIAL_ACK, decoder.getACKCounter());
+            statistics.put(CHANNEL_SERIAL_NAK, decoder.getNAKCounter());
+            statistics.put(CHANNEL_SERIAL_CAN, decoder.getCANCounter());
+            statistics.put(CHANNEL_SERIAL_OOF, decoder.getOOFCounter());
+            statistics.put(CHANNEL_SERIAL_CSE, decoder.getCSECounter());
+            return statistics;
+        }
+
         @Override
         public void serialEvent(SerialPortEvent arg0) {
             try {
@@ -190,7 +208,8 @@ public class ZWaveSerialHandler extends ZWaveControllerHandler {
          * @param response
          *                     the response code to send.
          */
-        private void sendResponse(int response) {
+        @Override
+        public void sendResponse(int response) {
             try {
                 synchronized (serialPort.getOutputStream()) {
                     serialPort.getOutputStream().write(response);
@@ -202,6 +221,11 @@ public class ZWaveSerialHandler extends ZWaveControllerHandler {
             }
         }
 
+        @Override
+        public void frameReceived(SerialMessage message) {
+            incomingMessage(message);
+        }
+
         /**
          * Run method. Runs the actual receiving process.
          */
@@ -209,136 +233,26 @@ public class ZWaveSerialHandler extends ZWaveControllerHandler {
         public void run() {
             logger.debug("Starting ZWave thread: Receive");
             try {
-                // Initialise all the statistics channels
-                updateState(new ChannelUID(getThing().getUID(), CHANNEL_SERIAL_SOF), new DecimalType(SOFCount));
-                updateState(new ChannelUID(getThing().getUID(), CHANNEL_SERIAL_ACK), new DecimalType(ACKCount));
-                updateState(new ChannelUID(getThing().getUID(), CHANNEL_SERIAL_NAK), new DecimalType(NAKCount));
-                updateState(new ChannelUID(getThing().getUID(), CHANNEL_SERIAL_CAN), new DecimalType(CANCount));
-                updateState(new ChannelUID(getThing().getUID(), CHANNEL_SERIAL_OOF), new DecimalType(OOFCount));
-                updateState(new ChannelUID(getThing().getUID(), CHANNEL_SERIAL_CSE), new DecimalType(CSECount));
-
                 // Send a NAK to resynchronise communications
-                sendResponse(NAK);
+                sendResponse(ZWaveSerialFrameDecoder.NAK);
 
                 while (!interrupted()) {
-                    int nextByte;
+                    int length;
 
                     try {
-                        nextByte = serialPort.getInputStream().read();
-                        // logger.debug("SERIAL:: STATE {}, nextByte {}, count {} ", rxState, nextByte, rxLength);
-
-                        // If byte value is -1, this is a timeout
-                        if (nextByte == -1) {
-                            if (rxState != SEARCH_SOF) {
-                                // If we're not searching for a new frame when we get a timeout, something bad happened
-                                logger.debug("Receive Timeout - Sending NAK");
-                                rxState = SEARCH_SOF;
-                            }
-                            continue;
-                        }
+                        length = serialPort.getInputStream().read(readBuffer);
                     } catch (IOException e) {
                         logger.error("Got I/O exception {} during receiving. exiting thread.", e.getLocalizedMessage());
                         break;
                     }
 
-                    switch (rxState) {
-                        case SEARCH_SOF:
-                            switch (nextByte) {
-                                case SOF:
-                                    logger.trace("Received SOF");
-
-                                    // Keep track of statistics
-                                    SOFCount++;
-                                    updateState(new ChannelUID(getThing().getUID(), CHANNEL_SERIAL_SOF),
-                                            new DecimalType(SOFCount));
-                                    rxState = SEARCH_LEN;
-                                    break;
-
-                                case ACK:
-                                    // Keep track of statistics
-                                    ACKCount++;
-                                    updateState(new ChannelUID(getThing().getUID(), CHANNEL_SERIAL_ACK),
-                                            new DecimalType(ACKCount));
-                                    logger.debug("Receive Message = 06");
-                                    SerialMessage ackMessage = new SerialMessage(new byte[] { ACK });
-                                    incomingMessage(ackMessage);
-                                    break;
-
-                                case NAK:
-                                    // A NAK means the CRC was incorrectly received by the controller
-                                    NAKCount++;
-                                    updateState(new ChannelUID(getThing().getUID(), CHANNEL_SERIAL_NAK),
-                                            new DecimalType(NAKCount));
-                                    logger.debug("Receive Message = 15");
-                                    SerialMessage nakMessage = new SerialMessage(new byte[] { NAK });
-                                    incomingMessage(nakMessage);
-                                    break;
-
-                                case CAN:
-                                    // The CAN means that the controller dropped the frame
-                                    CANCount++;
-                                    updateState(new ChannelUID(getThing().getUID(), CHANNEL_SERIAL_CAN),
-                                            new DecimalType(CANCount));
-                                    // logger.debug("Protocol error (CAN)");
-                                    logger.debug("Receive Message = 18");
-                                    SerialMessage canMessage = new SerialMessage(new byte[] { CAN });
-                                    incomingMessage(canMessage);
-                                    break;
-
-                                default:
-                                    OOFCount++;
-                                    updateState(new ChannelUID(getThing().getUID(), CHANNEL_SERIAL_OOF),
-                                            new DecimalType(OOFCount));
-                                    logger.debug(String.format("Protocol error (OOF). Got 0x%02X.", nextByte));
-                                    // Let the timeout deal with sending the NAK
-                                    break;
-                            }
-                            break;
-
-                        case SEARCH_LEN:
-                            // Sanity check the frame length
-                            if (nextByte < 4 || nextByte > 64) {
-                                logger.debug("Frame length is out of limits ({})", nextByte);
-
-                                break;
-                            }
-                            messageLength = (nextByte & 0xff) + 2;
-
-                            rxBuffer = new byte[messageLength];
-                            rxBuffer[0] = SOF;
-                            rxBuffer[1] = (byte) nextByte;
-                            rxLength = 2;
-                            rxState = SEARCH_DAT;
-                            break;
-
-                        case SEARCH_DAT:
-                            rxBuffer[rxLength] = (byte) nextByte;
-                            rxLength++;
-
-                            if (rxLength < messageLength) {
-                                break;
-                            }
-
-                            logger.debug("Receive Message = {}", SerialMessage.bb2hex(rxBuffer));
-                            SerialMessage recvMessage = new SerialMessage(rxBuffer);
-                            if (recvMessage.isValid) {
-                                logger.trace("Message is valid, sending ACK");
-                                sendResponse(ACK);
-
-                                incomingMessage(recvMessage);
-                            } else {
-                                CSECount++;
-                                updateState(new ChannelUID(getThing().getUID(), CHANNEL_SERIAL_CSE),
-                                        new DecimalType(CSECount));
-
-                                logger.debug("Message is invalid, discarding");
-                                sendResponse(NAK);
-                            }
-
-                            rxState = SEARCH_SOF;
-                            break;
+                    // If nothing was read, this is a timeout
+                    if (length <= 0) {
+                        decoder.timeout();
+                        continue;
                     }
 
+                    decoder.decode(readBuffer, 0, length);
                 }
             } catch (Exception e) {
                 logger.error("Exception during ZWave thread. ", e);
@@ -45,9 +45,11 @@ public class ZWaveThingChannel {
     private ChannelUID uid;
     private ChannelTypeUID channelTypeUID;
     private String commandClass;
+    private CommandClass commandClassType;
     private ZWaveCommandClassConverter converter;
     private DataType dataType;
     private Map<String, String> arguments;
+    private Object binding;
 
     public ZWaveThingChannel(ZWaveControllerHandler controller, ChannelTypeUID channelTypeUID, ChannelUID uid,
             DataType dataType, String commandClassName, int endpoint, Map<String, String> arguments) {
@@ -60,12 +62,15 @@ public class ZWaveThingChannel {
 
         // Get the converter
         CommandClass commandClass = ZWaveCommandClass.CommandClass.getCommandClass(commandClassName);
+        this.commandClassType = commandClass;
         if (commandClass == null) {
             // logger.debug("NODE {}: Error finding command class {} on channel {}", nodeId, uid, commandClassName);
         } else {
             this.converter = ZWaveCommandClassConverter.getConverter(controller, commandClass);
             if (this.converter == null) {
                 // logger.debug("NODE {}: No converter found for {}, class {}", nodeId, uid, commandClassName);
+            } else {
+                this.binding = this.converter.compileBinding(this);
             }
         }
     }
@@ -82,6 +87,15 @@ public class ZWaveThingChannel {
         return commandClass;
     }
 
+    /**
+     * Gets the command class used by this channel
+     *
+     * @return the {@link CommandClass}, or null if the command class name is not known
+     */
+    public CommandClass getCommandClassType() {
+        return commandClassType;
+    }
+
     public int getEndpoint() {
         return endpoint;
     }
@@ -94,6 +108,15 @@ public class ZWaveThingChannel {
         return arguments;
     }
 
+    /**
+     * Gets the binding compiled from the channel arguments by the converter
+     *
+     * @return the binding, or null if the converter doesn't use a binding
+     */
+    public Object getBinding() {
+        return binding;
+    }
+
     public ZWaveCommandClassConverter getConverter() {
         return converter;
     }
@@ -20,16 +20,21 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
 
 import org.eclipse.smarthome.config.core.Configuration;
 import org.eclipse.smarthome.config.core.status.ConfigStatusMessage;
@@ -56,7 +61,12 @@ import org.openhab.binding.zwave.event.BindingEventType;
 import org.openhab.binding.zwave.handler.ZWaveThingChannel.DataType;
 import org.openhab.binding.zwave.internal.ZWaveConfigProvider;
 import org.openhab.binding.zwave.internal.ZWaveEventPublisher;
+import org.openhab.binding.zwave.internal.ZWavePollScheduler;
+import org.openhab.binding.zwave.internal.ZWavePollScheduler.PollListener;
 import org.openhab.binding.zwave.internal.ZWaveProduct;
+import org.openhab.binding.zwave.internal.ZWaveReportTracker;
+import org.openhab.binding.zwave.internal.ZWaveReportTracker.ReportKey;
+import org.openhab.binding.zwave.internal.ZWaveStatisticsAggregator.StatisticsListener;
 import org.openhab.binding.zwave.internal.protocol.ZWaveAssociation;
 import org.openhab.binding.zwave.internal.protocol.ZWaveAssociationGroup;
 import org.openhab.binding.zwave.internal.protocol.ZWaveConfigurationParameter;
@@ -106,13 +116,42 @@ public class ZWaveThingHandler extends ConfigStatusThingHandler implements ZWave
     private List<ZWaveThingChannel> thingChannelsCmd = Collections.emptyList();
     private List<ZWaveThingChannel> thingChannelsState = Collections.emptyList();
 
+    // Index of the state channels by endpoint and command class, used to dispatch value events
+    private Map<Integer, Map<CommandClass, List<ZWaveThingChannel>>> thingChannelsStateIndex = Collections.emptyMap();
+
     private final Set<ChannelUID> thingChannelsPoll = new HashSet<ChannelUID>();
 
     private final Map<Integer, ZWaveConfigSubParameter> subParameters = new HashMap<Integer, ZWaveConfigSubParameter>();
     private final Map<String, Object> pendingCfg = new HashMap<String, Object>();
 
-    private final Object pollingSync = new Object();
-    private ScheduledFuture<?> pollingJob = null;
+    // Configuration updates from the device are batched and written to the thing together
+    private final Object configUpdateSync = new Object();
+    private final Map<String, Object> configUpdates = new HashMap<String, Object>();
+    private ScheduledFuture<?> configUpdateJob = null;
+    private final long CONFIG_UPDATE_DELAY = 250;
+
+    // Commanded channels are refreshed after a delay to verify their state, unless the device reports them first
+    private final Object refreshSync = new Object();
+    private final Set<ChannelUID> pendingRefresh = new HashSet<ChannelUID>();
+    private ScheduledFuture<?> refreshJob = null;
+
+    // Reports received from the device, used so that channels that are reported by the device aren't polled
+    private final ZWaveReportTracker reportTracker = new ZWaveReportTracker();
+
+    // Node statistics are published as properties by the controller's statistics aggregator
+    private final StatisticsListener statisticsListener = new StatisticsListener() {
+        @Override
+        public void statisticsUpdated(Map<String, Long> statistics) {
+            for (Map.Entry<String, Long> statistic : statistics.entrySet()) {
+                updateProperty(ZWaveBindingConstants.PROPERTY_STATISTIC_PREFIX + statistic.getKey(),
+                        statistic.getValue().toString());
+            }
+        }
+    };
+    // The value that last updated each channel, and the time each channel was last polled or commanded
+    private final Map<ChannelUID, ReportKey> channelReportKeys = new ConcurrentHashMap<ChannelUID, ReportKey>();
+    private final Map<ChannelUID, Long> channelRequestTimes = new ConcurrentHashMap<ChannelUID, Long>();
+
     private final long POLLING_PERIOD_MIN = 15;
     private final long POLLING_PERIOD_MAX = 86400;
     private final long POLLING_PERIOD_DEFAULT = 1800;
@@ -295,9 +334,44 @@ public class ZWaveThingHandler extends ConfigStatusThingHandler implements ZWave
             }
         }
 
+        thingChannelsStateIndex = createChannelIndex(thingChannelsState);
+
         startPolling();
     }
 
+    /**
+     * Creates an index of channels by endpoint and command class so that the channels handling an event can be found
+     * without searching all channels.
+     *
+     * @param channels the list of channels to index
+     * @return map of endpoint to a map of command class to the channels that use it
+     */
+    private Map<Integer, Map<CommandClass, List<ZWaveThingChannel>>> createChannelIndex(
+            List<ZWaveThingChannel> channels) {
+        Map<Integer, Map<CommandClass, List<ZWaveThingChannel>>> index = new HashMap<>();
+        for (ZWaveThingChannel channel : channels) {
+            if (channel.getCommandClassType() == null) {
+                logger.debug("NODE {}: Unknown command class {} for channel {}", nodeId, channel.getCommandClass(),
+                        channel.getUID());
+                continue;
+            }
+
+            Map<CommandClass, List<ZWaveThingChannel>> endpointChannels = index.get(channel.getEndpoint());
+            if (endpointChannels == null) {
+                endpointChannels = new EnumMap<CommandClass, List<ZWaveThingChannel>>(CommandClass.class);
+                index.put(channel.getEndpoint(), endpointChannels);
+            }
+
+            List<ZWaveThingChannel> commandClassChannels = endpointChannels.get(channel.getCommandClassType());
+            if (commandClassChannels == null) {
+                commandClassChannels = new ArrayList<ZWaveThingChannel>();
+                endpointChannels.put(channel.getCommandClassType(), commandClassChannels);
+            }
+            commandClassChannels.add(channel);
+        }
+        return index;
+    }
+
     /**
      * Check the thing type and change it if it's wrong
      */
@@ -343,17 +417,8 @@ public class ZWaveThingHandler extends ConfigStatusThingHandler implements ZWave
             return false;
         }
 
-        ZWaveProduct foundProduct = null;
-        for (ZWaveProduct product : ZWaveConfigProvider.getProductIndex()) {
-            if (product == null) {
-                continue;
-            }
-            logger.debug("Checking {}", product.getThingTypeUID());
-            if (product.match(deviceManufacturer, deviceType, deviceId, parmVersion) == true) {
-                foundProduct = product;
-                break;
-            }
-        }
+        ZWaveProduct foundProduct = ZWaveConfigProvider.findProduct(deviceManufacturer, deviceType, deviceId,
+                parmVersion);
 
         // Did we find the thing type?
         if (foundProduct == null) {
@@ -369,98 +434,113 @@ public class ZWaveThingHandler extends ConfigStatusThingHandler implements ZWave
         return true;
     }
 
-    /**
-     * Start polling with an initial delay
-     *
-     * @param initialPeriod time to start in milliseconds
-     */
-    private void startPolling(long initialPeriod) {
-        Runnable pollingRunnable = new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    logger.debug("NODE {}: Polling...", nodeId);
-                    ZWaveNode node = controllerHandler.getNode(nodeId);
-                    if (node == null || node.isInitializationComplete() == false) {
-                        logger.debug("NODE {}: Polling deferred until initialisation complete", nodeId);
-                        return;
-                    }
-
-                    List<ZWaveCommandClassTransactionPayload> messages = new ArrayList<ZWaveCommandClassTransactionPayload>();
-                    for (ZWaveThingChannel channel : thingChannelsState) {
-                        if (!thingChannelsPoll.contains(channel.getUID())) {
-                            // Don't poll if this channel isn't linked
-                            continue;
-                        }
-
-                        if (channel.getCommandClass().equals(CommandClass.COMMAND_CLASS_BASIC.toString())
-                                && thingChannelsState.size() > 1) {
-                            logger.debug("NODE {}: Polling skipped for {} on COMMAND_CLASS_BASIC", nodeId,
-                                    channel.getUID());
-                            continue;
-                        }
+    private final PollListener pollListener = new PollListener() {
+        @Override
+        public void poll(boolean periodic) {
+            pollNode(periodic);
+        }
+    };
 
-                        logger.debug("NODE {}: Polling {}", nodeId, channel.getUID());
-                        if (channel.getConverter() == null) {
-                            logger.debug("NODE {}: Polling aborted as no converter found for {}", nodeId,
-                                    channel.getUID());
-                        } else {
-                            List<ZWaveCommandClassTransactionPayload> poll = channel.getConverter()
-                                    .executeRefresh(channel, node);
-                            if (poll != null) {
-                                messages.addAll(poll);
-                            }
-                        }
-                    }
+    private void pollNode(boolean periodic) {
+        logger.debug("NODE {}: Polling...", nodeId);
+        ZWaveControllerHandler controllerHandler = this.controllerHandler;
+        if (controllerHandler == null) {
+            return;
+        }
+        ZWaveNode node = controllerHandler.getNode(nodeId);
+        if (node == null || node.isInitializationComplete() == false) {
+            logger.debug("NODE {}: Polling deferred until initialisation complete", nodeId);
+            return;
+        }
 
-                    // If this is a battery device, then we want to check if it stops responding
-                    // If no message received in twice the wakeup period, then we're DEAD
-                    ZWaveWakeUpCommandClass wakeupCommandClass = (ZWaveWakeUpCommandClass) node
-                            .getCommandClass(CommandClass.COMMAND_CLASS_WAKE_UP);
-                    if (wakeupCommandClass != null && wakeupCommandClass.getInterval() != 0) {
-                        if (node.getLastReceived()
-                                .getTime() < (System.currentTimeMillis() - (wakeupCommandClass.getInterval() * 2000))) {
-                            node.setNodeState(ZWaveNodeState.DEAD);
-                        }
-                    }
+        long now = System.currentTimeMillis();
 
-                    // Send all the messages
-                    for (ZWaveCommandClassTransactionPayload message : messages) {
-                        controllerHandler.sendData(message);
-                    }
-                } catch (Exception e) {
-                    logger.warn("NODE {}: Polling aborted due to exception", nodeId, e);
-                }
+        List<ZWaveCommandClassTransactionPayload> messages = new ArrayList<ZWaveCommandClassTransactionPayload>();
+        for (ZWaveThingChannel channel : thingChannelsState) {
+            if (!thingChannelsPoll.contains(channel.getUID())) {
+                // Don't poll if this channel isn't linked
+                continue;
             }
-        };
 
-        synchronized (pollingSync) {
-            if (pollingJob != null) {
-                pollingJob.cancel(true);
-                pollingJob = null;
+            if (channel.getCommandClass().equals(CommandClass.COMMAND_CLASS_BASIC.toString())
+                    && thingChannelsState.size() > 1) {
+                logger.debug("NODE {}: Polling skipped for {} on COMMAND_CLASS_BASIC", nodeId, channel.getUID());
+                continue;
             }
 
-            if (pollingPeriod < POLLING_PERIOD_MIN) {
-                logger.debug("NODE {}: Polling period was set below minimum value. Using minimum.", nodeId);
-
-                pollingPeriod = POLLING_PERIOD_MIN;
+            // Don't poll channels that have been updated by the device within their effective poll period
+            ReportKey reportKey = channelReportKeys.get(channel.getUID());
+            if (periodic && !reportTracker.isPollRequired(reportKey, pollingPeriod * 1000, now)) {
+                logger.debug("NODE {}: Polling skipped for {} - poll period {}s", nodeId, channel.getUID(),
+                        reportTracker.getPollPeriod(reportKey, pollingPeriod * 1000, now) / 1000);
+                continue;
             }
 
-            if (pollingPeriod > POLLING_PERIOD_MAX) {
-                logger.debug("NODE {}: Polling period was set above maximum value. Using maximum.", nodeId);
+            logger.debug("NODE {}: Polling {}", nodeId, channel.getUID());
+            if (channel.getConverter() == null) {
+                logger.debug("NODE {}: Polling aborted as no converter found for {}", nodeId, channel.getUID());
+            } else {
+                List<ZWaveCommandClassTransactionPayload> poll = channel.getConverter().executeRefresh(channel, node);
+                if (poll != null) {
+                    messages.addAll(poll);
+                    channelRequestTimes.put(channel.getUID(), now);
+                }
+            }
+        }
 
-                pollingPeriod = POLLING_PERIOD_MAX;
+        // If this is a battery device, then we want to check if it stops responding
+        // If no message received in twice the wakeup period, then we're DEAD
+        ZWaveWakeUpCommandClass wakeupCommandClass = (ZWaveWakeUpCommandClass) node
+                .getCommandClass(CommandClass.COMMAND_CLASS_WAKE_UP);
+        if (wakeupCommandClass != null && wakeupCommandClass.getInterval() != 0) {
+            if (node.getLastReceived()
+                    .getTime() < (System.currentTimeMillis() - (wakeupCommandClass.getInterval() * 2000))) {
+                node.setNodeState(ZWaveNodeState.DEAD);
             }
+        }
 
-            pollingJob = scheduler.scheduleAtFixedRate(pollingRunnable, initialPeriod, pollingPeriod * 1000,
-                    TimeUnit.MILLISECONDS);
-            logger.debug("NODE {}: Polling intialised at {} seconds - start in {} milliseconds.", nodeId, pollingPeriod,
-                    initialPeriod);
+        // Send all the messages
+        for (ZWaveCommandClassTransactionPayload message : messages) {
+            controllerHandler.sendData(message);
+        }
+    }
+
+    /**
+     * Requests a poll of the node after a delay. This doesn't change the periodic polling.
+     *
+     * @param delay time to poll in milliseconds
+     */
+    private void startPolling(long delay) {
+        ZWaveControllerHandler controllerHandler = this.controllerHandler;
+        if (controllerHandler == null) {
+            return;
         }
+        controllerHandler.getPollScheduler().requestPoll(nodeId, delay);
     }
 
+    /**
+     * Starts periodic polling of the node with the controller's {@link ZWavePollScheduler}, or updates the period if
+     * polling is already started
+     */
     private void startPolling() {
-        startPolling(pollingPeriod * (int) (1000 * Math.random()));
+        ZWaveControllerHandler controllerHandler = this.controllerHandler;
+        if (controllerHandler == null) {
+            return;
+        }
+
+        if (pollingPeriod < POLLING_PERIOD_MIN) {
+            logger.debug("NODE {}: Polling period was set below minimum value. Using minimum.", nodeId);
+
+            pollingPeriod = POLLING_PERIOD_MIN;
+        }
+
+        if (pollingPeriod > POLLING_PERIOD_MAX) {
+            logger.debug("NODE {}: Polling period was set above maximum value. Using maximum.", nodeId);
+
+            pollingPeriod = POLLING_PERIOD_MAX;
+        }
+
+        controllerHandler.getPollScheduler().addNode(nodeId, pollListener, pollingPeriod * 1000);
     }
 
     @Override
@@ -523,10 +603,11 @@ public class ZWaveThingHandler extends ConfigStatusThingHandler implements ZWave
             updateNodeNeighbours();
             updateNodeProperties();
         }
+        bridgeHandler.getStatisticsAggregator().addGauges(statisticsListener, getNodeStatistics(bridgeHandler));
 
         // Add the listener for ZWave events.
         // This ensures we get called whenever there's an event we might be interested in
-        if (bridgeHandler.addEventListener(this) == false) {
+        if (bridgeHandler.addEventListener(this, nodeId) == false) {
             logger.error("NODE {}: Controller failed to register event handler.", nodeId);
             return;
         }
@@ -536,29 +617,68 @@ public class ZWaveThingHandler extends ConfigStatusThingHandler implements ZWave
         logger.debug("NODE {}: Device initialisation complete.", nodeId);
     }
 
+    /**
+     * Gets the node statistics to be published by the statistics aggregator. The node is looked up each time the
+     * statistics are read, since the node may be replaced (eg if it is reinitialised) while the thing exists.
+     *
+     * @param bridgeHandler the {@link ZWaveControllerHandler} for the node
+     * @return map of the statistic name to the {@link LongSupplier} used to read it
+     */
+    private Map<String, LongSupplier> getNodeStatistics(final ZWaveControllerHandler bridgeHandler) {
+        final int statisticsNodeId = nodeId;
+
+        Map<String, LongSupplier> statistics = new LinkedHashMap<String, LongSupplier>();
+        for (final String name : Arrays.asList(ZWaveNode.STATISTIC_SENT, ZWaveNode.STATISTIC_RECEIVED,
+                ZWaveNode.STATISTIC_RETRIES, ZWaveNode.STATISTIC_TIMEOUTS)) {
+            statistics.put(name, new LongSupplier() {
+                @Override
+                public long getAsLong() {
+                    ZWaveNode node = bridgeHandler.getNode(statisticsNodeId);
+                    if (node == null) {
+                        return 0;
+                    }
+                    LongAdder counter = node.getStatistics().get(name);
+                    return counter == null ? 0 : counter.sum();
+                }
+            });
+        }
+        return statistics;
+    }
+
     @Override
     public void dispose() {
         logger.debug("NODE {}: Handler disposed. Unregistering listener.", nodeId);
         if (nodeId != 0) {
             if (controllerHandler != null) {
                 // Save the XML so that any changes to configuration is saved
-                ZWaveNodeSerializer nodeSerializer = new ZWaveNodeSerializer();
+                ZWaveNodeSerializer nodeSerializer = ZWaveNodeSerializer.getSharedSerializer();
                 ZWaveNode node = controllerHandler.getNode(nodeId);
                 if (node != null) {
-                    nodeSerializer.serializeNode(node);
+                    nodeSerializer.serializeNode(node, controllerHandler.isBinarySnapshot());
                 }
 
-                // Remove the event listener
+                // Remove the event listener and stop polling
                 controllerHandler.removeEventListener(this);
+                controllerHandler.getPollScheduler().removeNode(nodeId);
+                controllerHandler.getStatisticsAggregator().removeStatistics(statisticsListener);
             }
             nodeId = 0;
         }
 
-        synchronized (pollingSync) {
-            if (pollingJob != null) {
-                pollingJob.cancel(true);
-                pollingJob = null;
+        synchronized (refreshSync) {
+            if (refreshJob != null) {
+                refreshJob.cancel(false);
+                refreshJob = null;
             }
+            pendingRefresh.clear();
+        }
+
+        synchronized (configUpdateSync) {
+            if (configUpdateJob != null) {
+                configUpdateJob.cancel(false);
+                configUpdateJob = null;
+            }
+            configUpdates.clear();
         }
 
         controllerHandler = null;
@@ -1015,7 +1135,7 @@ public class ZWaveThingHandler extends ConfigStatusThingHandler implements ZWave
                         logger.debug("NODE {}: Re-initialising node!", nodeId);
 
                         // Delete the saved XML
-                        ZWaveNodeSerializer nodeSerializer = new ZWaveNodeSerializer();
+                        ZWaveNodeSerializer nodeSerializer = ZWaveNodeSerializer.getSharedSerializer();
                         nodeSerializer.deleteNode(node.getHomeId(), nodeId);
 
                         controllerHandler.reinitialiseNode(nodeId);
@@ -1179,11 +1299,125 @@ public class ZWaveThingHandler extends ConfigStatusThingHandler implements ZWave
         for (ZWaveCommandClassTransactionPayload message : messages) {
             controllerHandler.sendData(message);
         }
+        channelRequestTimes.put(channelUID, System.currentTimeMillis());
 
-        // Restart the polling so we get an update on the channel shortly after this command is sent
+        // Refresh the channel shortly after this command is sent so we know the command was applied
         if (commandPollDelay != 0) {
-            startPolling(commandPollDelay);
+            queueChannelRefresh(channelUID);
+        }
+    }
+
+    /**
+     * Queues a refresh of a commanded channel. The refresh is sent {@link #commandPollDelay} after the last command,
+     * so channels commanded within this time are refreshed together. The refresh is cancelled for any channel that is
+     * updated by the device before it is sent.
+     *
+     * @param channelUID the {@link ChannelUID} of the commanded channel
+     */
+    private void queueChannelRefresh(ChannelUID channelUID) {
+        synchronized (refreshSync) {
+            pendingRefresh.add(channelUID);
+            if (refreshJob != null) {
+                refreshJob.cancel(false);
+            }
+
+            refreshJob = scheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    refreshChannels();
+                }
+            }, commandPollDelay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Removes a channel from the pending refresh as its state has been updated
+     *
+     * @param channelUID the {@link ChannelUID} of the updated channel
+     */
+    private void cancelChannelRefresh(ChannelUID channelUID) {
+        synchronized (refreshSync) {
+            if (!pendingRefresh.remove(channelUID)) {
+                return;
+            }
+            logger.debug("NODE {}: Refresh of {} cancelled as state was updated", nodeId, channelUID);
+            if (pendingRefresh.isEmpty() && refreshJob != null) {
+                refreshJob.cancel(false);
+                refreshJob = null;
+            }
+        }
+    }
+
+    /**
+     * Refreshes the commanded channels that haven't been updated since the command was sent. The state of each
+     * channel is requested, along with any other state channels for the same command class on the same endpoint.
+     * Requests that are the same for several channels are only sent once.
+     */
+    private void refreshChannels() {
+        Set<ChannelUID> channelUIDs;
+        synchronized (refreshSync) {
+            refreshJob = null;
+            if (pendingRefresh.isEmpty()) {
+                return;
+            }
+            channelUIDs = new HashSet<ChannelUID>(pendingRefresh);
+            pendingRefresh.clear();
+        }
+
+        ZWaveControllerHandler controllerHandler = this.controllerHandler;
+        if (controllerHandler == null) {
+            return;
+        }
+        ZWaveNode node = controllerHandler.getNode(nodeId);
+        if (node == null) {
+            return;
+        }
+
+        // Find the endpoint and command class of each commanded channel
+        Set<String> refreshClasses = new HashSet<String>();
+        for (ZWaveThingChannel channel : thingChannelsState) {
+            if (channelUIDs.contains(channel.getUID())) {
+                refreshClasses.add(channel.getEndpoint() + ":" + channel.getCommandClass());
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        List<ZWaveCommandClassTransactionPayload> messages = new ArrayList<ZWaveCommandClassTransactionPayload>();
+        for (ZWaveThingChannel channel : thingChannelsState) {
+            if (!channelUIDs.contains(channel.getUID())
+                    && !refreshClasses.contains(channel.getEndpoint() + ":" + channel.getCommandClass())) {
+                continue;
+            }
+            if (!thingChannelsPoll.contains(channel.getUID()) || channel.getConverter() == null) {
+                continue;
+            }
+
+            logger.debug("NODE {}: Refreshing {}", nodeId, channel.getUID());
+            List<ZWaveCommandClassTransactionPayload> refresh = channel.getConverter().executeRefresh(channel, node);
+            if (refresh == null) {
+                continue;
+            }
+            channelRequestTimes.put(channel.getUID(), now);
+            for (ZWaveCommandClassTransactionPayload message : refresh) {
+                if (!containsMessage(messages, message)) {
+                    messages.add(message);
+                }
+            }
+        }
+
+        for (ZWaveCommandClassTransactionPayload message : messages) {
+            controllerHandler.sendData(message);
+        }
+    }
+
+    private boolean containsMessage(List<ZWaveCommandClassTransactionPayload> messages,
+            ZWaveCommandClassTransactionPayload message) {
+        for (ZWaveCommandClassTransactionPayload existing : messages) {
+            if (Arrays.equals(existing.getPayloadBuffer(), message.getPayloadBuffer())) {
+                return true;
+            }
         }
+        return false;
     }
 
     @Override
@@ -1200,14 +1434,12 @@ public class ZWaveThingHandler extends ConfigStatusThingHandler implements ZWave
             // Cast to a command class event
             ZWaveCommandClassValueEvent event = (ZWaveCommandClassValueEvent) incomingEvent;
 
-            String commandClass = event.getCommandClass().toString();
-
             logger.debug("NODE {}: Got a value event from Z-Wave network, endpoint={}, command class={}, value={}",
-                    nodeId, event.getEndpoint(), commandClass, event.getValue());
+                    nodeId, event.getEndpoint(), event.getCommandClass(), event.getValue());
 
-            // If this is a configuration parameter update, process it before the channels
-            Configuration configuration = editConfiguration();
-            boolean cfgUpdated = false;
+            // If this is a configuration parameter update, process it before the channels.
+            // Configuration changes are batched so that multiple reports result in a single update of the thing.
+            Map<String, Object> configuration = new HashMap<String, Object>();
             switch (event.getCommandClass()) {
                 case COMMAND_CLASS_CONFIGURATION:
                     ZWaveConfigurationParameter parameter = ((ZWaveConfigurationParameterEvent) event).getParameter();
@@ -1261,37 +1493,19 @@ public class ZWaveThingHandler extends ConfigStatusThingHandler implements ZWave
                         break;
                     }
 
-                    updateConfigurationParameter(configuration, parameter.getIndex(), parameter.getSize(),
-                            parameter.getValue());
+                    updateConfigurationParameter(getConfig().keySet(), configuration, parameter.getIndex(),
+                            parameter.getSize(), parameter.getValue());
                     break;
 
                 case COMMAND_CLASS_ASSOCIATION:
                 case COMMAND_CLASS_MULTI_CHANNEL_ASSOCIATION:
                     int groupId = ((ZWaveAssociationEvent) event).getGroupId();
                     List<ZWaveAssociation> groupMembers = ((ZWaveAssociationEvent) event).getGroupMembers();
-                    // getAssociationConfigList(ZWaveAssociationGroup newMembers) ;
-
-                    // if (groupMembers != null) {
-                    // logger.debug("NODE {}: Update ASSOCIATION group_{}", nodeId, groupId);
-
-                    // List<String> group = new ArrayList<String>();
-
-                    // Build the configuration value
-                    // for (ZWaveAssociation groupMember : groupMembers) {
-                    // logger.debug("NODE {}: Update ASSOCIATION group_{}: Adding {}", nodeId, groupId,
-                    // groupMember);
-                    // group.add(groupMember.toString());
-                    // }
-                    // logger.debug("NODE {}: Update ASSOCIATION group_{}: {} members", nodeId, groupId, group.size());
-
-                    // cfgUpdated = true;
                     configuration.put("group_" + groupId, getAssociationConfigList(groupMembers));
                     pendingCfg.remove("group_" + groupId);
-                    // }
                     break;
 
                 case COMMAND_CLASS_SWITCH_ALL:
-                    cfgUpdated = true;
                     configuration.put(ZWaveBindingConstants.CONFIGURATION_SWITCHALLMODE, event.getValue());
                     pendingCfg.remove(ZWaveBindingConstants.CONFIGURATION_SWITCHALLMODE);
                     break;
@@ -1299,12 +1513,10 @@ public class ZWaveThingHandler extends ConfigStatusThingHandler implements ZWave
                 case COMMAND_CLASS_NODE_NAMING:
                     switch ((ZWaveNodeNamingCommandClass.Type) event.getType()) {
                         case NODENAME_LOCATION:
-                            cfgUpdated = true;
                             configuration.put(ZWaveBindingConstants.CONFIGURATION_NODELOCATION, event.getValue());
                             pendingCfg.remove(ZWaveBindingConstants.CONFIGURATION_NODELOCATION);
                             break;
                         case NODENAME_NAME:
-                            cfgUpdated = true;
                             configuration.put(ZWaveBindingConstants.CONFIGURATION_NODENAME, event.getValue());
                             pendingCfg.remove(ZWaveBindingConstants.CONFIGURATION_NODENAME);
                             break;
@@ -1314,7 +1526,6 @@ public class ZWaveThingHandler extends ConfigStatusThingHandler implements ZWave
                 case COMMAND_CLASS_DOOR_LOCK:
                     switch ((ZWaveDoorLockCommandClass.Type) event.getType()) {
                         case DOOR_LOCK_TIMEOUT:
-                            cfgUpdated = true;
                             configuration.put(ZWaveBindingConstants.CONFIGURATION_DOORLOCKTIMEOUT, event.getValue());
                             pendingCfg.remove(ZWaveBindingConstants.CONFIGURATION_DOORLOCKTIMEOUT);
                             break;
@@ -1325,7 +1536,6 @@ public class ZWaveThingHandler extends ConfigStatusThingHandler implements ZWave
 
                 case COMMAND_CLASS_USER_CODE:
                     ZWaveUserCodeValueEvent codeEvent = (ZWaveUserCodeValueEvent) event;
-                    cfgUpdated = true;
                     String codeParameterName = ZWaveBindingConstants.CONFIGURATION_USERCODE_CODE + codeEvent.getId();
                     if (codeEvent.getStatus() == UserIdStatusType.OCCUPIED) {
                         configuration.put(codeParameterName, codeEvent.getCode());
@@ -1338,30 +1548,29 @@ public class ZWaveThingHandler extends ConfigStatusThingHandler implements ZWave
                 default:
                     break;
             }
-            if (cfgUpdated == true) {
-                logger.debug("NODE {}: Config updated", nodeId);
-                updateConfiguration(configuration);
+            if (!configuration.isEmpty()) {
+                queueConfigurationUpdate(configuration);
             }
 
-            if (thingChannelsState == null) {
-                logger.debug("NODE {}: No state handlers!", nodeId);
+            // Find the channels that are interested in this endpoint and command class
+            Map<CommandClass, List<ZWaveThingChannel>> endpointChannels = thingChannelsStateIndex
+                    .get(event.getEndpoint());
+            if (endpointChannels == null) {
+                logger.debug("NODE {}: No state handlers for endpoint {}", nodeId, event.getEndpoint());
+                return;
+            }
+            List<ZWaveThingChannel> channels = endpointChannels.get(event.getCommandClass());
+            if (channels == null) {
+                logger.debug("NODE {}: No state handlers for {} on endpoint {}", nodeId, event.getCommandClass(),
+                        event.getEndpoint());
                 return;
             }
 
-            // Process the channels to see if we're interested
-            for (ZWaveThingChannel channel : thingChannelsState) {
-                logger.trace("NODE {}: Checking channel={}, cmdClass={}, endpoint={}", nodeId, channel.getUID(),
-                        channel.getCommandClass(), channel.getEndpoint());
-
-                if (channel.getEndpoint() != event.getEndpoint()) {
-                    continue;
-                }
-
-                // Is this command class associated with this channel?
-                if (!channel.getCommandClass().equals(commandClass)) {
-                    continue;
-                }
-
+            long now = System.currentTimeMillis();
+            ReportKey reportKey = new ReportKey(event);
+            boolean updated = false;
+            boolean solicited = false;
+            for (ZWaveThingChannel channel : channels) {
                 if (channel.getConverter() == null) {
                     logger.warn("NODE {}: No state converter set for channel {}", nodeId, channel.getUID());
                     return;
@@ -1375,9 +1584,22 @@ public class ZWaveThingHandler extends ConfigStatusThingHandler implements ZWave
                             state.getClass().getSimpleName());
 
                     updateState(channel.getUID(), state);
+
+                    channelReportKeys.put(channel.getUID(), reportKey);
+                    cancelChannelRefresh(channel.getUID());
+                    Long requestTime = channelRequestTimes.get(channel.getUID());
+                    if (requestTime != null && now - requestTime < ZWaveReportTracker.SOLICITED_WINDOW) {
+                        solicited = true;
+                    }
+                    updated = true;
                 }
             }
 
+            // Record the report once, even if it updated several channels
+            if (updated) {
+                reportTracker.reportReceived(reportKey, solicited, now);
+            }
+
             return;
         }
 
@@ -1397,12 +1619,12 @@ public class ZWaveThingHandler extends ConfigStatusThingHandler implements ZWave
                 case ZWaveWakeUpCommandClass.WAKE_UP_INTERVAL_REPORT:
                     ZWaveWakeUpCommandClass commandClass = (ZWaveWakeUpCommandClass) node
                             .getCommandClass(CommandClass.COMMAND_CLASS_WAKE_UP);
-                    Configuration configuration = editConfiguration();
+                    Map<String, Object> configuration = new HashMap<String, Object>();
                     configuration.put(ZWaveBindingConstants.CONFIGURATION_WAKEUPINTERVAL, commandClass.getInterval());
                     pendingCfg.remove(ZWaveBindingConstants.CONFIGURATION_WAKEUPINTERVAL);
                     configuration.put(ZWaveBindingConstants.CONFIGURATION_WAKEUPNODE, commandClass.getTargetNodeId());
                     pendingCfg.remove(ZWaveBindingConstants.CONFIGURATION_WAKEUPNODE);
-                    updateConfiguration(configuration);
+                    queueConfigurationUpdate(configuration);
                     break;
             }
             return;
@@ -1546,16 +1768,11 @@ public class ZWaveThingHandler extends ConfigStatusThingHandler implements ZWave
                     updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.NONE, "Node was excluded from the controller");
 
                     // Remove the XML file
-                    ZWaveNodeSerializer nodeSerializer = new ZWaveNodeSerializer();
+                    ZWaveNodeSerializer nodeSerializer = ZWaveNodeSerializer.getSharedSerializer();
                     nodeSerializer.deleteNode(controllerHandler.getHomeId(), nodeId);
 
                     // Stop polling
-                    synchronized (pollingSync) {
-                        if (pollingJob != null) {
-                            pollingJob.cancel(true);
-                            pollingJob = null;
-                        }
-                    }
+                    controllerHandler.getPollScheduler().removeNode(nodeId);
                     break;
                 default:
                     break;
@@ -1668,7 +1885,12 @@ public class ZWaveThingHandler extends ConfigStatusThingHandler implements ZWave
             // Iterate over all parameters and process
             for (int paramId : configurationCommandClass.getParameters().keySet()) {
                 ZWaveConfigurationParameter parameter = configurationCommandClass.getParameter(paramId);
-                updateConfigurationParameter(config, parameter.getIndex(), parameter.getSize(), parameter.getValue());
+                Map<String, Object> values = new HashMap<String, Object>();
+                updateConfigurationParameter(config.keySet(), values, parameter.getIndex(), parameter.getSize(),
+                        parameter.getValue());
+                for (Entry<String, Object> value : values.entrySet()) {
+                    config.put(value.getKey(), value.getValue());
+                }
             }
         }
 
@@ -1732,13 +1954,23 @@ public class ZWaveThingHandler extends ConfigStatusThingHandler implements ZWave
         }
     }
 
-    private boolean updateConfigurationParameter(Configuration configuration, int paramIndex, int paramSize,
-            int paramValue) {
+    /**
+     * Updates the values of all configuration keys that use a configuration parameter
+     *
+     * @param keys the configuration keys defined for the thing
+     * @param configuration map to receive the updated configuration values
+     * @param paramIndex the configuration parameter index
+     * @param paramSize the configuration parameter size
+     * @param paramValue the configuration parameter value
+     * @return true if any configuration values were updated
+     */
+    private boolean updateConfigurationParameter(Set<String> keys, Map<String, Object> configuration, int paramIndex,
+            int paramSize, int paramValue) {
 
         boolean cfgUpdated = false;
 
-        // logger.debug("NODE {}: Config about to update {} parameters...", nodeId, configuration.keySet().size());
-        for (String key : configuration.keySet()) {
+        // logger.debug("NODE {}: Config about to update {} parameters...", nodeId, keys.size());
+        for (String key : keys) {
             // logger.debug("NODE {}: Processing {}", nodeId, key);
             String[] cfg = key.split("_");
             // Check this is a config parameter
@@ -1811,6 +2043,50 @@ public class ZWaveThingHandler extends ConfigStatusThingHandler implements ZWave
         return cfgUpdated;
     }
 
+    /**
+     * Queues configuration values received from the device to be written to the thing. Updates received within a short
+     * time are combined so that the thing configuration is only updated once.
+     *
+     * @param configuration map of configuration values to update
+     */
+    private void queueConfigurationUpdate(Map<String, Object> configuration) {
+        synchronized (configUpdateSync) {
+            configUpdates.putAll(configuration);
+            if (configUpdateJob != null) {
+                return;
+            }
+
+            configUpdateJob = scheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    applyConfigurationUpdates();
+                }
+            }, CONFIG_UPDATE_DELAY, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes any queued configuration values to the thing
+     */
+    private void applyConfigurationUpdates() {
+        Map<String, Object> updates;
+        synchronized (configUpdateSync) {
+            configUpdateJob = null;
+            if (configUpdates.isEmpty()) {
+                return;
+            }
+            updates = new HashMap<String, Object>(configUpdates);
+            configUpdates.clear();
+        }
+
+        Configuration configuration = editConfiguration();
+        for (Entry<String, Object> update : updates.entrySet()) {
+            configuration.put(update.getKey(), update.getValue());
+        }
+        logger.debug("NODE {}: Config updated with {} values", nodeId, updates.size());
+        updateConfiguration(configuration);
+    }
+
     private class ZWaveConfigSubParameter {
         private int bitmask = 0;
         private int value = 0;
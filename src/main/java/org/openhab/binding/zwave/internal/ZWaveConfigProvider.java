@@ -17,11 +17,12 @@ import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -50,6 +51,7 @@ import org.openhab.binding.zwave.internal.protocol.commandclass.ZWaveUserCodeCom
 import org.openhab.binding.zwave.internal.protocol.commandclass.ZWaveUserCodeCommandClass.UserCode;
 import org.openhab.binding.zwave.internal.protocol.commandclass.ZWaveUserCodeCommandClass.UserIdStatusType;
 import org.openhab.binding.zwave.internal.protocol.commandclass.ZWaveWakeUpCommandClass;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
 import org.slf4j.Logger;
@@ -68,10 +70,14 @@ public class ZWaveConfigProvider implements ConfigDescriptionProvider, ConfigOpt
     private static ThingTypeRegistry thingTypeRegistry;
     private static ConfigDescriptionRegistry configDescriptionRegistry;
 
-    private static Set<ThingTypeUID> zwaveThingTypeUIDList = new HashSet<ThingTypeUID>();
-    private static List<ZWaveProduct> productIndex = new ArrayList<ZWaveProduct>();
+    private static volatile ZWaveProductIndex productIndex = new ZWaveProductIndex();
+    private static volatile boolean productIndexComplete = false;
 
+    // The following are guarded by productIndexLock
     private static final Object productIndexLock = new Object();
+    private static ZWaveProductIndex packagedIndex;
+    private static boolean packagedIndexLoaded = false;
+    private static int productIndexThingTypes = -1;
 
     // The following is a list of classes that are controllable.
     // This is used to filter endpoints so that when we display a list of nodes/endpoints
@@ -325,72 +331,137 @@ public class ZWaveConfigProvider implements ConfigDescriptionProvider, ConfigOpt
         return new ConfigDescription(uri, parameters, groups);
     }
 
-    private static void initialiseZWaveThings() {
-        // Check that we know about the registry
-        if (thingTypeRegistry == null) {
-            return;
+    @Activate
+    protected void activate() {
+        // Read the packaged product index in the background so that it's ready by the time the first node is discovered
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (productIndexLock) {
+                    loadPackagedIndex();
+                }
+            }
+        }, "ZWaveProductIndex");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Loads the precomputed index that is packaged with the binding. This is only attempted once. Must be called with
+     * the productIndexLock held.
+     *
+     * @return the packaged {@link ZWaveProductIndex} or null if it's not available
+     */
+    private static ZWaveProductIndex loadPackagedIndex() {
+        if (!packagedIndexLoaded) {
+            packagedIndex = ZWaveProductIndexFile.load();
+            packagedIndexLoaded = true;
         }
+        return packagedIndex;
+    }
 
+    /**
+     * Updates the product index from the thing types in the registry. The index is built in the order of the
+     * registry so that the first matching product is the same as searching the registry. The products for each thing
+     * type are taken from the packaged index where possible, so the thing type properties only need to be parsed for
+     * thing types that are not in the packaged index.
+     * <p>
+     * The registry may not hold all the thing types when the index is first used, so the index is rebuilt when the
+     * number of thing types in the registry changes. Once the registry holds all the thing types in the packaged index,
+     * the index is complete and is no longer checked. If there is no packaged index (eg when running from an IDE) the
+     * registry is checked on every lookup.
+     *
+     * @return the {@link ZWaveProductIndex}
+     */
+    private static ZWaveProductIndex updateProductIndex() {
         synchronized (productIndexLock) {
-            zwaveThingTypeUIDList = new HashSet<ThingTypeUID>();
-            productIndex = new ArrayList<ZWaveProduct>();
+            if (productIndexComplete || thingTypeRegistry == null) {
+                return productIndex;
+            }
 
-            // Get all the thing types
-            Collection<ThingType> thingTypes = thingTypeRegistry.getThingTypes();
-            for (ThingType thingType : thingTypes) {
+            List<ThingType> thingTypes = new ArrayList<ThingType>();
+            for (ThingType thingType : thingTypeRegistry.getThingTypes()) {
                 // Is this for our binding?
-                if (ZWaveBindingConstants.BINDING_ID.equals(thingType.getBindingId()) == false) {
-                    continue;
-                }
-
-                // Create a list of all things supported by this binding
-                zwaveThingTypeUIDList.add(thingType.getUID());
-
-                // Get the properties
-                Map<String, String> thingProperties = thingType.getProperties();
-
-                if (thingProperties.get(ZWaveBindingConstants.PROPERTY_XML_REFERENCES) == null) {
-                    logger.debug("ZWave product {} has no references!", thingType.getUID());
-                    continue;
+                if (ZWaveBindingConstants.BINDING_ID.equals(thingType.getBindingId())) {
+                    thingTypes.add(thingType);
                 }
+            }
+            if (thingTypes.size() == productIndexThingTypes) {
+                return productIndex;
+            }
 
-                String[] references = thingProperties.get(ZWaveBindingConstants.PROPERTY_XML_REFERENCES).split(",");
-                for (String ref : references) {
-                    String[] values = ref.split(":");
-                    Integer type;
-                    Integer id = null;
-                    if (values.length != 2) {
-                        logger.debug("ZWave product {} has invalid references! '{}'", thingType.getUID(),
-                                thingProperties.get(ZWaveBindingConstants.PROPERTY_XML_REFERENCES));
-                        continue;
-                    }
+            long start = System.nanoTime();
+            final ZWaveProductIndex packaged = loadPackagedIndex();
+
+            // Create the products in parallel, keeping the registry order so the first matching product is unchanged
+            List<List<ZWaveProduct>> thingProducts = thingTypes.parallelStream()
+                    .map(new Function<ThingType, List<ZWaveProduct>>() {
+                        @Override
+                        public List<ZWaveProduct> apply(ThingType thingType) {
+                            List<ZWaveProduct> products = packaged == null ? null
+                                    : packaged.getProducts(thingType.getUID());
+                            if (products == null) {
+                                products = ZWaveProductIndex.createProducts(thingType.getUID(),
+                                        thingType.getProperties());
+                            }
+                            return products;
+                        }
+                    }).collect(Collectors.toList());
 
-                    type = Integer.parseInt(values[0], 16);
-                    if (!values[1].trim().equals("*")) {
-                        id = Integer.parseInt(values[1], 16);
-                    }
-                    String versionMin = thingProperties.get(ZWaveBindingConstants.PROPERTY_XML_VERSIONMIN);
-                    String versionMax = thingProperties.get(ZWaveBindingConstants.PROPERTY_XML_VERSIONMAX);
-                    productIndex.add(new ZWaveProduct(thingType.getUID(),
-                            Integer.parseInt(thingProperties.get(ZWaveBindingConstants.PROPERTY_XML_MANUFACTURER), 16),
-                            type, id, versionMin, versionMax));
+            ZWaveProductIndex index = new ZWaveProductIndex();
+            for (int cnt = 0; cnt < thingTypes.size(); cnt++) {
+                index.addThingType(thingTypes.get(cnt).getUID());
+                for (ZWaveProduct product : thingProducts.get(cnt)) {
+                    index.addProduct(product);
                 }
             }
+
+            productIndexThingTypes = thingTypes.size();
+            long loadTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            productIndex = index;
+            productIndexComplete = packaged != null && index.getThingTypes().containsAll(packaged.getThingTypes());
+            logger.info("ZWave product index {} with {} products in {}ms", productIndexComplete ? "loaded" : "updated",
+                    index.size(), loadTime);
+            return index;
         }
     }
 
-    public static synchronized List<ZWaveProduct> getProductIndex() {
-        if (productIndex.size() == 0) {
-            initialiseZWaveThings();
+    public static List<ZWaveProduct> getProductIndex() {
+        return getProductIndexInternal().getProducts();
+    }
+
+    private static ZWaveProductIndex getProductIndexInternal() {
+        if (productIndexComplete) {
+            return productIndex;
         }
-        return productIndex;
+        return updateProductIndex();
+    }
+
+    /**
+     * Finds the product in the database that matches the node
+     *
+     * @param node the {@link ZWaveNode}
+     * @return the matching {@link ZWaveProduct} or null if the node is not in the database
+     */
+    public static ZWaveProduct findProduct(ZWaveNode node) {
+        return getProductIndexInternal().findProduct(node);
+    }
+
+    /**
+     * Finds the product in the database that matches the device information
+     *
+     * @param manufacturer the manufacturer ID
+     * @param type the device type
+     * @param id the device ID
+     * @param version the application version
+     * @return the matching {@link ZWaveProduct} or null if the device is not in the database
+     */
+    public static ZWaveProduct findProduct(int manufacturer, int type, int id, String version) {
+        return getProductIndexInternal().findProduct(manufacturer, type, id, version);
     }
 
     public static Set<ThingTypeUID> getSupportedThingTypes() {
-        if (zwaveThingTypeUIDList.size() == 0) {
-            initialiseZWaveThings();
-        }
-        return zwaveThingTypeUIDList;
+        return getProductIndexInternal().getThingTypes();
     }
 
     public static ThingType getThingType(ThingTypeUID thingTypeUID) {
@@ -409,15 +480,13 @@ public class ZWaveConfigProvider implements ConfigDescriptionProvider, ConfigOpt
             return null;
         }
 
-        for (ZWaveProduct product : ZWaveConfigProvider.getProductIndex()) {
-            logger.trace("{}: Checking {}: {}", node.getNodeId(), product.getThingTypeUID(), product);
-            if (product.match(node) == true) {
-                logger.trace("{}: Matched {}: {}", node.getNodeId(), product.getThingTypeUID(), product);
-                return thingTypeRegistry.getThingType(product.thingTypeUID);
-            }
+        ZWaveProduct product = findProduct(node);
+        if (product == null) {
+            return null;
         }
 
-        return null;
+        logger.trace("{}: Matched {}: {}", node.getNodeId(), product.getThingTypeUID(), product);
+        return thingTypeRegistry.getThingType(product.getThingTypeUID());
     }
 
     /**
@@ -25,6 +25,8 @@ import org.eclipse.smarthome.io.transport.serial.SerialPortManager;
 import org.openhab.binding.zwave.ZWaveBindingConstants;
 import org.openhab.binding.zwave.handler.ZWaveSerialHandler;
 import org.openhab.binding.zwave.handler.ZWaveThingHandler;
+import org.openhab.binding.zwave.internal.protocol.initialization.ZWaveNodeSerializer;
+import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
 import org.slf4j.Logger;
@@ -51,6 +53,14 @@ public class ZWaveHandlerFactory extends BaseThingHandlerFactory {
         this.serialPortManager = null;
     }
 
+    @Override
+    protected void deactivate(ComponentContext componentContext) {
+        super.deactivate(componentContext);
+
+        // The handlers have been disposed - write any remaining node changes and stop the write thread
+        ZWaveNodeSerializer.shutdownSharedSerializer();
+    }
+
     @Override
     public boolean supportsThingType(ThingTypeUID thingTypeUID) {
         if (thingTypeUID.equals(ZWaveBindingConstants.ZWAVE_THING_UID)) {
@@ -0,0 +1,324 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.zwave.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Schedules the periodic polling of all nodes on a controller.
+ * <p>
+ * Rather than each node running its own polling job, the nodes register their poll period with the scheduler, which
+ * checks once per tick which nodes are due to be polled. Each node is given a phase within its period when it is
+ * added - the phase is placed in the middle of the largest gap between the phases of the existing nodes, so polls are
+ * spread evenly across the period rather than colliding at random.
+ * <p>
+ * Before each periodic poll the length of the transaction queue is checked, and if it is above the watermark the
+ * remaining polls are deferred to the next tick. This keeps polling from delaying user commands when the network is
+ * busy. Polls requested with {@link #requestPoll} (eg after a command or a refresh) are not deferred.
+ *
+ * @author rmichalak - Initial contribution
+ *
+ */
+public class ZWavePollScheduler {
+    private final Logger logger = LoggerFactory.getLogger(ZWavePollScheduler.class);
+
+    public static final long TICK_PERIOD = 1000;
+    public static final int DEFAULT_QUEUE_WATERMARK = 10;
+
+    private final QueueMonitor queueMonitor;
+    private final Map<Integer, PollEntry> nodes = new TreeMap<Integer, PollEntry>();
+    private final long epoch;
+
+    private volatile int queueWatermark = DEFAULT_QUEUE_WATERMARK;
+
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> tickJob;
+
+    /**
+     * Polls a node
+     */
+    public interface PollListener {
+        /**
+         * Called when the node should be polled
+         *
+         * @param periodic true if this is a periodic poll, or false if the poll was requested
+         */
+        void poll(boolean periodic);
+    }
+
+    /**
+     * Provides the length of the transaction queue
+     */
+    public interface QueueMonitor {
+        /**
+         * Gets the number of transactions waiting to be sent
+         *
+         * @return the number of queued transactions
+         */
+        int getSendQueueLength();
+    }
+
+    private static class PollEntry {
+        private final PollListener listener;
+        private long period;
+        private double phase;
+        private long nextPoll;
+        private ScheduledFuture<?> requestJob;
+
+        PollEntry(PollListener listener) {
+            this.listener = listener;
+        }
+    }
+
+    /**
+     * Creates a poll scheduler
+     *
+     * @param queueMonitor the {@link QueueMonitor} used to check the transaction queue before polling
+     */
+    public ZWavePollScheduler(QueueMonitor queueMonitor) {
+        this.queueMonitor = queueMonitor;
+        this.epoch = now();
+    }
+
+    /**
+     * Sets the number of queued transactions above which periodic polls are deferred
+     *
+     * @param queueWatermark the queue length
+     */
+    public void setQueueWatermark(int queueWatermark) {
+        this.queueWatermark = Math.max(queueWatermark, 0);
+    }
+
+    /**
+     * Adds a node to the scheduler, or updates the poll period if the node is already scheduled
+     *
+     * @param nodeId the node ID
+     * @param listener the {@link PollListener} called to poll the node
+     * @param period the poll period in milliseconds
+     */
+    public synchronized void addNode(int nodeId, PollListener listener, long period) {
+        PollEntry entry = nodes.get(nodeId);
+        if (entry == null || entry.listener != listener) {
+            PollEntry newEntry = new PollEntry(listener);
+            newEntry.phase = entry == null ? findPhase() : entry.phase;
+            if (entry != null && entry.requestJob != null) {
+                entry.requestJob.cancel(false);
+            }
+            entry = newEntry;
+            nodes.put(nodeId, entry);
+        }
+
+        entry.period = Math.max(period, TICK_PERIOD);
+        entry.nextPoll = getNextSlot(entry, now());
+        logger.debug("NODE {}: Polling scheduled every {}ms - next poll in {}ms", nodeId, entry.period,
+                entry.nextPoll - now());
+    }
+
+    /**
+     * Removes a node from the scheduler
+     *
+     * @param nodeId the node ID
+     */
+    public synchronized void removeNode(int nodeId) {
+        PollEntry entry = nodes.remove(nodeId);
+        if (entry != null && entry.requestJob != null) {
+            entry.requestJob.cancel(false);
+        }
+    }
+
+    /**
+     * Requests a poll of a node after a delay. This does not change the periodic polling of the node. If a poll is
+     * already requested, it is replaced.
+     *
+     * @param nodeId the node ID
+     * @param delay the delay in milliseconds
+     */
+    public synchronized void requestPoll(int nodeId, long delay) {
+        final PollEntry entry = nodes.get(nodeId);
+        if (entry == null || scheduler == null) {
+            logger.debug("NODE {}: Poll requested when polling is not scheduled", nodeId);
+            return;
+        }
+
+        if (entry.requestJob != null) {
+            entry.requestJob.cancel(false);
+        }
+        entry.requestJob = scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                poll(entry, false);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts the scheduler
+     *
+     * @param scheduler the {@link ScheduledExecutorService} used to run the polls
+     */
+    public synchronized void start(ScheduledExecutorService scheduler) {
+        stop();
+
+        this.scheduler = scheduler;
+        tickJob = scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                tick();
+            }
+        }, TICK_PERIOD, TICK_PERIOD, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the scheduler. The nodes remain registered, and will be polled again when the scheduler is restarted.
+     */
+    public synchronized void stop() {
+        if (tickJob != null) {
+            tickJob.cancel(false);
+            tickJob = null;
+        }
+        for (PollEntry entry : nodes.values()) {
+            if (entry.requestJob != null) {
+                entry.requestJob.cancel(false);
+                entry.requestJob = null;
+            }
+        }
+        scheduler = null;
+    }
+
+    /**
+     * Polls the nodes that are due. Nodes are polled in the order they became due, and polling stops if the
+     * transaction queue is above the watermark.
+     */
+    public void tick() {
+        final long now = now();
+        List<PollEntry> due = new ArrayList<PollEntry>();
+        synchronized (this) {
+            for (PollEntry entry : nodes.values()) {
+                if (entry.nextPoll <= now) {
+                    due.add(entry);
+                }
+            }
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+
+        Collections.sort(due, new Comparator<PollEntry>() {
+            @Override
+            public int compare(PollEntry entry1, PollEntry entry2) {
+                return Long.compare(entry1.nextPoll, entry2.nextPoll);
+            }
+        });
+
+        for (int cnt = 0; cnt < due.size(); cnt++) {
+            int queueLength = queueMonitor.getSendQueueLength();
+            if (queueLength > queueWatermark) {
+                logger.debug("Transaction queue length {} above {} - {} polls deferred", queueLength, queueWatermark,
+                        due.size() - cnt);
+                return;
+            }
+
+            PollEntry entry = due.get(cnt);
+            synchronized (this) {
+                if (!nodes.containsValue(entry)) {
+                    continue;
+                }
+                entry.nextPoll = getNextSlot(entry, Math.max(now, entry.nextPoll) + 1);
+            }
+            poll(entry, true);
+        }
+    }
+
+    private void poll(PollEntry entry, boolean periodic) {
+        try {
+            entry.listener.poll(periodic);
+        } catch (Exception e) {
+            logger.warn("Polling aborted due to exception", e);
+        }
+    }
+
+    /**
+     * Gets the first poll time for the entry at or after a time
+     */
+    private long getNextSlot(PollEntry entry, long time) {
+        long offset = (long) (entry.phase * entry.period);
+        long elapsed = time - epoch - offset;
+        long periods = elapsed <= 0 ? 0 : (elapsed + entry.period - 1) / entry.period;
+        return epoch + offset + periods * entry.period;
+    }
+
+    /**
+     * Finds the phase in the middle of the largest gap between the phases of the existing nodes
+     */
+    private double findPhase() {
+        if (nodes.isEmpty()) {
+            return 0;
+        }
+
+        List<Double> phases = new ArrayList<Double>(nodes.size());
+        for (PollEntry entry : nodes.values()) {
+            phases.add(entry.phase);
+        }
+        Collections.sort(phases);
+
+        double gapStart = 0;
+        double gap = -1;
+        for (int cnt = 1; cnt < phases.size(); cnt++) {
+            if (phases.get(cnt) - phases.get(cnt - 1) > gap) {
+                gapStart = phases.get(cnt - 1);
+                gap = phases.get(cnt) - gapStart;
+            }
+        }
+
+        // Then the gap that wraps around the end of the period
+        double last = phases.get(phases.size() - 1);
+        if (phases.get(0) + 1 - last > gap) {
+            gapStart = last;
+            gap = phases.get(0) + 1 - last;
+        }
+
+        double phase = gapStart + gap / 2;
+        return phase >= 1 ? phase - 1 : phase;
+    }
+
+    /**
+     * Gets the next time a node will be polled
+     *
+     * @param nodeId the node ID
+     * @return the time in milliseconds, on the same timebase as {@link #now}, or -1 if the node is not scheduled
+     */
+    public synchronized long getNextPoll(int nodeId) {
+        PollEntry entry = nodes.get(nodeId);
+        return entry == null ? -1 : entry.nextPoll;
+    }
+
+    /**
+     * Gets the current time used to schedule the polls
+     *
+     * @return the time in milliseconds
+     */
+    protected long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+}
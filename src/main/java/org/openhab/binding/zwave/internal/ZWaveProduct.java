@@ -69,8 +69,6 @@ public class ZWaveProduct {
     }
 
     public boolean match(int testManufacturer, int testType, int testId, String testVersion) {
-        Version vIn = new Version(testVersion);
-
         if (manufacturer != testManufacturer) {
             return false;
         }
@@ -83,16 +81,27 @@ public class ZWaveProduct {
             return false;
         }
 
+        return matchVersion(new Version(testVersion));
+    }
+
+    /**
+     * Checks if a version is within the version range of this product. The version is passed pre-parsed so that it
+     * can be checked against many products without being parsed for each one.
+     *
+     * @param version the device application {@link Version}
+     * @return true if the version is within the range
+     */
+    public boolean matchVersion(Version version) {
         // If the node version is less than the database version, then no match
         if (versionMin != null) {
-            if (vIn.compareTo(versionMin) < 0) {
+            if (version.compareTo(versionMin) < 0) {
                 return false;
             }
         }
 
         // If the node version is greater than the database version, then no match
         if (versionMax != null) {
-            if (vIn.compareTo(versionMax) > 0) {
+            if (version.compareTo(versionMax) > 0) {
                 return false;
             }
         }
@@ -101,6 +110,26 @@ public class ZWaveProduct {
         return true;
     }
 
+    public Integer getManufacturer() {
+        return manufacturer;
+    }
+
+    public Integer getType() {
+        return type;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public Version getVersionMin() {
+        return versionMin;
+    }
+
+    public Version getVersionMax() {
+        return versionMax;
+    }
+
     public ThingTypeUID getThingTypeUID() {
         return thingTypeUID;
     }
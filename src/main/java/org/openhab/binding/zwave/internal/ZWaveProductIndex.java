@@ -0,0 +1,325 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.zwave.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.smarthome.core.thing.ThingTypeUID;
+import org.openhab.binding.zwave.ZWaveBindingConstants;
+import org.openhab.binding.zwave.internal.protocol.ZWaveNode;
+import org.osgi.framework.Version;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Index of the {@link ZWaveProduct}s in the device database.
+ * <p>
+ * Products are grouped by manufacturer, and then by type and id, so that a device only needs to be checked against
+ * the few products that share its manufacturer, type and id rather than the whole database. Products that match any
+ * id (or any type) are held separately and checked alongside the exact matches. Where more than one product matches,
+ * the product that was added first is returned, so the result is the same as searching the product list in order.
+ * <p>
+ * The device version is parsed once for each lookup, and the result of each lookup is cached, so nodes with the same
+ * manufacturer, type, id and version are resolved without searching the index again.
+ *
+ * @author rmichalak - Initial contribution
+ *
+ */
+public class ZWaveProductIndex {
+    private static final Logger logger = LoggerFactory.getLogger(ZWaveProductIndex.class);
+
+    // Cache entry for devices that don't match any product
+    private static final ZWaveProduct NO_PRODUCT = new ZWaveProduct(null, 0, null, null);
+
+    private final Set<ThingTypeUID> thingTypes = new LinkedHashSet<ThingTypeUID>();
+    private final List<ZWaveProduct> products = new ArrayList<ZWaveProduct>();
+    private final Map<ThingTypeUID, List<ZWaveProduct>> thingProducts = new HashMap<ThingTypeUID, List<ZWaveProduct>>();
+    private final Map<Integer, ManufacturerProducts> manufacturers = new HashMap<Integer, ManufacturerProducts>();
+    private final Map<DeviceKey, ZWaveProduct> matchCache = new ConcurrentHashMap<DeviceKey, ZWaveProduct>();
+
+    private static class IndexEntry {
+        private final int sequence;
+        private final ZWaveProduct product;
+
+        IndexEntry(int sequence, ZWaveProduct product) {
+            this.sequence = sequence;
+            this.product = product;
+        }
+    }
+
+    private static class ManufacturerProducts {
+        // Products for a specific type and id
+        private final Map<Long, List<IndexEntry>> devices = new HashMap<Long, List<IndexEntry>>();
+        // Products for a type, with any id
+        private final Map<Integer, List<IndexEntry>> types = new HashMap<Integer, List<IndexEntry>>();
+        // Products with any type
+        private final List<IndexEntry> any = new ArrayList<IndexEntry>();
+    }
+
+    private static class DeviceKey {
+        private final int manufacturer;
+        private final int type;
+        private final int id;
+        private final String version;
+
+        DeviceKey(int manufacturer, int type, int id, String version) {
+            this.manufacturer = manufacturer;
+            this.type = type;
+            this.id = id;
+            this.version = version;
+        }
+
+        @Override
+        public int hashCode() {
+            return ((manufacturer * 31 + type) * 31 + id) * 31 + version.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof DeviceKey)) {
+                return false;
+            }
+            DeviceKey other = (DeviceKey) obj;
+            return manufacturer == other.manufacturer && type == other.type && id == other.id
+                    && version.equals(other.version);
+        }
+    }
+
+    /**
+     * Creates the products for a thing type from the database properties of the thing type. This does not modify the
+     * index, so it may be called for many thing types in parallel.
+     *
+     * @param thingTypeUID the {@link ThingTypeUID}
+     * @param properties the thing type properties
+     * @return list of {@link ZWaveProduct}. This will be empty if the thing type has no product references.
+     */
+    public static List<ZWaveProduct> createProducts(ThingTypeUID thingTypeUID, Map<String, String> properties) {
+        List<ZWaveProduct> thingProducts = new ArrayList<ZWaveProduct>();
+
+        if (properties.get(ZWaveBindingConstants.PROPERTY_XML_REFERENCES) == null) {
+            logger.debug("ZWave product {} has no references!", thingTypeUID);
+            return thingProducts;
+        }
+
+        String[] references = properties.get(ZWaveBindingConstants.PROPERTY_XML_REFERENCES).split(",");
+        for (String ref : references) {
+            String[] values = ref.split(":");
+            Integer type;
+            Integer id = null;
+            if (values.length != 2) {
+                logger.debug("ZWave product {} has invalid references! '{}'", thingTypeUID,
+                        properties.get(ZWaveBindingConstants.PROPERTY_XML_REFERENCES));
+                continue;
+            }
+
+            type = Integer.parseInt(values[0], 16);
+            if (!values[1].trim().equals("*")) {
+                id = Integer.parseInt(values[1], 16);
+            }
+            String versionMin = properties.get(ZWaveBindingConstants.PROPERTY_XML_VERSIONMIN);
+            String versionMax = properties.get(ZWaveBindingConstants.PROPERTY_XML_VERSIONMAX);
+            thingProducts.add(new ZWaveProduct(thingTypeUID,
+                    Integer.parseInt(properties.get(ZWaveBindingConstants.PROPERTY_XML_MANUFACTURER), 16), type, id,
+                    versionMin, versionMax));
+        }
+
+        return thingProducts;
+    }
+
+    /**
+     * Adds a thing type to the list of thing types supported by the binding
+     *
+     * @param thingTypeUID the {@link ThingTypeUID}
+     */
+    public void addThingType(ThingTypeUID thingTypeUID) {
+        thingTypes.add(thingTypeUID);
+        if (!thingProducts.containsKey(thingTypeUID)) {
+            thingProducts.put(thingTypeUID, new ArrayList<ZWaveProduct>());
+        }
+    }
+
+    /**
+     * Gets the thing types supported by the binding
+     *
+     * @return set of {@link ThingTypeUID}
+     */
+    public Set<ThingTypeUID> getThingTypes() {
+        return Collections.unmodifiableSet(thingTypes);
+    }
+
+    /**
+     * Adds a product to the index. Products must be added before the index is used for lookups.
+     *
+     * @param product the {@link ZWaveProduct} to add
+     */
+    public void addProduct(ZWaveProduct product) {
+        IndexEntry entry = new IndexEntry(products.size(), product);
+        products.add(product);
+
+        List<ZWaveProduct> productsForThingType = thingProducts.get(product.getThingTypeUID());
+        if (productsForThingType == null) {
+            productsForThingType = new ArrayList<ZWaveProduct>();
+            thingProducts.put(product.getThingTypeUID(), productsForThingType);
+        }
+        productsForThingType.add(product);
+
+        ManufacturerProducts manufacturerProducts = manufacturers.get(product.getManufacturer());
+        if (manufacturerProducts == null) {
+            manufacturerProducts = new ManufacturerProducts();
+            manufacturers.put(product.getManufacturer(), manufacturerProducts);
+        }
+
+        List<IndexEntry> entries;
+        if (product.getType() == null) {
+            entries = manufacturerProducts.any;
+        } else if (product.getId() == null) {
+            entries = manufacturerProducts.types.get(product.getType());
+            if (entries == null) {
+                entries = new ArrayList<IndexEntry>();
+                manufacturerProducts.types.put(product.getType(), entries);
+            }
+        } else {
+            long key = getDeviceKey(product.getType(), product.getId());
+            entries = manufacturerProducts.devices.get(key);
+            if (entries == null) {
+                entries = new ArrayList<IndexEntry>();
+                manufacturerProducts.devices.put(key, entries);
+            }
+        }
+        entries.add(entry);
+    }
+
+    /**
+     * Gets all products in the order they were added
+     *
+     * @return list of {@link ZWaveProduct}
+     */
+    public List<ZWaveProduct> getProducts() {
+        return Collections.unmodifiableList(products);
+    }
+
+    /**
+     * Gets the products for a thing type
+     *
+     * @param thingTypeUID the {@link ThingTypeUID}
+     * @return list of {@link ZWaveProduct}, or null if the thing type is not in the index
+     */
+    public List<ZWaveProduct> getProducts(ThingTypeUID thingTypeUID) {
+        List<ZWaveProduct> productsForThingType = thingProducts.get(thingTypeUID);
+        return productsForThingType == null ? null : Collections.unmodifiableList(productsForThingType);
+    }
+
+    /**
+     * Gets the number of products in the index
+     *
+     * @return the number of products
+     */
+    public int size() {
+        return products.size();
+    }
+
+    /**
+     * Finds the product for a node
+     *
+     * @param node the {@link ZWaveNode}
+     * @return the matching {@link ZWaveProduct} or null if the node doesn't match any product
+     */
+    public ZWaveProduct findProduct(ZWaveNode node) {
+        return findProduct(node.getManufacturer(), node.getDeviceType(), node.getDeviceId(),
+                node.getApplicationVersion());
+    }
+
+    /**
+     * Finds the product for a device
+     *
+     * @param manufacturer the manufacturer ID
+     * @param type the device type
+     * @param id the device ID
+     * @param version the application version
+     * @return the matching {@link ZWaveProduct} or null if the device doesn't match any product
+     */
+    public ZWaveProduct findProduct(int manufacturer, int type, int id, String version) {
+        if (version == null) {
+            return null;
+        }
+
+        DeviceKey deviceKey = new DeviceKey(manufacturer, type, id, version);
+        ZWaveProduct product = matchCache.get(deviceKey);
+        if (product == null) {
+            product = searchProducts(manufacturer, type, id, version);
+            matchCache.put(deviceKey, product == null ? NO_PRODUCT : product);
+        }
+
+        return product == NO_PRODUCT ? null : product;
+    }
+
+    private ZWaveProduct searchProducts(int manufacturer, int type, int id, String version) {
+        ManufacturerProducts manufacturerProducts = manufacturers.get(manufacturer);
+        if (manufacturerProducts == null) {
+            return null;
+        }
+
+        Version deviceVersion;
+        try {
+            deviceVersion = new Version(version);
+        } catch (IllegalArgumentException e) {
+            logger.debug("Unable to parse device version '{}'", version);
+            return null;
+        }
+
+        // Merge the candidate lists so that products are checked in the order they were added
+        List<List<IndexEntry>> candidates = new ArrayList<List<IndexEntry>>(3);
+        addCandidates(candidates, manufacturerProducts.devices.get(getDeviceKey(type, id)));
+        addCandidates(candidates, manufacturerProducts.types.get(type));
+        addCandidates(candidates, manufacturerProducts.any);
+
+        int[] positions = new int[candidates.size()];
+        while (true) {
+            IndexEntry next = null;
+            int nextList = -1;
+            for (int cnt = 0; cnt < candidates.size(); cnt++) {
+                List<IndexEntry> entries = candidates.get(cnt);
+                if (positions[cnt] < entries.size()
+                        && (next == null || entries.get(positions[cnt]).sequence < next.sequence)) {
+                    next = entries.get(positions[cnt]);
+                    nextList = cnt;
+                }
+            }
+            if (next == null) {
+                return null;
+            }
+            positions[nextList]++;
+
+            if (next.product.matchVersion(deviceVersion)) {
+                return next.product;
+            }
+        }
+    }
+
+    private void addCandidates(List<List<IndexEntry>> candidates, List<IndexEntry> entries) {
+        if (entries != null && !entries.isEmpty()) {
+            candidates.add(entries);
+        }
+    }
+
+    private long getDeviceKey(int type, int id) {
+        return ((long) type << 32) | (id & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,267 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.zwave.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.eclipse.smarthome.core.thing.ThingTypeUID;
+import org.openhab.binding.zwave.ZWaveBindingConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Reads and writes the precomputed product index.
+ * <p>
+ * The index file is generated from the ESH-INF/thing definitions when the binding is built (see {@link #main}), and
+ * is packaged as a resource so that the {@link ZWaveProductIndex} can be loaded with a single read at startup rather
+ * than being built from the properties of every thing type in the registry. The file holds the list of thing types
+ * followed by the products, in a compact binary form -:
+ * <ul>
+ * <li>int magic, int format version
+ * <li>int number of thing types, followed by the UID of each thing type
+ * <li>int number of products, followed by the thing type index, manufacturer, type, id, and version range of each
+ * product. A type or id of -1 matches any value.
+ * </ul>
+ * The definition files are read in sorted order so the file is the same on every build. This is not the order of the
+ * thing type registry, so the {@link ZWaveConfigProvider} uses the products for each thing type from this file, but
+ * orders them as the registry does.
+ *
+ * @author rmichalak - Initial contribution
+ *
+ */
+public class ZWaveProductIndexFile {
+    private static final Logger logger = LoggerFactory.getLogger(ZWaveProductIndexFile.class);
+
+    public static final String RESOURCE = "zwave-products.idx";
+
+    private static final int MAGIC = 0x5A575049;
+    private static final int FORMAT_VERSION = 1;
+    private static final int ANY = -1;
+
+    /**
+     * Writes the index
+     *
+     * @param index the {@link ZWaveProductIndex} to write
+     * @param outputStream the {@link OutputStream} to write to
+     * @throws IOException
+     */
+    public static void write(ZWaveProductIndex index, OutputStream outputStream) throws IOException {
+        DataOutputStream output = new DataOutputStream(outputStream);
+        output.writeInt(MAGIC);
+        output.writeInt(FORMAT_VERSION);
+
+        Map<ThingTypeUID, Integer> thingTypes = new HashMap<ThingTypeUID, Integer>();
+        output.writeInt(index.getThingTypes().size());
+        for (ThingTypeUID thingTypeUID : index.getThingTypes()) {
+            thingTypes.put(thingTypeUID, thingTypes.size());
+            output.writeUTF(thingTypeUID.getAsString());
+        }
+
+        output.writeInt(index.getProducts().size());
+        for (ZWaveProduct product : index.getProducts()) {
+            output.writeInt(thingTypes.get(product.getThingTypeUID()));
+            output.writeInt(product.getManufacturer());
+            output.writeInt(product.getType() == null ? ANY : product.getType());
+            output.writeInt(product.getId() == null ? ANY : product.getId());
+            output.writeUTF(product.getVersionMin().toString());
+            output.writeUTF(product.getVersionMax().toString());
+        }
+        output.flush();
+    }
+
+    /**
+     * Reads an index. The stream is read completely before the index is created.
+     *
+     * @param inputStream the {@link InputStream} to read from
+     * @return the {@link ZWaveProductIndex}
+     * @throws IOException if the stream can't be read or is not a valid index
+     */
+    public static ZWaveProductIndex read(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(65536);
+        byte[] block = new byte[65536];
+        int length;
+        while ((length = inputStream.read(block)) != -1) {
+            buffer.write(block, 0, length);
+        }
+
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(buffer.toByteArray()));
+        if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+            throw new IOException("Product index has an unknown format");
+        }
+
+        ZWaveProductIndex index = new ZWaveProductIndex();
+        ThingTypeUID[] thingTypes = new ThingTypeUID[input.readInt()];
+        for (int cnt = 0; cnt < thingTypes.length; cnt++) {
+            thingTypes[cnt] = new ThingTypeUID(input.readUTF());
+            index.addThingType(thingTypes[cnt]);
+        }
+
+        int products = input.readInt();
+        for (int cnt = 0; cnt < products; cnt++) {
+            ThingTypeUID thingTypeUID = thingTypes[input.readInt()];
+            int manufacturer = input.readInt();
+            int type = input.readInt();
+            int id = input.readInt();
+            index.addProduct(new ZWaveProduct(thingTypeUID, manufacturer, type == ANY ? null : type,
+                    id == ANY ? null : id, input.readUTF(), input.readUTF()));
+        }
+
+        return index;
+    }
+
+    /**
+     * Loads the index that was packaged with the binding
+     *
+     * @return the {@link ZWaveProductIndex} or null if the index is not available
+     */
+    public static ZWaveProductIndex load() {
+        InputStream inputStream = ZWaveProductIndexFile.class.getClassLoader().getResourceAsStream(RESOURCE);
+        if (inputStream == null) {
+            logger.debug("Product index {} not found", RESOURCE);
+            return null;
+        }
+
+        try {
+            return read(inputStream);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Unable to read product index {}: {}", RESOURCE, e.getMessage());
+            return null;
+        } finally {
+            try {
+                inputStream.close();
+            } catch (IOException e) {
+            }
+        }
+    }
+
+    /**
+     * Creates an index from the thing definition files
+     *
+     * @param folder the folder containing the thing definitions. Sub folders are also read.
+     * @return the {@link ZWaveProductIndex}
+     * @throws Exception if a definition file can't be read
+     */
+    public static ZWaveProductIndex createIndex(File folder) throws Exception {
+        List<File> files = new ArrayList<File>();
+        findDefinitions(folder, files);
+
+        DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        ZWaveProductIndex index = new ZWaveProductIndex();
+        for (File file : files) {
+            Document document = builder.parse(file);
+            Element root = document.getDocumentElement();
+            if (!ZWaveBindingConstants.BINDING_ID.equals(root.getAttribute("bindingId"))) {
+                continue;
+            }
+
+            for (Element thingType : getChildElements(root)) {
+                if (!"thing-type".equals(thingType.getTagName()) && !"bridge-type".equals(thingType.getTagName())) {
+                    continue;
+                }
+
+                ThingTypeUID thingTypeUID = new ThingTypeUID(ZWaveBindingConstants.BINDING_ID,
+                        thingType.getAttribute("id"));
+                index.addThingType(thingTypeUID);
+
+                Map<String, String> properties = new HashMap<String, String>();
+                for (Element propertyList : getChildElements(thingType)) {
+                    if (!"properties".equals(propertyList.getTagName())) {
+                        continue;
+                    }
+                    for (Element property : getChildElements(propertyList)) {
+                        properties.put(property.getAttribute("name"), property.getTextContent().trim());
+                    }
+                }
+
+                if (properties.containsKey(ZWaveBindingConstants.PROPERTY_XML_REFERENCES)) {
+                    for (ZWaveProduct product : ZWaveProductIndex.createProducts(thingTypeUID, properties)) {
+                        index.addProduct(product);
+                    }
+                }
+            }
+        }
+
+        return index;
+    }
+
+    private static void findDefinitions(File folder, List<File> files) {
+        File[] children = folder.listFiles();
+        if (children == null) {
+            return;
+        }
+
+        // Sort so that the index is the same on every build
+        Arrays.sort(children);
+        for (File child : children) {
+            if (child.isDirectory()) {
+                findDefinitions(child, files);
+            } else if (child.getName().endsWith(".xml")) {
+                files.add(child);
+            }
+        }
+    }
+
+    private static List<Element> getChildElements(Element parent) {
+        List<Element> elements = new ArrayList<Element>();
+        NodeList children = parent.getChildNodes();
+        for (int cnt = 0; cnt < children.getLength(); cnt++) {
+            if (children.item(cnt).getNodeType() == Node.ELEMENT_NODE) {
+                elements.add((Element) children.item(cnt));
+            }
+        }
+        return elements;
+    }
+
+    /**
+     * Generates the index file when the binding is built.
+     *
+     * @param args the thing definition folder, and the index file to write
+     * @throws Exception if the index can't be created
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: ZWaveProductIndexFile <thing folder> <index file>");
+        }
+
+        ZWaveProductIndex index = createIndex(new File(args[0]));
+        File indexFile = new File(args[1]);
+        if (indexFile.getParentFile() != null) {
+            indexFile.getParentFile().mkdirs();
+        }
+        try (OutputStream outputStream = new FileOutputStream(indexFile)) {
+            write(index, outputStream);
+        }
+        logger.info("Product index written with {} thing types and {} products", index.getThingTypes().size(),
+                index.size());
+    }
+}
@@ -0,0 +1,185 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.zwave.internal;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openhab.binding.zwave.internal.protocol.commandclass.ZWaveCommandClass.CommandClass;
+import org.openhab.binding.zwave.internal.protocol.event.ZWaveCommandClassValueEvent;
+
+/**
+ * Tracks the reports received from a node to decide which values need to be polled.
+ * <p>
+ * Reports are recorded for each endpoint, command class and type of {@link ZWaveCommandClassValueEvent}. A report is
+ * solicited if it was received shortly after the value was polled or commanded - any other report was sent by the
+ * device itself (eg to the lifeline association). The interval between unsolicited reports is averaged, and a value
+ * that is reported at least as often as it would be polled is considered to be reporting.
+ * <p>
+ * The effective poll period of a value is the normal poll period, or {@link #REPORTING_POLL_FACTOR} times the normal
+ * period while the value is reporting. A value is only polled when its last update is older than the effective period
+ * (less half the normal period, to allow for the poll timing). If the device stops reporting, the value reverts to
+ * the normal poll period once two report intervals have passed without a report.
+ *
+ * @author rmichalak - Initial contribution
+ *
+ */
+public class ZWaveReportTracker {
+    /**
+     * Time after a poll or command in which a report is considered to be a response
+     */
+    public static final long SOLICITED_WINDOW = 10000;
+
+    /**
+     * Multiplier of the poll period for values that are reporting
+     */
+    public static final int REPORTING_POLL_FACTOR = 4;
+
+    private final Map<ReportKey, ReportRecord> records = new ConcurrentHashMap<ReportKey, ReportRecord>();
+
+    /**
+     * Identifies a reported value by endpoint, command class and event type
+     */
+    public static class ReportKey {
+        private final int endpoint;
+        private final CommandClass commandClass;
+        private final Object type;
+
+        public ReportKey(int endpoint, CommandClass commandClass, Object type) {
+            this.endpoint = endpoint;
+            this.commandClass = commandClass;
+            this.type = type;
+        }
+
+        public ReportKey(ZWaveCommandClassValueEvent event) {
+            this(event.getEndpoint(), event.getCommandClass(), event.getType());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(endpoint, commandClass, type);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ReportKey)) {
+                return false;
+            }
+            ReportKey other = (ReportKey) obj;
+            return endpoint == other.endpoint && commandClass == other.commandClass
+                    && Objects.equals(type, other.type);
+        }
+
+        @Override
+        public String toString() {
+            return endpoint + ":" + commandClass + (type == null ? "" : ":" + type);
+        }
+    }
+
+    private static class ReportRecord {
+        private long lastUpdate;
+        private long lastUnsolicited;
+        private long interval;
+    }
+
+    /**
+     * Records a report
+     *
+     * @param key the {@link ReportKey} of the value
+     * @param solicited true if the report was a response to a poll or command
+     * @param time the time the report was received in milliseconds
+     */
+    public void reportReceived(ReportKey key, boolean solicited, long time) {
+        ReportRecord record = records.get(key);
+        if (record == null) {
+            ReportRecord newRecord = new ReportRecord();
+            record = records.putIfAbsent(key, newRecord);
+            if (record == null) {
+                record = newRecord;
+            }
+        }
+
+        synchronized (record) {
+            record.lastUpdate = time;
+            if (solicited) {
+                return;
+            }
+
+            if (record.lastUnsolicited != 0) {
+                long gap = time - record.lastUnsolicited;
+                record.interval = record.interval == 0 ? gap : (record.interval * 3 + gap) / 4;
+            }
+            record.lastUnsolicited = time;
+        }
+    }
+
+    /**
+     * Checks if a value is being reported by the device often enough that it doesn't need to be polled at the normal
+     * poll period
+     *
+     * @param key the {@link ReportKey} of the value
+     * @param pollPeriod the normal poll period in milliseconds
+     * @param time the current time in milliseconds
+     * @return true if the value is reporting
+     */
+    public boolean isReporting(ReportKey key, long pollPeriod, long time) {
+        ReportRecord record = records.get(key);
+        if (record == null) {
+            return false;
+        }
+        synchronized (record) {
+            return record.interval != 0 && record.interval <= pollPeriod
+                    && time - record.lastUnsolicited < record.interval * 2;
+        }
+    }
+
+    /**
+     * Gets the effective poll period of a value
+     *
+     * @param key the {@link ReportKey} of the value, or null if no reports have been received
+     * @param pollPeriod the normal poll period in milliseconds
+     * @param time the current time in milliseconds
+     * @return the effective poll period in milliseconds
+     */
+    public long getPollPeriod(ReportKey key, long pollPeriod, long time) {
+        if (key != null && isReporting(key, pollPeriod, time)) {
+            return pollPeriod * REPORTING_POLL_FACTOR;
+        }
+        return pollPeriod;
+    }
+
+    /**
+     * Checks if a value needs to be polled
+     *
+     * @param key the {@link ReportKey} of the value, or null if no reports have been received
+     * @param pollPeriod the normal poll period in milliseconds
+     * @param time the current time in milliseconds
+     * @return true if the value should be polled
+     */
+    public boolean isPollRequired(ReportKey key, long pollPeriod, long time) {
+        if (key == null) {
+            return true;
+        }
+        ReportRecord record = records.get(key);
+        if (record == null) {
+            return true;
+        }
+
+        long lastUpdate;
+        synchronized (record) {
+            lastUpdate = record.lastUpdate;
+        }
+        return time - lastUpdate >= getPollPeriod(key, pollPeriod, time) - pollPeriod / 2;
+    }
+}
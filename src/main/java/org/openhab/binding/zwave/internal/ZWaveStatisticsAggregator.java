@@ -0,0 +1,175 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.zwave.internal;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects statistics counters and periodically publishes the values that have changed.
+ * <p>
+ * Counters are incremented where the events occur (eg in the serial receive thread) using {@link LongAdder}s, which
+ * are cheap to update from any thread. Rather than publishing every change as it happens, the counters are read at
+ * the flush interval, and each listener is called once with only the values that have changed since the last flush.
+ * No counts are lost - the latest total is always published.
+ * <p>
+ * Gauges, such as queue depths, can also be added. These are read at each flush in the same way as the counters and
+ * are published only when their value has changed.
+ *
+ * @author rmichalak - Initial contribution
+ *
+ */
+public class ZWaveStatisticsAggregator {
+    private final Logger logger = LoggerFactory.getLogger(ZWaveStatisticsAggregator.class);
+
+    private final Map<StatisticsListener, StatisticsGroup> groups = new ConcurrentHashMap<>();
+
+    private ScheduledFuture<?> flushJob;
+
+    /**
+     * Receives the statistics that have changed
+     */
+    public interface StatisticsListener {
+        /**
+         * Called when statistics have changed
+         *
+         * @param statistics map of the statistic name to its current value. Only changed statistics are included.
+         */
+        void statisticsUpdated(Map<String, Long> statistics);
+    }
+
+    private class StatisticsGroup {
+        private final Map<String, LongSupplier> counters;
+        private final Map<String, Long> published = new HashMap<>();
+
+        StatisticsGroup(Map<String, LongSupplier> counters) {
+            this.counters = counters;
+        }
+
+        synchronized Map<String, Long> getChanges() {
+            Map<String, Long> changes = null;
+            for (Map.Entry<String, LongSupplier> counter : counters.entrySet()) {
+                long value = counter.getValue().getAsLong();
+                Long last = published.get(counter.getKey());
+                if (last != null && last == value) {
+                    continue;
+                }
+
+                published.put(counter.getKey(), value);
+                if (changes == null) {
+                    changes = new LinkedHashMap<>();
+                }
+                changes.put(counter.getKey(), value);
+            }
+            return changes == null ? Collections.<String, Long> emptyMap() : changes;
+        }
+    }
+
+    /**
+     * Adds a set of statistics. All the statistics will be published to the listener on the next flush.
+     *
+     * @param listener the {@link StatisticsListener} to receive the statistics
+     * @param counters map of statistic names to their counters
+     */
+    public void addStatistics(StatisticsListener listener, Map<String, LongAdder> counters) {
+        Map<String, LongSupplier> suppliers = new LinkedHashMap<>();
+        for (Map.Entry<String, LongAdder> counter : counters.entrySet()) {
+            final LongAdder adder = counter.getValue();
+            suppliers.put(counter.getKey(), new LongSupplier() {
+                @Override
+                public long getAsLong() {
+                    return adder.sum();
+                }
+            });
+        }
+        groups.put(listener, new StatisticsGroup(suppliers));
+    }
+
+    /**
+     * Adds a set of gauges. Gauges are read at each flush and, like counters, are only published when they have
+     * changed. All the gauges will be published to the listener on the next flush.
+     *
+     * @param listener the {@link StatisticsListener} to receive the statistics
+     * @param gauges map of statistic names to the {@link LongSupplier} used to read their value
+     */
+    public void addGauges(StatisticsListener listener, Map<String, LongSupplier> gauges) {
+        groups.put(listener, new StatisticsGroup(new LinkedHashMap<>(gauges)));
+    }
+
+    /**
+     * Removes the statistics for a listener
+     *
+     * @param listener the {@link StatisticsListener} to remove
+     */
+    public void removeStatistics(StatisticsListener listener) {
+        groups.remove(listener);
+    }
+
+    /**
+     * Starts publishing the statistics periodically. If already started, the flush period is updated.
+     *
+     * @param scheduler the {@link ScheduledExecutorService} used to run the flush
+     * @param period the flush period
+     * @param unit the {@link TimeUnit} of the period
+     */
+    public synchronized void start(ScheduledExecutorService scheduler, long period, TimeUnit unit) {
+        stop();
+
+        logger.debug("Statistics will be published every {}ms", unit.toMillis(period));
+        flushJob = scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                flush();
+            }
+        }, period, period, unit);
+    }
+
+    /**
+     * Stops publishing the statistics
+     */
+    public synchronized void stop() {
+        if (flushJob != null) {
+            flushJob.cancel(false);
+            flushJob = null;
+        }
+    }
+
+    /**
+     * Publishes any statistics that have changed since the last flush
+     */
+    public void flush() {
+        for (Map.Entry<StatisticsListener, StatisticsGroup> group : groups.entrySet()) {
+            Map<String, Long> changes = group.getValue().getChanges();
+            if (changes.isEmpty()) {
+                continue;
+            }
+
+            try {
+                group.getKey().statisticsUpdated(changes);
+            } catch (Exception e) {
+                logger.warn("Exception publishing statistics", e);
+            }
+        }
+    }
+}
@@ -49,6 +49,33 @@ public class ZWaveBinarySensorConverter extends ZWaveCommandClassConverter {
         super(controller);
     }
 
+    /**
+     * Channel arguments compiled by {@link ZWaveBinarySensorConverter#compileBinding}
+     */
+    private static class SensorBinding {
+        // The sensor type, or null if not set
+        private final SensorType sensorType;
+
+        SensorBinding(SensorType sensorType) {
+            this.sensorType = sensorType;
+        }
+    }
+
+    @Override
+    public Object compileBinding(ZWaveThingChannel channel) {
+        SensorType sensorType = null;
+        String sensorTypeConfig = channel.getArguments().get("type");
+        if (sensorTypeConfig != null) {
+            try {
+                sensorType = SensorType.valueOf(sensorTypeConfig);
+            } catch (IllegalArgumentException e) {
+                logger.warn("Invalid sensor type '{}' for channel {}", sensorTypeConfig, channel.getUID());
+            }
+        }
+
+        return new SensorBinding(sensorType);
+    }
+
     @Override
     public List<ZWaveCommandClassTransactionPayload> executeRefresh(ZWaveThingChannel channel, ZWaveNode node) {
         ZWaveBinarySensorCommandClass commandClass = (ZWaveBinarySensorCommandClass) node
@@ -60,12 +87,11 @@ public class ZWaveBinarySensorConverter extends ZWaveCommandClassConverter {
         logger.debug("NODE {}: Generating poll message for {}, endpoint {}", node.getNodeId(),
                 commandClass.getCommandClass(), channel.getEndpoint());
 
-        String sensorType = channel.getArguments().get("type");
+        SensorType sensorType = getBinding(channel, SensorBinding.class).sensorType;
 
         ZWaveCommandClassTransactionPayload transaction;
         if (sensorType != null && commandClass.getVersion() > 1) {
-            transaction = node.encapsulate(commandClass.getValueMessage(SensorType.valueOf(sensorType)),
-                    channel.getEndpoint());
+            transaction = node.encapsulate(commandClass.getValueMessage(sensorType), channel.getEndpoint());
         } else {
             transaction = node.encapsulate(commandClass.getValueMessage(), channel.getEndpoint());
         }
@@ -79,13 +105,13 @@ public class ZWaveBinarySensorConverter extends ZWaveCommandClassConverter {
     public State handleEvent(ZWaveThingChannel channel, ZWaveCommandClassValueEvent event) {
         // logger.debug("ZWaveBinarySensorValueEvent 1");
 
-        String sensorType = channel.getArguments().get("type");
+        SensorType sensorType = getBinding(channel, SensorBinding.class).sensorType;
         // logger.debug("ZWaveBinarySensorValueEvent 2");
         ZWaveBinarySensorValueEvent sensorEvent = (ZWaveBinarySensorValueEvent) event;
         // logger.debug("ZWaveBinarySensorValueEvent 3");
 
         // Don't trigger event if this item is bound to another alarm type
-        if (sensorType != null && SensorType.valueOf(sensorType) != sensorEvent.getSensorType()) {
+        if (sensorType != null && sensorType != sensorEvent.getSensorType()) {
             // logger.debug("ZWaveBinarySensorValueEvent 4");
             return null;
         }
@@ -39,8 +39,6 @@ public class ZWaveClockConverter extends ZWaveCommandClassConverter {
 
     private final Logger logger = LoggerFactory.getLogger(ZWaveClockConverter.class);
 
-    private Calendar lastClockUpdate = Calendar.getInstance();
-
     /**
      * Constructor. Creates a new instance of the {@link ZWaveClockConverter} class.
      *
@@ -49,6 +47,37 @@ public class ZWaveClockConverter extends ZWaveCommandClassConverter {
         super(controller);
     }
 
+    /**
+     * Channel arguments and clock update state compiled by {@link ZWaveClockConverter#compileBinding}
+     */
+    private static class ClockBinding {
+        // The clock offset in seconds above which the time is set
+        private final int offsetAllowed;
+        // The last time the clock was set, used to avoid a loop if setting the time doesn't work
+        private volatile long lastClockUpdate = System.currentTimeMillis();
+
+        ClockBinding(int offsetAllowed) {
+            this.offsetAllowed = offsetAllowed;
+        }
+    }
+
+    @Override
+    public Object compileBinding(ZWaveThingChannel channel) {
+        int offsetAllowed = Integer.MAX_VALUE;
+        String offsetString = channel.getArguments().get("config_offset");
+        if (offsetString != null) {
+            try {
+                if (Double.valueOf(offsetString) != 0) {
+                    offsetAllowed = Double.valueOf(offsetString).intValue();
+                }
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid clock offset '{}' for channel {}", offsetString, channel.getUID());
+            }
+        }
+
+        return new ClockBinding(offsetAllowed);
+    }
+
     @Override
     public List<ZWaveCommandClassTransactionPayload> executeRefresh(ZWaveThingChannel channel, ZWaveNode node) {
         ZWaveClockCommandClass commandClass = (ZWaveClockCommandClass) node
@@ -68,11 +97,7 @@ public class ZWaveClockConverter extends ZWaveCommandClassConverter {
 
     @Override
     public State handleEvent(ZWaveThingChannel channel, ZWaveCommandClassValueEvent event) {
-        int offsetAllowed = Integer.MAX_VALUE;
-        String offsetString = channel.getArguments().get("config_offset");
-        if (offsetString != null && Double.valueOf(offsetString) != 0) {
-            offsetAllowed = Double.valueOf(offsetString).intValue();
-        }
+        ClockBinding binding = getBinding(channel, ClockBinding.class);
 
         State state = null;
         switch (channel.getDataType()) {
@@ -82,8 +107,8 @@ public class ZWaveClockConverter extends ZWaveCommandClassConverter {
                 long clockOffset = Math.abs(nodeTime.getTime() - System.currentTimeMillis()) / 1000;
 
                 // If the clock is outside the offset, then update
-                if (clockOffset > offsetAllowed
-                        && lastClockUpdate.getTimeInMillis() < (Calendar.getInstance().getTimeInMillis() - 30000)) {
+                if (clockOffset > binding.offsetAllowed
+                        && binding.lastClockUpdate < (System.currentTimeMillis() - 30000)) {
                     logger.debug("NODE {}: Clock was {} seconds off. Time will be updated.", event.getNodeId(),
                             clockOffset);
 
@@ -103,7 +128,7 @@ public class ZWaveClockConverter extends ZWaveCommandClassConverter {
 
                     // We keep track of the last time we set the time to avoid a pathalogical loop if the time set
                     // doesn't work
-                    lastClockUpdate = Calendar.getInstance();
+                    binding.lastClockUpdate = System.currentTimeMillis();
 
                     // And request a read-back
                     transaction = node.encapsulate(commandClass.getValueMessage(), channel.getEndpoint());
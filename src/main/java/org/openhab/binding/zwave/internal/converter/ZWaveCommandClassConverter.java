@@ -18,7 +18,7 @@ import java.math.MathContext;
 import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 
@@ -38,6 +38,10 @@ import org.slf4j.LoggerFactory;;
 /**
  * ZWaveCommandClassConverter class. Base class for all converters that convert between Z-Wave command classes and
  * openHAB channels.
+ * <p>
+ * A single instance of each converter is shared by all channels on a controller, so converters must not hold any
+ * state for a channel. Channel arguments, and any state that needs to be kept for a channel, are held in the binding
+ * returned by {@link #compileBinding}.
  *
  * @author Chris Jackson
  */
@@ -49,7 +53,7 @@ public abstract class ZWaveCommandClassConverter {
     private static final Map<CommandClass, Class<? extends ZWaveCommandClassConverter>> converterMap;
 
     static {
-        Map<CommandClass, Class<? extends ZWaveCommandClassConverter>> temp = new HashMap<CommandClass, Class<? extends ZWaveCommandClassConverter>>();
+        Map<CommandClass, Class<? extends ZWaveCommandClassConverter>> temp = new EnumMap<>(CommandClass.class);
 
         temp.put(CommandClass.COMMAND_CLASS_ALARM, ZWaveAlarmConverter.class);
         temp.put(CommandClass.COMMAND_CLASS_BARRIER_OPERATOR, ZWaveBarrierOperatorConverter.class);
@@ -132,7 +136,58 @@ public abstract class ZWaveCommandClassConverter {
         return 0;
     }
 
-    public static ZWaveCommandClassConverter getConverter(ZWaveControllerHandler controller2,
+    /**
+     * Compiles the arguments of a channel into a binding. This is called once when the channel is created, so that
+     * the arguments don't need to be parsed each time an event is handled or the channel is refreshed. Converters that
+     * use channel arguments should override this and return an immutable object holding the parsed values.
+     *
+     * @param channel the {@link ZWaveThingChannel}
+     * @return the binding, or null if the converter doesn't use a binding
+     */
+    public Object compileBinding(ZWaveThingChannel channel) {
+        return null;
+    }
+
+    /**
+     * Gets the binding for a channel. If the channel doesn't hold a binding of the required class, the binding is
+     * compiled from the channel arguments - any state held in the binding is then not retained between calls.
+     *
+     * @param channel the {@link ZWaveThingChannel}
+     * @param bindingClass the class of the binding
+     * @return the binding
+     */
+    protected <T> T getBinding(ZWaveThingChannel channel, Class<T> bindingClass) {
+        Object binding = channel.getBinding();
+        if (!bindingClass.isInstance(binding)) {
+            binding = compileBinding(channel);
+        }
+        return bindingClass.cast(binding);
+    }
+
+    /**
+     * Gets the converter for a command class. If a controller is provided, the converter is shared with all other
+     * channels on the controller.
+     *
+     * @param controller the {@link ZWaveControllerHandler}, or null
+     * @param commandClass the {@link CommandClass}
+     * @return the converter, or null if the command class is not supported
+     */
+    public static ZWaveCommandClassConverter getConverter(ZWaveControllerHandler controller,
+            CommandClass commandClass) {
+        if (controller != null) {
+            return controller.getConverter(commandClass);
+        }
+        return createConverter(controller, commandClass);
+    }
+
+    /**
+     * Creates a new instance of the converter for a command class
+     *
+     * @param controller2 the {@link ZWaveControllerHandler}
+     * @param commandClass the {@link CommandClass}
+     * @return the converter, or null if the command class is not supported
+     */
+    public static ZWaveCommandClassConverter createConverter(ZWaveControllerHandler controller2,
             CommandClass commandClass) {
         Constructor<? extends ZWaveCommandClassConverter> constructor;
         try {
@@ -55,6 +55,41 @@ public class ZWaveMeterConverter extends ZWaveCommandClassConverter {
         super(controller);
     }
 
+    /**
+     * Channel arguments compiled by {@link ZWaveMeterConverter#compileBinding}
+     */
+    private static class MeterBinding {
+        // True if the channel is bound to a specific meter scale
+        private final boolean scaleSet;
+        private final MeterScale scale;
+        // Values at or below zero are reported as zero - null if not set
+        private final Double zero;
+
+        MeterBinding(boolean scaleSet, MeterScale scale, Double zero) {
+            this.scaleSet = scaleSet;
+            this.scale = scale;
+            this.zero = zero;
+        }
+    }
+
+    @Override
+    public Object compileBinding(ZWaveThingChannel channel) {
+        String meterScale = channel.getArguments().get("type");
+        String meterZero = channel.getArguments().get("zero"); // needs to be a config setting - not arg
+
+        Double zero = null;
+        if (meterZero != null) {
+            try {
+                zero = Double.parseDouble(meterZero);
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid meter zero '{}' for channel {}", meterZero, channel.getUID());
+            }
+        }
+
+        return new MeterBinding(meterScale != null, meterScale == null ? null : MeterScale.getMeterScale(meterScale),
+                zero);
+    }
+
     @Override
     public List<ZWaveCommandClassTransactionPayload> executeRefresh(ZWaveThingChannel channel, ZWaveNode node) {
         ZWaveMeterCommandClass commandClass = (ZWaveMeterCommandClass) node
@@ -72,13 +107,12 @@ public class ZWaveMeterConverter extends ZWaveCommandClassConverter {
             return null;
         }
 
-        String meterScale = channel.getArguments().get("type");
+        MeterBinding binding = getBinding(channel, MeterBinding.class);
         logger.debug("NODE {}: Generating poll message for {}, endpoint {}", node.getNodeId(),
                 commandClass.getCommandClass(), channel.getEndpoint());
 
-        if (meterScale != null) {
-            serialMessage = node.encapsulate(commandClass.getMessage(MeterScale.getMeterScale(meterScale)),
-                    channel.getEndpoint());
+        if (binding.scaleSet) {
+            serialMessage = node.encapsulate(commandClass.getMessage(binding.scale), channel.getEndpoint());
         } else {
             serialMessage = node.encapsulate(commandClass.getValueMessage(), channel.getEndpoint());
         }
@@ -96,20 +130,19 @@ public class ZWaveMeterConverter extends ZWaveCommandClassConverter {
             return null;
         }
 
-        String meterScale = channel.getArguments().get("type");
-        String meterZero = channel.getArguments().get("zero"); // needs to be a config setting - not arg
+        MeterBinding binding = getBinding(channel, MeterBinding.class);
         ZWaveMeterValueEvent meterEvent = (ZWaveMeterValueEvent) event;
 
         // Don't trigger event if this item is bound to another sensor type
-        if (meterScale != null && MeterScale.getMeterScale(meterScale) != meterEvent.getMeterScale()) {
+        if (binding.scaleSet && binding.scale != meterEvent.getMeterScale()) {
             return null;
         }
 
         BigDecimal val = (BigDecimal) event.getValue();
 
         // If we've set a zero, then anything below this value needs to be considered ZERO
-        if (meterZero != null) {
-            if (val.doubleValue() <= Double.parseDouble(meterZero)) {
+        if (binding.zero != null) {
+            if (val.doubleValue() <= binding.zero) {
                 val = BigDecimal.ZERO;
             }
         }
@@ -54,6 +54,52 @@ public class ZWaveMultiLevelSensorConverter extends ZWaveCommandClassConverter {
         super(controller);
     }
 
+    /**
+     * Channel arguments compiled by {@link ZWaveMultiLevelSensorConverter#compileBinding}
+     */
+    private static class SensorBinding {
+        // The sensor type, or null if not set
+        private final SensorType sensorType;
+        // The scale used when sending reports
+        private final int sensorScale;
+        // True for report channels, which send the sensor value to the device
+        private final boolean report;
+
+        SensorBinding(SensorType sensorType, int sensorScale, boolean report) {
+            this.sensorType = sensorType;
+            this.sensorScale = sensorScale;
+            this.report = report;
+        }
+    }
+
+    @Override
+    public Object compileBinding(ZWaveThingChannel channel) {
+        SensorType sensorType = null;
+        String sensorTypeConfig = channel.getArguments().get("type");
+        if (sensorTypeConfig != null) {
+            try {
+                sensorType = SensorType.valueOf(sensorTypeConfig);
+            } catch (IllegalArgumentException e) {
+                logger.warn("Invalid sensor type '{}' for channel {}", sensorTypeConfig, channel.getUID());
+            }
+        }
+
+        int sensorScale = 0;
+        String sensorScaleConfig = channel.getArguments().get("config_scale");
+        if (sensorScaleConfig != null) {
+            try {
+                sensorScale = Integer.parseInt(sensorScaleConfig);
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid sensor scale '{}' for channel {}", sensorScaleConfig, channel.getUID());
+            }
+        }
+
+        boolean report = channel.getChannelTypeUID() != null
+                && channel.getChannelTypeUID().getId().equals("sensor_report");
+
+        return new SensorBinding(sensorType, sensorScale, report);
+    }
+
     @Override
     public List<ZWaveCommandClassTransactionPayload> executeRefresh(ZWaveThingChannel channel, ZWaveNode node) {
         ZWaveMultiLevelSensorCommandClass commandClass = (ZWaveMultiLevelSensorCommandClass) node.resolveCommandClass(
@@ -65,12 +111,11 @@ public class ZWaveMultiLevelSensorConverter extends ZWaveCommandClassConverter {
         logger.debug("NODE {}: Generating poll message for {}, endpoint {}", node.getNodeId(),
                 commandClass.getCommandClass(), channel.getEndpoint());
 
-        String sensorType = channel.getArguments().get("type");
+        SensorType sensorType = getBinding(channel, SensorBinding.class).sensorType;
 
         ZWaveCommandClassTransactionPayload transaction;
         if (sensorType != null) {
-            transaction = node.encapsulate(commandClass.getMessage(SensorType.valueOf(sensorType)),
-                    channel.getEndpoint());
+            transaction = node.encapsulate(commandClass.getMessage(sensorType), channel.getEndpoint());
         } else {
             transaction = node.encapsulate(commandClass.getValueMessage(), channel.getEndpoint());
         }
@@ -82,21 +127,21 @@ public class ZWaveMultiLevelSensorConverter extends ZWaveCommandClassConverter {
 
     @Override
     public State handleEvent(ZWaveThingChannel channel, ZWaveCommandClassValueEvent event) {
-        String sensorType = channel.getArguments().get("type");
+        SensorBinding binding = getBinding(channel, SensorBinding.class);
         ZWaveMultiLevelSensorValueEvent sensorEvent = (ZWaveMultiLevelSensorValueEvent) event;
 
         // Don't trigger event if this item is bound to another sensor type
-        if (sensorType == null) {
+        if (binding.sensorType == null) {
             logger.debug("NODE {}: No sensorType set for channel {}", event.getNodeId(), channel.getUID());
             return null;
         }
 
         // Report channels aren't updated
-        if (channel.getChannelTypeUID().getId().equals("sensor_report")) {
+        if (binding.report) {
             return null;
         }
 
-        if (SensorType.valueOf(sensorType) != sensorEvent.getSensorType()) {
+        if (binding.sensorType != sensorEvent.getSensorType()) {
             return null;
         }
 
@@ -104,7 +149,7 @@ public class ZWaveMultiLevelSensorConverter extends ZWaveCommandClassConverter {
 
         // Perform a scale conversion if needed
 
-        SensorType senType = SensorType.valueOf(sensorType);
+        SensorType senType = binding.sensorType;
         switch (senType) {
             case TEMPERATURE:
                 switch (sensorEvent.getSensorScale()) {
@@ -157,23 +202,16 @@ public class ZWaveMultiLevelSensorConverter extends ZWaveCommandClassConverter {
             return null;
         }
 
-        String sensorType = channel.getArguments().get("type");
-        if (sensorType == null) {
+        SensorBinding binding = getBinding(channel, SensorBinding.class);
+        if (binding.sensorType == null) {
             logger.debug("NODE {}: No sensorType set for channel {}", node.getNodeId(), channel.getUID());
             return null;
         }
 
-        int sensorScale = 0;
-        String sensorScaleConfig = channel.getArguments().get("config_scale");
-        if (sensorScaleConfig != null) {
-            sensorScale = Integer.parseInt(sensorScaleConfig);
-        }
-
         BigDecimal value = ((DecimalType) command).toBigDecimal();
 
         ZWaveCommandClassTransactionPayload payload = node.encapsulate(
-                commandClass.getReportMessage(SensorType.valueOf(sensorType), sensorScale, value),
-                channel.getEndpoint());
+                commandClass.getReportMessage(binding.sensorType, binding.sensorScale, value), channel.getEndpoint());
 
         if (payload == null) {
             logger.warn("NODE {}: Generating message failed for command class = {}, endpoint = {}", node.getNodeId(),
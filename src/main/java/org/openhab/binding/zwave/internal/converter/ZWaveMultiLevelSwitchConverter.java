@@ -56,6 +56,28 @@ public class ZWaveMultiLevelSwitchConverter extends ZWaveCommandClassConverter {
         super(controller);
     }
 
+    /**
+     * Channel arguments compiled by {@link ZWaveMultiLevelSwitchConverter#compileBinding}
+     */
+    private static class SwitchBinding {
+        private final boolean invertControl;
+        private final boolean invertPercent;
+        private final boolean restoreLastValue;
+
+        SwitchBinding(boolean invertControl, boolean invertPercent, boolean restoreLastValue) {
+            this.invertControl = invertControl;
+            this.invertPercent = invertPercent;
+            this.restoreLastValue = restoreLastValue;
+        }
+    }
+
+    @Override
+    public Object compileBinding(ZWaveThingChannel channel) {
+        return new SwitchBinding("true".equalsIgnoreCase(channel.getArguments().get("config_invert_control")),
+                "true".equalsIgnoreCase(channel.getArguments().get("config_invert_percent")),
+                "true".equalsIgnoreCase(channel.getArguments().get("config_restorelastvalue")));
+    }
+
     @Override
     public List<ZWaveCommandClassTransactionPayload> executeRefresh(ZWaveThingChannel channel, ZWaveNode node) {
         ZWaveMultiLevelSwitchCommandClass commandClass = (ZWaveMultiLevelSwitchCommandClass) node.resolveCommandClass(
@@ -75,8 +97,9 @@ public class ZWaveMultiLevelSwitchConverter extends ZWaveCommandClassConverter {
 
     @Override
     public State handleEvent(ZWaveThingChannel channel, ZWaveCommandClassValueEvent event) {
-        boolean configInvertControl = "true".equalsIgnoreCase(channel.getArguments().get("config_invert_control"));
-        boolean configInvertPercent = "true".equalsIgnoreCase(channel.getArguments().get("config_invert_percent"));
+        SwitchBinding binding = getBinding(channel, SwitchBinding.class);
+        boolean configInvertControl = binding.invertControl;
+        boolean configInvertPercent = binding.invertPercent;
 
         if (event instanceof ZWaveStartStopEvent) {
             return handleStartStopEvent(channel, (ZWaveStartStopEvent) event);
@@ -163,9 +186,10 @@ public class ZWaveMultiLevelSwitchConverter extends ZWaveCommandClassConverter {
         }
 
         ZWaveCommandClassTransactionPayload transaction = null;
-        boolean restoreLastValue = "true".equalsIgnoreCase(channel.getArguments().get("config_restorelastvalue"));
-        boolean configInvertControl = "true".equalsIgnoreCase(channel.getArguments().get("config_invert_control"));
-        boolean configInvertPercent = "true".equalsIgnoreCase(channel.getArguments().get("config_invert_percent"));
+        SwitchBinding binding = getBinding(channel, SwitchBinding.class);
+        boolean restoreLastValue = binding.restoreLastValue;
+        boolean configInvertControl = binding.invertControl;
+        boolean configInvertPercent = binding.invertPercent;
 
         if (command instanceof StopMoveType && command == StopMoveType.STOP) {
             // Special handling for the STOP command
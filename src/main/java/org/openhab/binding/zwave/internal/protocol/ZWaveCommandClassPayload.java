@@ -12,65 +12,112 @@
  */
 package org.openhab.binding.zwave.internal.protocol;
 
-import java.io.ByteArrayOutputStream;
 import java.util.Arrays;
 
 /**
  * The {@link ZWaveCommandClassPayload} implements an encapsulated command class payload.
+ * <p>
+ * The payload is a view over a section of a byte buffer. Payloads created from a received frame, or from another
+ * payload when decapsulating a command, share the buffer of the original frame rather than copying the data.
  *
  * @author Chris Jackson - Initial implementation
  *
  */
 public class ZWaveCommandClassPayload implements ZWaveMessagePayload {
     protected final byte[] payload;
+    private final int offset;
+    private final int length;
 
     public ZWaveCommandClassPayload(final byte[] payload) {
-        this.payload = payload;
+        this(payload, 0, payload == null ? 0 : payload.length);
     }
 
     public ZWaveCommandClassPayload(final ZWaveCommandClassPayload initialPayload, final int start) {
-        payload = Arrays.copyOfRange(initialPayload.getPayloadBuffer(), start, initialPayload.getPayloadLength());
+        this(initialPayload, start, initialPayload.getPayloadLength());
     }
 
     public ZWaveCommandClassPayload(final ZWaveCommandClassPayload initialPayload, final int start, final int end) {
-        payload = Arrays.copyOfRange(initialPayload.getPayloadBuffer(), start, end);
+        if (start < 0 || start > initialPayload.length) {
+            throw new ArrayIndexOutOfBoundsException(start);
+        }
+        if (end < start) {
+            throw new IllegalArgumentException(start + " > " + end);
+        }
+        this.payload = initialPayload.payload;
+        this.offset = initialPayload.offset + start;
+        this.length = Math.min(end, initialPayload.length) - start;
     }
 
     public ZWaveCommandClassPayload(final SerialMessage incomingMessage) throws ZWaveSerialMessageException {
-        ByteArrayOutputStream payloadData = new ByteArrayOutputStream();
-        int length = incomingMessage.getMessagePayloadByte(2) + 3;
-        for (int index = 3; index < length; index++) {
-            payloadData.write((byte) incomingMessage.getMessagePayloadByte(index));
+        int length = incomingMessage.getMessagePayloadByte(2);
+        if (length > 0) {
+            // Check the payload is all within the message
+            incomingMessage.getMessagePayloadByte(length + 2);
         }
 
-        this.payload = payloadData.toByteArray();
+        this.payload = incomingMessage.getMessagePayload();
+        this.offset = 3;
+        this.length = length;
+    }
+
+    private ZWaveCommandClassPayload(final byte[] payload, final int offset, final int length) {
+        this.payload = payload;
+        this.offset = offset;
+        this.length = length;
     }
 
     public int getCommandClassId() {
-        return payload[0] & 0xFF;
+        return getPayloadByte(0);
     }
 
     public int getCommandClassCommand() {
-        if (payload.length >= 2) {
-            return payload[1] & 0xFF;
+        if (length >= 2) {
+            return payload[offset + 1] & 0xFF;
         }
         return -1;
     }
 
     public int getPayloadByte(int offset) {
-        return payload[offset] & 0xFF;
+        if (offset < 0 || offset >= length) {
+            throw new ArrayIndexOutOfBoundsException(offset);
+        }
+        return payload[this.offset + offset] & 0xFF;
     }
 
     public int getPayloadLength() {
-        return payload.length;
+        return length;
     }
 
+    /**
+     * Gets the payload data. If the payload is a section of a larger buffer, the data is copied.
+     *
+     * @return the payload data
+     */
     @Override
     public byte[] getPayloadBuffer() {
-        return payload;
+        if (payload == null || (offset == 0 && length == payload.length)) {
+            return payload;
+        }
+        return Arrays.copyOfRange(payload, offset, offset + length);
     }
 
+    /**
+     * Gets a copy of a section of the payload data. If the section extends beyond the end of the payload, the copy is
+     * padded with zeros.
+     *
+     * @param start the start of the section, inclusive
+     * @param end the end of the section, exclusive
+     * @return the payload data
+     */
     public byte[] getPayloadBuffer(int start, int end) {
-        return Arrays.copyOfRange(payload, start, end);
+        if (start < 0 || start > length) {
+            throw new ArrayIndexOutOfBoundsException(start);
+        }
+        if (end < start) {
+            throw new IllegalArgumentException(start + " > " + end);
+        }
+        byte[] data = new byte[end - start];
+        System.arraycopy(payload, offset + start, data, 0, Math.min(end, length) - start);
+        return data;
     }
 }
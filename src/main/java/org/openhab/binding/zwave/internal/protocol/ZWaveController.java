@@ -12,17 +12,22 @@
  */
 package org.openhab.binding.zwave.internal.protocol;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
 
 import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.binding.zwave.internal.protocol.SerialMessage.SerialMessageClass;
@@ -38,6 +43,7 @@ import org.openhab.binding.zwave.internal.protocol.event.ZWaveNetworkEvent;
 import org.openhab.binding.zwave.internal.protocol.event.ZWaveNetworkStateEvent;
 import org.openhab.binding.zwave.internal.protocol.event.ZWaveNodeStatusEvent;
 import org.openhab.binding.zwave.internal.protocol.event.ZWaveTransactionCompletedEvent;
+import org.openhab.binding.zwave.internal.protocol.initialization.ZWaveNodeInitScheduler;
 import org.openhab.binding.zwave.internal.protocol.initialization.ZWaveNodeInitStage;
 import org.openhab.binding.zwave.internal.protocol.initialization.ZWaveNodeSerializer;
 import org.openhab.binding.zwave.internal.protocol.serialmessage.AssignReturnRouteMessageClass;
@@ -82,8 +88,22 @@ public class ZWaveController {
     public static final int TRANSMIT_OPTION_AUTO_ROUTE = 0x04;
     private static final int TRANSMIT_OPTION_EXPLORE = 0x20;
 
+    public static final String STATISTIC_COMPLETION_QUEUE = "completion_queue";
+    public static final String STATISTIC_COMPLETION_QUEUE_MAX = "completion_queue_max";
+    public static final String STATISTIC_COMPLETION_HIGHWATER = "completion_highwater";
+    public static final String STATISTIC_COMPLETION_OVERFLOW = "completion_overflow";
+    public static final String STATISTIC_INIT_COMPLETE = "init_complete";
+    public static final String STATISTIC_INIT_PENDING = "init_pending";
+    public static final String STATISTIC_INIT_QUEUED = "init_queued";
+
     private final ConcurrentHashMap<Integer, ZWaveNode> zwaveNodes = new ConcurrentHashMap<Integer, ZWaveNode>();
-    private final ArrayList<ZWaveEventListener> zwaveEventListeners = new ArrayList<ZWaveEventListener>();
+
+    // Event listeners are held in copy-on-write arrays so events can be dispatched without locking or copying.
+    // Global listeners receive all events, while node listeners only receive events for their node.
+    private static final ZWaveEventListener[] NO_LISTENERS = new ZWaveEventListener[0];
+    private final Object eventListenerLock = new Object();
+    private volatile ZWaveEventListener[] globalListeners = NO_LISTENERS;
+    private final Map<Integer, ZWaveEventListener[]> nodeListeners = new ConcurrentHashMap<>();
 
     private int zWaveResponseTimeout = ZWAVE_RESPONSE_TIMEOUT; // TODO: Not currently used
 
@@ -107,8 +127,16 @@ public class ZWaveController {
 
     private ZWaveInclusionController inclusionController = null;
     private int defaultWakeupPeriod = 0;
+    private volatile boolean binarySnapshot = false;
 
-    private final ZWaveTransactionManager transactionManager = new ZWaveTransactionManager(this);
+    private final ZWaveTimeoutScheduler timeoutScheduler = new ZWaveTimeoutScheduler();
+    private final ZWaveTransactionManager transactionManager = new ZWaveTransactionManager(this, timeoutScheduler);
+
+    private static final int MAX_RESTORE_THREADS = 4;
+    private final ExecutorService nodeRestoreExecutor;
+    private final ZWaveNodeInitScheduler nodeInitScheduler = new ZWaveNodeInitScheduler(
+            ZWaveNodeInitScheduler.DEFAULT_MAX_ACTIVE);
+    private final ZWaveNodeStateTracker nodeStateTracker = new ZWaveNodeStateTracker(this, timeoutScheduler);
 
     private final AtomicInteger timeOutCount = new AtomicInteger(0);
 
@@ -120,7 +148,15 @@ public class ZWaveController {
     }
 
     public void shutdown() {
+        nodeRestoreExecutor.shutdownNow();
+        nodeInitScheduler.shutdown();
         transactionManager.shutdown();
+        nodeStateTracker.shutdown();
+        timeoutScheduler.shutdown();
+
+        // Write any changes to this controller's nodes that are waiting to be saved. The write thread is shared with
+        // other controllers, so is only stopped when the binding is stopped.
+        ZWaveNodeSerializer.getSharedSerializer().flush(homeId);
     }
 
     /**
@@ -145,6 +181,39 @@ public class ZWaveController {
                 ? Integer.parseInt(config.get("wakeupDefaultPeriod"))
                 : 0;
 
+        final Integer maxTransactions = config.containsKey("maxTransactions")
+                ? Integer.parseInt(config.get("maxTransactions"))
+                : 0;
+        if (maxTransactions > 0) {
+            transactionManager.setMaxOutstandingTransactions(maxTransactions);
+        }
+
+        final Integer initConcurrency = config.containsKey("initConcurrency")
+                ? Integer.parseInt(config.get("initConcurrency"))
+                : 0;
+        if (initConcurrency > 0) {
+            nodeInitScheduler.setMaxActive(initConcurrency);
+        }
+
+        if (config.containsKey("deadDelay")) {
+            nodeStateTracker.setDeadDelay(Integer.parseInt(config.get("deadDelay")) * 1000L);
+        }
+        if (config.containsKey("stateHoldPeriod")) {
+            nodeStateTracker.setHoldPeriod(Integer.parseInt(config.get("stateHoldPeriod")) * 1000L);
+        }
+        binarySnapshot = "true".equals(config.get("binarySnapshot"));
+
+        // Nodes are restored from file in parallel, but the number of threads is limited
+        int restoreThreads = Math.max(1, Math.min(MAX_RESTORE_THREADS, Runtime.getRuntime().availableProcessors()));
+        nodeRestoreExecutor = Executors.newFixedThreadPool(restoreThreads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ZWaveNodeRestore");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
         logger.info("Starting ZWave controller");
 
         if (timeout >= 1500 && timeout <= 10000) {
@@ -293,13 +362,25 @@ public class ZWaveController {
                 enqueue(new SerialApiGetInitDataMessageClass().doRequest());
                 break;
             case SerialApiGetInitData:
-                List<Thread> initList = new ArrayList<Thread>();
-                for (Integer nodeId : ((SerialApiGetInitDataMessageClass) processor).getNodes()) {
-                    initList.add(addNode(nodeId));
+                Collection<Integer> nodes = ((SerialApiGetInitDataMessageClass) processor).getNodes();
+
+                // Wait for all nodes to be restored before we advise the system
+                final AtomicInteger nodesRemaining = new AtomicInteger(nodes.size());
+                Runnable restoreComplete = new Runnable() {
+                    @Override
+                    public void run() {
+                        if (nodesRemaining.decrementAndGet() == 0) {
+                            logger.debug("All nodes restored");
+                            notifyEventListeners(new ZWaveNetworkStateEvent(true));
+                        }
+                    }
+                };
+                for (Integer nodeId : nodes) {
+                    addNode(nodeId, restoreComplete);
+                }
+                if (nodes.isEmpty()) {
+                    notifyEventListeners(new ZWaveNetworkStateEvent(true));
                 }
-
-                // Wait for all threads to complete starting initialisation before we advise the system
-                new ZWaveInitWaitThread(initList).start();
                 break;
             default:
                 break;
@@ -324,70 +405,117 @@ public class ZWaveController {
      */
     public void reinitialiseNode(int nodeId) {
         zwaveNodes.remove(nodeId);
-        addNode(nodeId);
+        addNode(nodeId, null);
     }
 
     /**
-     * Add a node to the controller
+     * Add a node to the controller. The node is restored from file, or created, on the restore executor and its
+     * initialisation is then started.
      *
      * @param nodeId
-     *                   the node number to add
+     *                             the node number to add
+     * @param restoreComplete
+     *                             {@link Runnable} to run once the node has been added, or null
      */
-    private ZWaveInitNodeThread addNode(int nodeId) {
+    private void addNode(int nodeId, @Nullable Runnable restoreComplete) {
         ZWaveEvent zEvent = new ZWaveInitializationStateEvent(nodeId, ZWaveNodeInitStage.EMPTYNODE);
         notifyEventListeners(zEvent);
 
-        // if (nodeId != 6) {
-        // return;
-        // }
-
         ioHandler.deviceDiscovered(nodeId);
-        ZWaveInitNodeThread thread = new ZWaveInitNodeThread(this, nodeId);
-        thread.setName("Node_" + nodeId + "_init");
-        thread.start();
+        try {
+            nodeRestoreExecutor.execute(new ZWaveInitNodeTask(this, nodeId, restoreComplete));
+        } catch (RejectedExecutionException e) {
+            logger.debug("NODE {}: Controller is shutdown - node not added", nodeId);
+        }
+    }
 
-        return thread;
+    /**
+     * Gets the {@link ZWaveNodeInitScheduler} that limits the node initialisation traffic and tracks the
+     * initialisation progress
+     *
+     * @return the {@link ZWaveNodeInitScheduler}
+     */
+    public ZWaveNodeInitScheduler getNodeInitScheduler() {
+        return nodeInitScheduler;
     }
 
     /**
-     * Thread to wait for all nodes to complete the init thread before notifying the system that we're alive.
-     * This ensures that all nodes exist in the system before application layers come online.
+     * Sets the maximum number of node initialisation transactions that may be active at once
      *
+     * @param initConcurrency the maximum number of active initialisation transactions
      */
-    private class ZWaveInitWaitThread extends Thread {
-        List<Thread> initList;
+    public void setInitConcurrency(int initConcurrency) {
+        nodeInitScheduler.setMaxActive(initConcurrency);
+    }
 
-        ZWaveInitWaitThread(List<Thread> initList) {
-            this.initList = initList;
-        }
+    /**
+     * Gets the {@link ZWaveNodeStateTracker} that filters the node state notifications
+     *
+     * @return the {@link ZWaveNodeStateTracker}
+     */
+    public ZWaveNodeStateTracker getNodeStateTracker() {
+        return nodeStateTracker;
+    }
 
-        @Override
-        public void run() {
-            logger.debug("Starting waiting for init threads");
-            for (Thread thread : initList) {
-                try {
-                    logger.debug("Waiting for init thread {}", thread.getName());
-                    thread.join();
-                    logger.debug("Init thread {} complete", thread.getName());
-                } catch (InterruptedException e) {
-                }
-            }
-            logger.debug("All init threads complete");
-            notifyEventListeners(new ZWaveNetworkStateEvent(true));
-        }
+    /**
+     * Sets the time that a node must remain DEAD before the listeners are notified
+     *
+     * @param deadDelay the delay in seconds
+     */
+    public void setDeadDelay(int deadDelay) {
+        nodeStateTracker.setDeadDelay(deadDelay * 1000L);
+    }
+
+    /**
+     * Sets the minimum time between node state notifications for each node
+     *
+     * @param holdPeriod the period in seconds
+     */
+    public void setStateHoldPeriod(int holdPeriod) {
+        nodeStateTracker.setHoldPeriod(holdPeriod * 1000L);
+    }
+
+    /**
+     * Sets whether binary snapshots of the nodes on this controller are stored alongside the node XML files
+     *
+     * @param binarySnapshot true to store binary snapshots
+     */
+    public void setBinarySnapshot(boolean binarySnapshot) {
+        this.binarySnapshot = binarySnapshot;
+    }
+
+    /**
+     * Returns true if binary snapshots of the nodes on this controller are stored alongside the node XML files
+     *
+     * @return true if binary snapshots are stored
+     */
+    public boolean isBinarySnapshot() {
+        return binarySnapshot;
     }
 
-    private class ZWaveInitNodeThread extends Thread {
-        int nodeId;
-        ZWaveController controller;
+    private class ZWaveInitNodeTask implements Runnable {
+        private final int nodeId;
+        private final ZWaveController controller;
+        private final @Nullable Runnable restoreComplete;
 
-        ZWaveInitNodeThread(ZWaveController controller, int nodeId) {
+        ZWaveInitNodeTask(ZWaveController controller, int nodeId, @Nullable Runnable restoreComplete) {
             this.nodeId = nodeId;
             this.controller = controller;
+            this.restoreComplete = restoreComplete;
         }
 
         @Override
         public void run() {
+            try {
+                restoreNode();
+            } finally {
+                if (restoreComplete != null) {
+                    restoreComplete.run();
+                }
+            }
+        }
+
+        private void restoreNode() {
             logger.debug("NODE {}: Init node thread start", nodeId);
 
             // Check if the node exists
@@ -399,8 +527,7 @@ public class ZWaveController {
             boolean serializedOk = false;
             ZWaveNode node = null;
             try {
-                ZWaveNodeSerializer nodeSerializer = new ZWaveNodeSerializer();
-                node = nodeSerializer.deserializeNode(homeId, nodeId);
+                node = ZWaveNodeSerializer.getSharedSerializer().deserializeNode(homeId, nodeId, binarySnapshot);
             } catch (Exception e) {
                 logger.error("NODE {}: Restore from config: Error deserialising XML file. {}", nodeId, e.toString());
                 node = null;
@@ -543,6 +670,77 @@ public class ZWaveController {
         enqueue(new SetSucNodeMessageClass().doRequest(sucNodeId, true));
     }
 
+    /**
+     * Sets the maximum number of transactions that can be outstanding to different nodes at once.
+     *
+     * @param maxTransactions the size of the transaction window
+     */
+    public void setMaxOutstandingTransactions(int maxTransactions) {
+        transactionManager.setMaxOutstandingTransactions(maxTransactions);
+    }
+
+    /**
+     * Gets the controller statistics, keyed by the statistic name. The values are read when the statistics are
+     * published, so the returned map can be added to the statistics aggregator as a set of gauges.
+     *
+     * @return map of the statistic name to the {@link LongSupplier} used to read it
+     */
+    public Map<String, LongSupplier> getStatistics() {
+        final ZWaveTransactionCompletionDispatcher dispatcher = transactionManager.getCompletionDispatcher();
+
+        Map<String, LongSupplier> statistics = new LinkedHashMap<String, LongSupplier>();
+        statistics.put(STATISTIC_COMPLETION_QUEUE, new LongSupplier() {
+            @Override
+            public long getAsLong() {
+                return dispatcher.getQueueDepth();
+            }
+        });
+        statistics.put(STATISTIC_COMPLETION_QUEUE_MAX, new LongSupplier() {
+            @Override
+            public long getAsLong() {
+                return dispatcher.getMaxQueueDepth();
+            }
+        });
+        statistics.put(STATISTIC_COMPLETION_HIGHWATER, new LongSupplier() {
+            @Override
+            public long getAsLong() {
+                return dispatcher.getHighWaterCount();
+            }
+        });
+        statistics.put(STATISTIC_COMPLETION_OVERFLOW, new LongSupplier() {
+            @Override
+            public long getAsLong() {
+                return dispatcher.getOverflowCount();
+            }
+        });
+        statistics.put(STATISTIC_INIT_COMPLETE, new LongSupplier() {
+            @Override
+            public long getAsLong() {
+                return nodeInitScheduler.getCompleteNodeCount();
+            }
+        });
+        statistics.put(STATISTIC_INIT_PENDING, new LongSupplier() {
+            @Override
+            public long getAsLong() {
+                return nodeInitScheduler.getInitialisingNodeCount();
+            }
+        });
+        statistics.put(STATISTIC_INIT_QUEUED, new LongSupplier() {
+            @Override
+            public long getAsLong() {
+                return nodeInitScheduler.getQueuedNodeCount();
+            }
+        });
+        return statistics;
+    }
+
+    /**
+     * Returns the number of messages waiting in the send queue for all nodes.
+     */
+    public int getSendQueueLength() {
+        return transactionManager.getSendQueueLength();
+    }
+
     /**
      * Returns the size of the send queue for a specific node.
      */
@@ -558,10 +756,15 @@ public class ZWaveController {
      */
     public void notifyEventListeners(ZWaveEvent event) {
         logger.trace("Notifying event listeners: {}", event.getClass().getSimpleName());
-        ArrayList<ZWaveEventListener> copy = new ArrayList<ZWaveEventListener>(zwaveEventListeners);
-        for (ZWaveEventListener listener : copy) {
+        for (ZWaveEventListener listener : globalListeners) {
             listener.ZWaveIncomingEvent(event);
         }
+        ZWaveEventListener[] listeners = nodeListeners.get(event.getNodeId());
+        if (listeners != null) {
+            for (ZWaveEventListener listener : listeners) {
+                listener.ZWaveIncomingEvent(event);
+            }
+        }
 
         // We also need to handle some events within the controller
         if (event instanceof ZWaveNetworkEvent) {
@@ -592,6 +795,10 @@ public class ZWaveController {
                     break;
                 case ALIVE:
                     break;
+                case AWAKE:
+                    // Release any transactions waiting for the node to wake up
+                    transactionManager.nodeAwake(node.getNodeId());
+                    break;
                 default:
                     break;
             }
@@ -700,7 +907,7 @@ public class ZWaveController {
                 break;
         }
 
-        inclusionController = new ZWaveInclusionController(this, networkSecurityKey);
+        inclusionController = new ZWaveInclusionController(this, networkSecurityKey, timeoutScheduler);
         inclusionController.startInclusion(highPower, networkWide);
     }
 
@@ -714,7 +921,7 @@ public class ZWaveController {
             return;
         }
 
-        inclusionController = new ZWaveInclusionController(this, networkSecurityKey);
+        inclusionController = new ZWaveInclusionController(this, networkSecurityKey, timeoutScheduler);
         inclusionController.startExclusion();
     }
 
@@ -881,23 +1088,48 @@ public class ZWaveController {
     }
 
     /**
-     * Add a listener for ZWave events to this controller.
+     * Add a listener for ZWave events to this controller. The listener will receive events for all nodes.
      *
      * @param eventListener
      *                          the event listener to add.
      */
     public void addEventListener(ZWaveEventListener eventListener) {
-        synchronized (zwaveEventListeners) {
+        synchronized (eventListenerLock) {
             // First, check if this listener is already registered
-            if (zwaveEventListeners.contains(eventListener)) {
+            if (containsListener(globalListeners, eventListener)) {
                 logger.debug("Event Listener {} already registered", eventListener);
                 return;
             }
-            zwaveEventListeners.add(eventListener);
+            globalListeners = addListener(globalListeners, eventListener);
             logger.debug("Event listener added.");
         }
     }
 
+    /**
+     * Add a listener for ZWave events to this controller. The listener will only receive events for the specified
+     * node.
+     *
+     * @param eventListener
+     *                          the event listener to add.
+     * @param nodeId
+     *                          the node ID of the events the listener will receive.
+     */
+    public void addEventListener(ZWaveEventListener eventListener, int nodeId) {
+        synchronized (eventListenerLock) {
+            ZWaveEventListener[] listeners = nodeListeners.get(nodeId);
+            if (listeners == null) {
+                listeners = NO_LISTENERS;
+            }
+            // First, check if this listener is already registered
+            if (containsListener(listeners, eventListener)) {
+                logger.debug("NODE {}: Event Listener {} already registered", nodeId, eventListener);
+                return;
+            }
+            nodeListeners.put(nodeId, addListener(listeners, eventListener));
+            logger.debug("NODE {}: Event listener added.", nodeId);
+        }
+    }
+
     /**
      * Remove a listener for ZWave events to this controller.
      *
@@ -905,9 +1137,44 @@ public class ZWaveController {
      *                          the event listener to remove.
      */
     public void removeEventListener(ZWaveEventListener eventListener) {
-        synchronized (zwaveEventListeners) {
-            zwaveEventListeners.remove(eventListener);
+        synchronized (eventListenerLock) {
+            globalListeners = removeListener(globalListeners, eventListener);
+            for (Map.Entry<Integer, ZWaveEventListener[]> entry : nodeListeners.entrySet()) {
+                ZWaveEventListener[] listeners = removeListener(entry.getValue(), eventListener);
+                if (listeners.length == 0) {
+                    nodeListeners.remove(entry.getKey());
+                } else if (listeners != entry.getValue()) {
+                    nodeListeners.put(entry.getKey(), listeners);
+                }
+            }
+        }
+    }
+
+    private boolean containsListener(ZWaveEventListener[] listeners, ZWaveEventListener eventListener) {
+        for (ZWaveEventListener listener : listeners) {
+            if (listener.equals(eventListener)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ZWaveEventListener[] addListener(ZWaveEventListener[] listeners, ZWaveEventListener eventListener) {
+        ZWaveEventListener[] newListeners = Arrays.copyOf(listeners, listeners.length + 1);
+        newListeners[listeners.length] = eventListener;
+        return newListeners;
+    }
+
+    private ZWaveEventListener[] removeListener(ZWaveEventListener[] listeners, ZWaveEventListener eventListener) {
+        for (int index = 0; index < listeners.length; index++) {
+            if (listeners[index].equals(eventListener)) {
+                ZWaveEventListener[] newListeners = new ZWaveEventListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, newListeners, 0, index);
+                System.arraycopy(listeners, index + 1, newListeners, index, listeners.length - index - 1);
+                return newListeners;
+            }
         }
+        return listeners;
     }
 
     /**
@@ -1035,13 +1302,14 @@ public class ZWaveController {
         if (node != null) {
             node.close();
             zwaveNodes.remove(nodeId);
+            nodeStateTracker.removeNode(nodeId);
+            transactionManager.nodeRemoved(nodeId);
         } else {
             logger.debug("NODE {}: Deleting a node that doesn't exist.", nodeId);
         }
 
         // Remove the XML file
-        ZWaveNodeSerializer nodeSerializer = new ZWaveNodeSerializer();
-        nodeSerializer.deleteNode(homeId, nodeId);
+        ZWaveNodeSerializer.getSharedSerializer().deleteNode(homeId, nodeId);
     }
 
     /**
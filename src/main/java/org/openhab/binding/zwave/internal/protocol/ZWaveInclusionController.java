@@ -13,8 +13,7 @@
 package org.openhab.binding.zwave.internal.protocol;
 
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
 
 import org.openhab.binding.zwave.internal.protocol.ZWaveDeviceClass.Basic;
 import org.openhab.binding.zwave.internal.protocol.ZWaveDeviceClass.Generic;
@@ -40,8 +39,15 @@ public class ZWaveInclusionController implements ZWaveEventListener {
     private final Logger logger = LoggerFactory.getLogger(ZWaveInclusionController.class);
 
     private final ZWaveController controller;
-    private Timer timer = new Timer();
-    private TimerTask timerTask = null;
+    private final ZWaveTimeoutScheduler timeoutScheduler;
+
+    /**
+     * The current inclusion timeout. This is started and cancelled from both the caller and the scheduler threads, so
+     * is guarded by the timerLock.
+     */
+    private final Object timerLock = new Object();
+    private ZWaveTimeoutScheduler.Timeout timeout = null;
+
     private ZWaveInclusionState inclusionState = ZWaveInclusionState.Unknown;
     private final String networkSecurityKey;
 
@@ -59,10 +65,13 @@ public class ZWaveInclusionController implements ZWaveEventListener {
      *
      * @param controller         the {@link ZWaveController} to include a device into
      * @param networkSecurityKey the network security key
+     * @param timeoutScheduler   the {@link ZWaveTimeoutScheduler} used for the inclusion timeouts
      */
-    public ZWaveInclusionController(ZWaveController controller, String networkSecurityKey) {
+    public ZWaveInclusionController(ZWaveController controller, String networkSecurityKey,
+            ZWaveTimeoutScheduler timeoutScheduler) {
         this.controller = controller;
         this.networkSecurityKey = networkSecurityKey;
+        this.timeoutScheduler = timeoutScheduler;
     }
 
     /**
@@ -311,11 +320,20 @@ public class ZWaveInclusionController implements ZWaveEventListener {
 
     // The following timer class implements a re-triggerable timer to stop the inclusion
     // mode after 30 seconds.
-    private class InclusionTimerTask extends TimerTask {
+    private class InclusionTimerTask implements Runnable {
+        private ZWaveTimeoutScheduler.Timeout taskTimeout;
+
         @Override
         public void run() {
+            synchronized (timerLock) {
+                // Ignore this if the timer was restarted after we expired
+                if (timeout != taskTimeout) {
+                    return;
+                }
+                timeout = null;
+            }
+
             logger.debug("Inclusion timer at {}", inclusionState);
-            stopTimer();
             switch (inclusionState) {
                 case Unknown:
                 case IncludeSent:
@@ -358,21 +376,26 @@ public class ZWaveInclusionController implements ZWaveEventListener {
         }
     }
 
-    private synchronized void startTimer(int period) {
-        // Stop any existing timer
-        stopTimer();
+    private void startTimer(int period) {
+        synchronized (timerLock) {
+            // Stop any existing timer
+            stopTimer();
 
-        // Create the timer task
-        timerTask = new InclusionTimerTask();
+            // Create the timer task. The task can't run until the lock is released, so its timeout is always set.
+            InclusionTimerTask timerTask = new InclusionTimerTask();
 
-        // Start the timer
-        timer.schedule(timerTask, period);
+            // Start the timer
+            timeout = timeoutScheduler.schedule(timerTask, period, TimeUnit.MILLISECONDS);
+            timerTask.taskTimeout = timeout;
+        }
     }
 
     private void stopTimer() {
-        if (timerTask != null) {
-            timerTask.cancel();
-            timerTask = null;
+        synchronized (timerLock) {
+            if (timeout != null) {
+                timeout.cancel();
+                timeout = null;
+            }
         }
     }
 }
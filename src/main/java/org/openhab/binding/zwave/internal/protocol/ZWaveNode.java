@@ -13,17 +13,18 @@
 package org.openhab.binding.zwave.internal.protocol;
 
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.binding.zwave.internal.HexToIntegerConverter;
@@ -62,6 +63,11 @@ public class ZWaveNode {
     @XStreamOmitField
     private static final Logger logger = LoggerFactory.getLogger(ZWaveNode.class);
 
+    public static final String STATISTIC_SENT = "sent";
+    public static final String STATISTIC_RECEIVED = "received";
+    public static final String STATISTIC_RETRIES = "retries";
+    public static final String STATISTIC_TIMEOUTS = "timeouts";
+
     @XStreamOmitField
     private ZWaveController controller;
     @XStreamOmitField
@@ -124,15 +130,17 @@ public class ZWaveNode {
     private int resendCount = 0;
 
     @XStreamOmitField
-    private int receiveCount = 0;
+    private LongAdder receiveCount = new LongAdder();
     @XStreamOmitField
-    private int sendCount = 0;
+    private LongAdder sendCount = new LongAdder();
     @XStreamOmitField
     private int deadCount = 0;
     @XStreamOmitField
     private Date deadTime;
     @XStreamOmitField
-    private int retryCount = 0;
+    private LongAdder retryCount = new LongAdder();
+    @XStreamOmitField
+    private LongAdder timeoutCount = new LongAdder();
 
     @XStreamOmitField
     Long inclusionTimer = null;
@@ -178,6 +186,12 @@ public class ZWaveNode {
 
         this.controller = controller;
 
+        // The deserialiser doesn't initialise the omitted fields
+        receiveCount = new LongAdder();
+        sendCount = new LongAdder();
+        retryCount = new LongAdder();
+        timeoutCount = new LongAdder();
+
         // Create the initialisation advancer and tell it we've loaded from file
         nodeInitStageAdvancer = new ZWaveNodeInitStageAdvancer(this, controller);
         nodeInitStageAdvancer.setRestoredFromConfigfile();
@@ -250,7 +264,8 @@ public class ZWaveNode {
     }
 
     /**
-     * Set the node state and alert the listeners that the state has changed
+     * Set the node state and alert the listeners that the state has changed. Liveness changes are passed through the
+     * controller's {@link ZWaveNodeStateTracker} so that nodes flapping between states don't flood the listeners.
      *
      * @param state the new {@link ZWaveNodeState}
      */
@@ -260,18 +275,16 @@ public class ZWaveNode {
             return;
         }
 
-        // Notify the listeners
-        ZWaveEvent zEvent = new ZWaveNodeStatusEvent(getNodeId(), state);
-        controller.notifyEventListeners(zEvent);
-
         switch (state) {
             case AWAKE:
-                state = ZWaveNodeState.ALIVE;
-                break;
-
             case ASLEEP:
+                // Wakeup notifications are not filtered as they release messages waiting for the node
+                controller.notifyEventListeners(new ZWaveNodeStatusEvent(getNodeId(), state));
+                if (nodeState == ZWaveNodeState.ALIVE) {
+                    return;
+                }
                 state = ZWaveNodeState.ALIVE;
-                break;
+                // Fall through
 
             case ALIVE:
                 logger.debug("NODE {}: Node is ALIVE. Init stage is {}.", nodeId, getNodeInitStage().toString());
@@ -288,16 +301,22 @@ public class ZWaveNode {
                 }
             case FAILED:
                 deadCount++;
-                deadTime = Calendar.getInstance().getTime();
-                logger.debug("NODE {}: Node is DEAD.", nodeId);
+                deadTime = new Date();
+                logger.debug("NODE {}: Node is {}.", nodeId, state);
                 break;
 
             case INITIALIZING:
                 break;
         }
 
-        controller.notifyEventListeners(new ZWaveNodeStatusEvent(getNodeId(), state));
         nodeState = state;
+
+        ZWaveNodeStateTracker stateTracker = controller.getNodeStateTracker();
+        if (stateTracker == null) {
+            controller.notifyEventListeners(new ZWaveNodeStatusEvent(getNodeId(), state));
+        } else {
+            stateTracker.setNodeState(getNodeId(), state);
+        }
     }
 
     /**
@@ -499,7 +518,7 @@ public class ZWaveNode {
         if (++resendCount >= 3) {
             setNodeState(ZWaveNodeState.DEAD);
         }
-        retryCount++;
+        incrementRetryCount();
     }
 
     /**
@@ -790,7 +809,25 @@ public class ZWaveNode {
      * @return retry count
      */
     public int getRetryCount() {
-        return retryCount;
+        return retryCount.intValue();
+    }
+
+    /**
+     * Increments the counter of packets that have been resent to the node.
+     * This is simply used for statistical purposes to assess the health
+     * of a node.
+     */
+    public void incrementRetryCount() {
+        retryCount.increment();
+    }
+
+    /**
+     * Increments the counter of transactions to the node that have timed out.
+     * This is simply used for statistical purposes to assess the health
+     * of a node.
+     */
+    public void incrementTimeoutCount() {
+        timeoutCount.increment();
     }
 
     /**
@@ -799,8 +836,8 @@ public class ZWaveNode {
      * of a node.
      */
     public void incrementSendCount() {
-        sendCount++;
-        lastSent = Calendar.getInstance().getTime();
+        sendCount.increment();
+        lastSent = new Date();
     }
 
     /**
@@ -809,8 +846,8 @@ public class ZWaveNode {
      * of a node.
      */
     public void incrementReceiveCount() {
-        receiveCount++;
-        lastReceived = Calendar.getInstance().getTime();
+        receiveCount.increment();
+        lastReceived = new Date();
     }
 
     /**
@@ -819,7 +856,23 @@ public class ZWaveNode {
      * @return send count
      */
     public int getSendCount() {
-        return sendCount;
+        return sendCount.intValue();
+    }
+
+    /**
+     * Gets the statistics counters for the node. The counters are live, so the current values can be read on demand
+     * without the node publishing every change - the thing handler reads them at the controller statistics period and
+     * publishes the values that have changed.
+     *
+     * @return map of statistic name to counter
+     */
+    public Map<String, LongAdder> getStatistics() {
+        Map<String, LongAdder> statistics = new LinkedHashMap<>();
+        statistics.put(STATISTIC_SENT, sendCount);
+        statistics.put(STATISTIC_RECEIVED, receiveCount);
+        statistics.put(STATISTIC_RETRIES, retryCount);
+        statistics.put(STATISTIC_TIMEOUTS, timeoutCount);
+        return statistics;
     }
 
     /**
@@ -1425,6 +1478,9 @@ public class ZWaveNode {
 
             setSleepTimer();
 
+            // Set the state before notifying so that any queued messages can be released
+            this.awake = awake;
+
             // Notify application
             ZWaveEvent event = new ZWaveNodeStatusEvent(getNodeId(), ZWaveNodeState.AWAKE);
             controller.notifyEventListeners(event);
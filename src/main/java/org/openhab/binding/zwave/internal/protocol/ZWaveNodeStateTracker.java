@@ -0,0 +1,196 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.zwave.internal.protocol;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openhab.binding.zwave.internal.protocol.ZWaveTimeoutScheduler.Timeout;
+import org.openhab.binding.zwave.internal.protocol.event.ZWaveNodeStatusEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Filters the node liveness notifications sent to the event listeners.
+ * <p>
+ * The {@link ZWaveNode} state is always updated immediately, but the {@link ZWaveNodeStatusEvent} that tells the
+ * listeners about the change is debounced:
+ * <ul>
+ * <li>A node must remain DEAD for the dead delay before it is reported as DEAD. A node that misses a few frames
+ * during mesh problems and then responds again is never reported.
+ * <li>Once a state has been reported, the next state change is held for at least the hold period. If the node returns
+ * to the reported state within this time, no notification is sent, so a node flapping between DEAD and ALIVE
+ * generates at most one notification per hold period.
+ * </ul>
+ * Notifications that are delayed are sent from the {@link ZWaveTimeoutScheduler} thread.
+ *
+ * @author rmichalak - Initial contribution
+ *
+ */
+public class ZWaveNodeStateTracker {
+    private final Logger logger = LoggerFactory.getLogger(ZWaveNodeStateTracker.class);
+
+    public static final long DEFAULT_DEAD_DELAY = 5000;
+    public static final long DEFAULT_HOLD_PERIOD = 10000;
+
+    private final ZWaveController controller;
+    private final ZWaveTimeoutScheduler scheduler;
+    private final Map<Integer, NodeRecord> nodes = new ConcurrentHashMap<Integer, NodeRecord>();
+
+    private volatile long deadDelay = TimeUnit.MILLISECONDS.toNanos(DEFAULT_DEAD_DELAY);
+    private volatile long holdPeriod = TimeUnit.MILLISECONDS.toNanos(DEFAULT_HOLD_PERIOD);
+
+    private class NodeRecord {
+        // Nodes are created in the ALIVE state, and the listeners assume this until told otherwise
+        private ZWaveNodeState reportedState = ZWaveNodeState.ALIVE;
+        private ZWaveNodeState currentState = ZWaveNodeState.ALIVE;
+        private boolean reported = false;
+        private long reportTime;
+        private int generation;
+        private Timeout timeout;
+    }
+
+    /**
+     * Creates a tracker
+     *
+     * @param controller the {@link ZWaveController} used to notify the listeners
+     * @param scheduler the {@link ZWaveTimeoutScheduler} used to send the delayed notifications
+     */
+    public ZWaveNodeStateTracker(ZWaveController controller, ZWaveTimeoutScheduler scheduler) {
+        this.controller = controller;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Sets the time that a node must remain DEAD before it is reported
+     *
+     * @param deadDelay the delay in milliseconds. Zero reports DEAD nodes immediately.
+     */
+    public void setDeadDelay(long deadDelay) {
+        this.deadDelay = TimeUnit.MILLISECONDS.toNanos(Math.max(deadDelay, 0));
+    }
+
+    /**
+     * Sets the minimum time between state notifications for a node
+     *
+     * @param holdPeriod the period in milliseconds. Zero reports every state change.
+     */
+    public void setHoldPeriod(long holdPeriod) {
+        this.holdPeriod = TimeUnit.MILLISECONDS.toNanos(Math.max(holdPeriod, 0));
+    }
+
+    /**
+     * Records a change in the node state. The listeners are notified immediately, later, or not at all, depending on
+     * how long the node has been in the state, and when the previous state was reported.
+     *
+     * @param nodeId the node ID
+     * @param state the new {@link ZWaveNodeState}
+     */
+    public void setNodeState(final int nodeId, ZWaveNodeState state) {
+        NodeRecord record = nodes.get(nodeId);
+        if (record == null) {
+            NodeRecord newRecord = new NodeRecord();
+            record = nodes.putIfAbsent(nodeId, newRecord);
+            if (record == null) {
+                record = newRecord;
+            }
+        }
+
+        synchronized (record) {
+            record.currentState = state;
+            record.generation++;
+            if (record.timeout != null) {
+                record.timeout.cancel();
+                record.timeout = null;
+            }
+
+            if (state == record.reportedState) {
+                logger.debug("NODE {}: Node returned to {} - notification suppressed", nodeId, state);
+                return;
+            }
+
+            long now = System.nanoTime();
+            long delay = state == ZWaveNodeState.DEAD ? deadDelay : 0;
+            if (record.reported) {
+                delay = Math.max(delay, record.reportTime + holdPeriod - now);
+            }
+
+            if (delay > 0) {
+                logger.debug("NODE {}: Node is {} - notification delayed {}ms", nodeId, state,
+                        TimeUnit.NANOSECONDS.toMillis(delay));
+                final NodeRecord delayedRecord = record;
+                final int generation = record.generation;
+                record.timeout = scheduler.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        reportState(nodeId, delayedRecord, generation);
+                    }
+                }, delay, TimeUnit.NANOSECONDS);
+                return;
+            }
+
+            record.reportedState = state;
+            record.reportTime = now;
+            record.reported = true;
+        }
+
+        controller.notifyEventListeners(new ZWaveNodeStatusEvent(nodeId, state));
+    }
+
+    private void reportState(int nodeId, NodeRecord record, int generation) {
+        ZWaveNodeState state;
+        synchronized (record) {
+            // Ignore the timeout if the state has changed since it was scheduled
+            if (record.generation != generation || record.currentState == record.reportedState) {
+                return;
+            }
+            record.timeout = null;
+
+            state = record.currentState;
+            record.reportedState = state;
+            record.reportTime = System.nanoTime();
+            record.reported = true;
+        }
+
+        controller.notifyEventListeners(new ZWaveNodeStatusEvent(nodeId, state));
+    }
+
+    /**
+     * Removes a node from the tracker, cancelling any pending notification
+     *
+     * @param nodeId the node ID
+     */
+    public void removeNode(int nodeId) {
+        NodeRecord record = nodes.remove(nodeId);
+        if (record == null) {
+            return;
+        }
+        synchronized (record) {
+            record.generation++;
+            if (record.timeout != null) {
+                record.timeout.cancel();
+                record.timeout = null;
+            }
+        }
+    }
+
+    /**
+     * Cancels all pending notifications
+     */
+    public void shutdown() {
+        for (Integer nodeId : nodes.keySet()) {
+            removeNode(nodeId);
+        }
+    }
+}
@@ -0,0 +1,341 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.zwave.internal.protocol;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decodes the byte stream received from the Z-Wave controller into {@link SerialMessage}s.
+ * <p>
+ * Data is passed to the decoder in blocks as it is read from the serial port, and frames may be split across any
+ * number of blocks. Each frame is assembled in a single linear receive buffer, sized for the largest frame, which is
+ * reused for every frame. This is not a ring buffer: a frame is always copied to the start of the buffer, and the
+ * bytes that follow it in the block are decoded in place from the caller's buffer. The checksum is checked before any
+ * message is created, so corrupted frames do not allocate. The single byte ACK, NAK and CAN frames are passed on as
+ * shared, preallocated messages.
+ * <p>
+ * The decoder is not thread safe and must only be called from the receive thread. The statistics counters may be read
+ * from any thread.
+ *
+ * @author rmichalak - Initial contribution
+ *
+ */
+public class ZWaveSerialFrameDecoder {
+    private final Logger logger = LoggerFactory.getLogger(ZWaveSerialFrameDecoder.class);
+
+    public static final int SOF = 0x01;
+    public static final int ACK = 0x06;
+    public static final int NAK = 0x15;
+    public static final int CAN = 0x18;
+
+    private static final int MIN_FRAME_LENGTH = 4;
+    private static final int MAX_FRAME_LENGTH = 64;
+
+    private static final SerialMessage ACK_MESSAGE = new SerialMessage(new byte[] { ACK });
+    private static final SerialMessage NAK_MESSAGE = new SerialMessage(new byte[] { NAK });
+    private static final SerialMessage CAN_MESSAGE = new SerialMessage(new byte[] { CAN });
+
+    private final int SEARCH_SOF = 0;
+    private final int SEARCH_LEN = 1;
+    private final int SEARCH_DAT = 2;
+
+    private final FrameHandler handler;
+
+    private final byte[] rxBuffer = new byte[MAX_FRAME_LENGTH + 2];
+    private int rxState = SEARCH_SOF;
+    private int messageLength;
+    private int rxLength;
+
+    private final LongAdder SOFCount = new LongAdder();
+    private final LongAdder CANCount = new LongAdder();
+    private final LongAdder NAKCount = new LongAdder();
+    private final LongAdder ACKCount = new LongAdder();
+    private final LongAdder OOFCount = new LongAdder();
+    private final LongAdder CSECount = new LongAdder();
+
+    /**
+     * Receives the output of the decoder
+     */
+    public interface FrameHandler {
+        /**
+         * Called when a valid frame has been received. The ACK, NAK and CAN messages are shared instances and must not
+         * be modified.
+         *
+         * @param message the received {@link SerialMessage}
+         */
+        void frameReceived(SerialMessage message);
+
+        /**
+         * Called when the decoder needs to send a single byte response (ACK or NAK) to the controller
+         *
+         * @param response the response byte to send
+         */
+        void sendResponse(int response);
+    }
+
+    /**
+     * Creates a decoder
+     *
+     * @param handler the {@link FrameHandler} to receive the decoded frames
+     */
+    public ZWaveSerialFrameDecoder(FrameHandler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Decodes a block of data received from the controller
+     *
+     * @param buffer the buffer containing the received data
+     * @param offset the offset of the first received byte in the buffer
+     * @param length the number of bytes received
+     */
+    public void decode(byte[] buffer, int offset, int length) {
+        int end = offset + length;
+        for (int pos = offset; pos < end; pos++) {
+            int nextByte = buffer[pos] & 0xff;
+
+            switch (rxState) {
+                case SEARCH_SOF:
+                    processControl(nextByte);
+                    break;
+
+                case SEARCH_LEN:
+                    // Sanity check the frame length
+                    if (nextByte < MIN_FRAME_LENGTH || nextByte > MAX_FRAME_LENGTH) {
+                        logger.debug("Frame length is out of limits ({})", nextByte);
+                        rxState = SEARCH_SOF;
+                        break;
+                    }
+                    messageLength = nextByte + 2;
+
+                    rxBuffer[0] = SOF;
+                    rxBuffer[1] = (byte) nextByte;
+                    rxLength = 2;
+                    rxState = SEARCH_DAT;
+                    break;
+
+                case SEARCH_DAT:
+                    // Copy as much of the frame as we have in one go
+                    int count = Math.min(messageLength - rxLength, end - pos);
+                    System.arraycopy(buffer, pos, rxBuffer, rxLength, count);
+                    rxLength += count;
+                    pos += count - 1;
+
+                    if (rxLength < messageLength) {
+                        break;
+                    }
+
+                    processFrame();
+                    rxState = SEARCH_SOF;
+                    break;
+
+                default:
+                    rxState = SEARCH_SOF;
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Notifies the decoder that no data was received within the receive timeout. Any partially received frame is
+     * discarded.
+     */
+    public void timeout() {
+        if (rxState != SEARCH_SOF) {
+            // If we're not searching for a new frame when we get a timeout, something bad happened
+            logger.debug("Receive Timeout - discarding partial frame");
+            rxState = SEARCH_SOF;
+        }
+    }
+
+    private void processControl(int nextByte) {
+        switch (nextByte) {
+            case SOF:
+                logger.trace("Received SOF");
+
+                // Keep track of statistics
+                SOFCount.increment();
+                rxState = SEARCH_LEN;
+                break;
+
+            case ACK:
+                // Keep track of statistics
+                ACKCount.increment();
+                logger.debug("Receive Message = 06");
+                handler.frameReceived(ACK_MESSAGE);
+                break;
+
+            case NAK:
+                // A NAK means the CRC was incorrectly received by the controller
+                NAKCount.increment();
+                logger.debug("Receive Message = 15");
+                handler.frameReceived(NAK_MESSAGE);
+                break;
+
+            case CAN:
+                // The CAN means that the controller dropped the frame
+                CANCount.increment();
+                logger.debug("Receive Message = 18");
+                handler.frameReceived(CAN_MESSAGE);
+                break;
+
+            default:
+                OOFCount.increment();
+                logger.debug("Protocol error (OOF). Got 0x{}.", Integer.toHexString(nextByte));
+                // Let the timeout deal with sending the NAK
+                break;
+        }
+    }
+
+    private void processFrame() {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Receive Message = {}", SerialMessage.bb2hex(Arrays.copyOf(rxBuffer, messageLength)));
+        }
+
+        // Check the checksum before creating the message so that corrupted frames are discarded without allocating
+        byte checksum = (byte) 0xFF;
+        for (int cnt = 1; cnt < messageLength - 1; cnt++) {
+            checksum = (byte) (checksum ^ rxBuffer[cnt]);
+        }
+        if (checksum != rxBuffer[messageLength - 1]) {
+            CSECount.increment();
+            logger.debug("Message is invalid, discarding");
+            handler.sendResponse(NAK);
+            return;
+        }
+
+        SerialMessage recvMessage = new SerialMessage(Arrays.copyOf(rxBuffer, messageLength));
+        if (recvMessage.isValid) {
+            logger.trace("Message is valid, sending ACK");
+            handler.sendResponse(ACK);
+
+            handler.frameReceived(recvMessage);
+        } else {
+            CSECount.increment();
+            logger.debug("Message is invalid, discarding");
+            handler.sendResponse(NAK);
+        }
+    }
+
+    /**
+     * Gets the counter for the number of data frames received
+     *
+     * @return the {@link LongAdder} counter
+     */
+    public LongAdder getSOFCounter() {
+        return SOFCount;
+    }
+
+    /**
+     * Gets the number of data frames received
+     *
+     * @return the number of data frames received since the decoder was created
+     */
+    public long getSOFCount() {
+        return SOFCount.sum();
+    }
+
+    /**
+     * Gets the counter for the number of ACK frames received
+     *
+     * @return the {@link LongAdder} counter
+     */
+    public LongAdder getACKCounter() {
+        return ACKCount;
+    }
+
+    /**
+     * Gets the number of ACK frames received
+     *
+     * @return the number of ACK frames received since the decoder was created
+     */
+    public long getACKCount() {
+        return ACKCount.sum();
+    }
+
+    /**
+     * Gets the counter for the number of NAK frames received
+     *
+     * @return the {@link LongAdder} counter
+     */
+    public LongAdder getNAKCounter() {
+        return NAKCount;
+    }
+
+    /**
+     * Gets the number of NAK frames received
+     *
+     * @return the number of NAK frames received since the decoder was created
+     */
+    public long getNAKCount() {
+        return NAKCount.sum();
+    }
+
+    /**
+     * Gets the counter for the number of CAN frames received
+     *
+     * @return the {@link LongAdder} counter
+     */
+    public LongAdder getCANCounter() {
+        return CANCount;
+    }
+
+    /**
+     * Gets the number of CAN frames received
+     *
+     * @return the number of CAN frames received since the decoder was created
+     */
+    public long getCANCount() {
+        return CANCount.sum();
+    }
+
+    /**
+     * Gets the counter for the number of out of frame bytes received
+     *
+     * @return the {@link LongAdder} counter
+     */
+    public LongAdder getOOFCounter() {
+        return OOFCount;
+    }
+
+    /**
+     * Gets the number of out of frame bytes received
+     *
+     * @return the number of out of frame bytes received since the decoder was created
+     */
+    public long getOOFCount() {
+        return OOFCount.sum();
+    }
+
+    /**
+     * Gets the counter for the number of frames received with checksum errors
+     *
+     * @return the {@link LongAdder} counter
+     */
+    public LongAdder getCSECounter() {
+        return CSECount;
+    }
+
+    /**
+     * Gets the number of frames with checksum errors received
+     *
+     * @return the number of frames with checksum errors received since the decoder was created
+     */
+    public long getCSECount() {
+        return CSECount.sum();
+    }
+}
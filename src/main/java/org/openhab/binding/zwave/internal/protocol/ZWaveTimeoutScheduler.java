@@ -0,0 +1,328 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.zwave.internal.protocol;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hashed wheel timeout scheduler used for transaction and inclusion timeouts.
+ * <p>
+ * Timeouts are placed into one of a fixed number of buckets based on their deadline, and a single worker thread
+ * advances through the buckets once per tick, expiring any timeouts whose deadline has passed. Scheduling and
+ * cancelling a timeout are both O(1) and never require the outstanding timeouts to be searched. All times are based on
+ * {@link System#nanoTime()} so they are not affected by changes to the system clock.
+ * <p>
+ * The resolution of the scheduler is the tick duration, which is more than sufficient for Z-Wave timeouts that are in
+ * the hundreds of milliseconds or more. When there are no timeouts scheduled, the worker thread waits and does not tick.
+ * <p>
+ * The scheduler is owned by the {@link ZWaveController}, which must call {@link #shutdown()} when it is disposed to
+ * stop the worker thread.
+ *
+ * @author rmichalak - Initial contribution
+ *
+ */
+public class ZWaveTimeoutScheduler {
+    private final Logger logger = LoggerFactory.getLogger(ZWaveTimeoutScheduler.class);
+
+    private static final long DEFAULT_TICK_MILLIS = 10;
+    private static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private static final int STATE_WAITING = 0;
+    private static final int STATE_CANCELLED = 1;
+    private static final int STATE_EXPIRED = 2;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final long startTime = System.nanoTime();
+
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<Timeout>();
+    private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<Timeout>();
+    private final AtomicInteger activeTimeouts = new AtomicInteger();
+
+    private final Object idleLock = new Object();
+    private final Thread workerThread;
+    private volatile boolean running = true;
+    private long tick;
+
+    /**
+     * Creates a scheduler with the default resolution
+     */
+    public ZWaveTimeoutScheduler() {
+        this(DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * Creates a scheduler
+     *
+     * @param tickMillis the tick duration in milliseconds. This defines the resolution of the scheduler.
+     * @param wheelSize the number of buckets in the wheel. This is rounded up to a power of 2.
+     */
+    public ZWaveTimeoutScheduler(long tickMillis, int wheelSize) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be greater than 0");
+        }
+        if (wheelSize <= 0) {
+            throw new IllegalArgumentException("wheelSize must be greater than 0");
+        }
+
+        int size = Integer.highestOneBit(wheelSize);
+        if (size < wheelSize) {
+            size <<= 1;
+        }
+        wheel = new Bucket[size];
+        for (int cnt = 0; cnt < size; cnt++) {
+            wheel[cnt] = new Bucket();
+        }
+        mask = size - 1;
+        tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+
+        workerThread = new Thread(new Worker(), "ZWaveTimeoutScheduler");
+        workerThread.setDaemon(true);
+        workerThread.start();
+    }
+
+    /**
+     * Schedules a task to be run after the specified delay. The task is run on the scheduler thread, so it should not
+     * block for long periods.
+     *
+     * @param task the {@link Runnable} to run when the timeout expires
+     * @param delay the delay
+     * @param unit the {@link TimeUnit} of the delay
+     * @return the {@link Timeout} which may be used to cancel the task
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        Timeout timeout = new Timeout(task, System.nanoTime() - startTime + unit.toNanos(Math.max(delay, 0)));
+        activeTimeouts.incrementAndGet();
+        pendingTimeouts.add(timeout);
+
+        synchronized (idleLock) {
+            idleLock.notify();
+        }
+        return timeout;
+    }
+
+    /**
+     * Gets the number of timeouts that are scheduled and have not yet expired or been cancelled
+     *
+     * @return number of active timeouts
+     */
+    public int getActiveTimeouts() {
+        return activeTimeouts.get();
+    }
+
+    /**
+     * Stops the scheduler. Any outstanding timeouts will not be run.
+     */
+    public void shutdown() {
+        running = false;
+        workerThread.interrupt();
+    }
+
+    /**
+     * A handle to a scheduled task
+     */
+    public final class Timeout {
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(STATE_WAITING);
+
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout next;
+        private Timeout prev;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels the timeout. If the timeout has already expired, this has no effect.
+         *
+         * @return true if the timeout was cancelled
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(STATE_WAITING, STATE_CANCELLED)) {
+                return false;
+            }
+            activeTimeouts.decrementAndGet();
+            cancelledTimeouts.add(this);
+            return true;
+        }
+
+        /**
+         * Returns true if the timeout has been cancelled
+         *
+         * @return true if cancelled
+         */
+        public boolean isCancelled() {
+            return state.get() == STATE_CANCELLED;
+        }
+
+        /**
+         * Returns true if the timeout has expired and the task has been run
+         *
+         * @return true if expired
+         */
+        public boolean isExpired() {
+            return state.get() == STATE_EXPIRED;
+        }
+
+        /**
+         * Gets the time remaining until the timeout expires
+         *
+         * @param unit the {@link TimeUnit} to return
+         * @return the remaining delay, or 0 if the deadline has passed
+         */
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Math.max(deadline - (System.nanoTime() - startTime), 0), TimeUnit.NANOSECONDS);
+        }
+
+        private void expire() {
+            if (!state.compareAndSet(STATE_WAITING, STATE_EXPIRED)) {
+                return;
+            }
+            activeTimeouts.decrementAndGet();
+
+            try {
+                task.run();
+            } catch (Exception e) {
+                logger.warn("Exception running timeout task", e);
+            }
+        }
+    }
+
+    /**
+     * Bucket holding a doubly linked list of timeouts so that timeouts can be removed in O(1).
+     * This is only accessed from the worker thread.
+     */
+    private static class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        Timeout remove(Timeout timeout) {
+            Timeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+            return next;
+        }
+
+        void expireTimeouts(long deadline) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                if (timeout.remainingRounds <= 0 && timeout.deadline <= deadline) {
+                    Timeout next = remove(timeout);
+                    timeout.expire();
+                    timeout = next;
+                } else {
+                    timeout.remainingRounds--;
+                    timeout = timeout.next;
+                }
+            }
+        }
+    }
+
+    private class Worker implements Runnable {
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    waitForWork();
+                    waitForNextTick();
+                } catch (InterruptedException e) {
+                    continue;
+                }
+
+                removeCancelledTimeouts();
+                transferPendingTimeouts();
+
+                wheel[(int) (tick & mask)].expireTimeouts(tickNanos * (tick + 1));
+                tick++;
+            }
+            logger.debug("Timeout scheduler stopped");
+        }
+
+        private void waitForWork() throws InterruptedException {
+            synchronized (idleLock) {
+                if (activeTimeouts.get() != 0 || !cancelledTimeouts.isEmpty()) {
+                    return;
+                }
+                idleLock.wait();
+            }
+
+            // The wheel is empty, so the ticks we missed while waiting can be skipped
+            tick = Math.max(tick, (System.nanoTime() - startTime) / tickNanos);
+        }
+
+        private void waitForNextTick() throws InterruptedException {
+            long sleepNanos = tickNanos * (tick + 1) - (System.nanoTime() - startTime);
+            if (sleepNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            }
+        }
+
+        private void transferPendingTimeouts() {
+            Timeout timeout;
+            while ((timeout = pendingTimeouts.poll()) != null) {
+                if (timeout.isCancelled()) {
+                    continue;
+                }
+
+                // Never schedule into the past - expired timeouts go into the current bucket
+                long ticks = Math.max(timeout.deadline / tickNanos, tick);
+                timeout.remainingRounds = (ticks - tick) / wheel.length;
+                wheel[(int) (ticks & mask)].add(timeout);
+            }
+        }
+
+        private void removeCancelledTimeouts() {
+            Timeout timeout;
+            while ((timeout = cancelledTimeouts.poll()) != null) {
+                if (timeout.bucket != null) {
+                    timeout.bucket.remove(timeout);
+                }
+            }
+        }
+    }
+}
@@ -13,7 +13,6 @@
 package org.openhab.binding.zwave.internal.protocol;
 
 import java.util.Arrays;
-import java.util.Date;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.openhab.binding.zwave.internal.protocol.SerialMessage.SerialMessageClass;
@@ -115,7 +114,7 @@ public class ZWaveTransaction {
     private boolean requiresResponse = true;
 
     private long startTime;
-    private Date timeout;
+    private ZWaveTimeoutScheduler.Timeout timeout;
 
     public ZWaveTransaction(final ZWaveMessagePayloadTransaction payload) {
         this.priority = payload.getPriority();
@@ -247,11 +246,21 @@ public class ZWaveTransaction {
         return System.currentTimeMillis() - startTime;
     }
 
-    public void setTimeout(Date timeout) {
+    /**
+     * Sets the timeout currently registered for this transaction with the {@link ZWaveTimeoutScheduler}
+     *
+     * @param timeout the {@link ZWaveTimeoutScheduler.Timeout} or null if no timeout is registered
+     */
+    public void setTimeout(ZWaveTimeoutScheduler.Timeout timeout) {
         this.timeout = timeout;
     }
 
-    public Date getTimeout() {
+    /**
+     * Gets the timeout currently registered for this transaction with the {@link ZWaveTimeoutScheduler}
+     *
+     * @return the {@link ZWaveTimeoutScheduler.Timeout} or null if no timeout is registered
+     */
+    public ZWaveTimeoutScheduler.Timeout getTimeout() {
         return timeout;
     }
 
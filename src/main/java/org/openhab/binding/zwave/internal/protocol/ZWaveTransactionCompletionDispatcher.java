@@ -0,0 +1,207 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.zwave.internal.protocol;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Dispatches transaction completion notifications from the {@link ZWaveTransactionManager} to the transaction
+ * listeners.
+ * <p>
+ * A single, long lived thread processes notifications from a bounded queue. Notifications are therefore delivered in
+ * the order they were completed, which guarantees the completion order for each node. Notifications are queued while
+ * the transaction manager holds the send queue lock, so the submitting thread must never block - if the queue is full,
+ * the notification is run on the calling thread instead. The listeners only wake the thread waiting for the
+ * transaction, so this is safe, but the overflowed notification may be delivered ahead of those still queued. The
+ * number of overflows, and the number of times the queue depth rises above a high water mark, are counted so that
+ * listeners that are not keeping up can be seen.
+ *
+ * @author rmichalak - Initial contribution
+ *
+ */
+public class ZWaveTransactionCompletionDispatcher {
+    private final Logger logger = LoggerFactory.getLogger(ZWaveTransactionCompletionDispatcher.class);
+
+    private static final int DEFAULT_QUEUE_SIZE = 256;
+
+    private final ThreadPoolExecutor executor;
+    private final int highWaterMark;
+
+    private final AtomicLong dispatchedCount = new AtomicLong();
+    private final AtomicLong highWaterCount = new AtomicLong();
+    private final AtomicLong overflowCount = new AtomicLong();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    private final AtomicBoolean aboveHighWater = new AtomicBoolean();
+
+    public ZWaveTransactionCompletionDispatcher() {
+        this(DEFAULT_QUEUE_SIZE);
+    }
+
+    /**
+     * Creates the dispatcher with the high water mark set to three quarters of the queue size
+     *
+     * @param queueSize the maximum number of notifications waiting to be dispatched
+     */
+    public ZWaveTransactionCompletionDispatcher(int queueSize) {
+        this(queueSize, queueSize * 3 / 4);
+    }
+
+    /**
+     * Creates the dispatcher
+     *
+     * @param queueSize the maximum number of notifications waiting to be dispatched
+     * @param highWaterMark the number of notifications waiting to be dispatched above which the queue is considered to
+     *            be backed up
+     */
+    public ZWaveTransactionCompletionDispatcher(int queueSize, int highWaterMark) {
+        this.highWaterMark = highWaterMark;
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(queueSize),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "ZWaveTransactionCompletionThread");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+
+    /**
+     * Queues a notification for dispatch. Notifications are run in the order they are queued. If the queue is full, the
+     * notification is run on the calling thread.
+     *
+     * @param notification the {@link Runnable} notifying the listeners
+     */
+    public void dispatch(final Runnable notification) {
+        if (executor.isShutdown()) {
+            logger.debug("Transaction completion dispatcher is shutdown - notification discarded");
+            return;
+        }
+
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    notification.run();
+                } catch (Exception e) {
+                    logger.warn("Exception notifying transaction listeners", e);
+                }
+                dispatchedCount.incrementAndGet();
+            }
+        };
+
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            if (executor.isShutdown()) {
+                logger.debug("Transaction completion dispatcher is shutdown - notification discarded");
+                return;
+            }
+
+            overflowCount.incrementAndGet();
+            logger.debug("Transaction completion queue is full - notifying from the calling thread");
+            task.run();
+            return;
+        }
+
+        int depth = executor.getQueue().size();
+        int max;
+        while (depth > (max = maxQueueDepth.get())) {
+            if (maxQueueDepth.compareAndSet(max, depth)) {
+                break;
+            }
+        }
+
+        // Count each time the queue rises above the high water mark
+        if (depth > highWaterMark) {
+            if (aboveHighWater.compareAndSet(false, true)) {
+                highWaterCount.incrementAndGet();
+                logger.debug("Transaction completion queue above high water mark ({}) - depth {}", highWaterMark,
+                        depth);
+            }
+        } else {
+            aboveHighWater.set(false);
+        }
+    }
+
+    /**
+     * Shuts down the dispatcher. Notifications already queued are still delivered.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Gets the number of notifications waiting to be dispatched
+     *
+     * @return the current queue depth
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Gets the highest number of notifications that have been waiting to be dispatched
+     *
+     * @return the maximum queue depth
+     */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    /**
+     * Gets the queue depth above which the dispatch queue is considered to be backed up
+     *
+     * @return the high water mark
+     */
+    public int getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    /**
+     * Gets the number of notifications that have been delivered to the listeners
+     *
+     * @return the number of dispatched notifications
+     */
+    public long getDispatchedCount() {
+        return dispatchedCount.get();
+    }
+
+    /**
+     * Gets the number of times the dispatch queue has risen above the high water mark
+     *
+     * @return the number of times the high water mark was exceeded
+     */
+    public long getHighWaterCount() {
+        return highWaterCount.get();
+    }
+
+    /**
+     * Gets the number of notifications that were run on the calling thread because the dispatch queue was full
+     *
+     * @return the number of overflowed notifications
+     */
+    public long getOverflowCount() {
+        return overflowCount.get();
+    }
+}
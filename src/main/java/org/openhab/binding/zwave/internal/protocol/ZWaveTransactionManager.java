@@ -13,13 +13,11 @@
 package org.openhab.binding.zwave.internal.protocol;
 
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.Collection;
-import java.util.Date;
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
@@ -28,6 +26,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.jdt.annotation.Nullable;
@@ -38,6 +37,7 @@ import org.openhab.binding.zwave.internal.protocol.ZWaveTransaction.TransactionS
 import org.openhab.binding.zwave.internal.protocol.ZWaveTransactionResponse.State;
 import org.openhab.binding.zwave.internal.protocol.commandclass.ZWaveCommandClass.CommandClass;
 import org.openhab.binding.zwave.internal.protocol.commandclass.ZWaveSecurityCommandClass;
+import org.openhab.binding.zwave.internal.protocol.initialization.ZWaveNodeInitScheduler;
 import org.openhab.binding.zwave.internal.protocol.serialmessage.ZWaveCommandProcessor;
 import org.openhab.binding.zwave.internal.protocol.transaction.ZWaveCommandClassTransactionPayload;
 import org.openhab.binding.zwave.internal.protocol.transaction.ZWaveTransactionMessageBuilder;
@@ -84,7 +84,8 @@ import org.slf4j.LoggerFactory;
  * <li>Only a single transaction still awaiting a <i>RES</i>ponse can be outstanding to ANY node.</li>
  * <li>Only a single transaction still awaiting a <i>REQ</i>uest can be outstanding to a specific node.</li>
  * <li>Only a single transaction requiring a <i>DATA</i> response can be released at once to a specific node.</li>
- * <li>A total of MAX_OUTSTANDING_TRANSACTIONS can be outstanding at once.</li>
+ * <li>A total of {@link #setMaxOutstandingTransactions maxOutstandingTransactions} can be outstanding at once. This is
+ * the transaction window - while one node is slow to respond, transactions to other nodes can still be sent.</li>
  * </ul>
  * </p>
  * <h2>Transaction Flow</h2>
@@ -113,9 +114,16 @@ import org.slf4j.LoggerFactory;
  * Only a single transaction requiring a response can be released at once to any single node. This
  * specifically allows NONCE responses to be sent in the middle of a secure transaction.
  * <p>
+ * Transactions for nodes that are asleep are parked in a separate queue for each node so that they are not
+ * considered each time a message is sent. The parked queues are not checked when sending - when the node wakes up,
+ * the controller calls {@link #nodeAwake(int)} from the AWAKE event and the parked transactions are moved back to the
+ * transmit queue.
+ * </p>
  * <h2>Timeouts</h2>
  * <p>
- * A timer thread manages timeouts - different times are used for the different stages of a transaction.
+ * The {@link ZWaveTimeoutScheduler} manages timeouts - different times are used for the different stages of a
+ * transaction. Each transaction registers its own timeout when it is started or advances, and cancels it when it
+ * completes, so the outstanding transactions never need to be searched to find the next timeout.
  * Defaults for each timer are as follows -:
  * <ul>
  * <li><i>RES</i>ponse - should be received within <b>250ms</b> of the <i>REQ</i>uest</li>
@@ -139,7 +147,7 @@ public class ZWaveTransactionManager {
 
     private final int INITIAL_RX_QUEUE_SIZE = 128;
     private final int INITIAL_TX_QUEUE_SIZE = 128;
-    // private final int MAX_OUTSTANDING_TRANSACTIONS = 3;
+    private final int DEFAULT_MAX_OUTSTANDING_TRANSACTIONS = 1;
 
     private final int TRANSMIT_OPTION_ACK = 0x01;
     private final int TRANSMIT_OPTION_AUTO_ROUTE = 0x04;
@@ -153,7 +161,7 @@ public class ZWaveTransactionManager {
 
     private final AtomicBoolean holdoffActive = new AtomicBoolean(false);
 
-    private final Calendar holdoffDelay = Calendar.getInstance();
+    private ZWaveTimeoutScheduler.Timeout holdoffTimeout = null;
 
     /**
      * The controller used by this transaction manager
@@ -175,8 +183,8 @@ public class ZWaveTransactionManager {
      */
     private final long timerAbort = 12000;
 
-    private final Timer timer = new Timer();
-    private TimerTask timerTask = null;
+    private final ZWaveTimeoutScheduler timeoutScheduler;
+    private final boolean ownsTimeoutScheduler;
 
     private final BlockingQueue<SerialMessage> recvQueue = new ArrayBlockingQueue<>(INITIAL_RX_QUEUE_SIZE);
 
@@ -192,14 +200,51 @@ public class ZWaveTransactionManager {
     private ZWaveReceiveThread receiveThread;
 
     ExecutorService executor = Executors.newCachedThreadPool();
+    private final ZWaveTransactionCompletionDispatcher completionDispatcher = new ZWaveTransactionCompletionDispatcher(
+            INITIAL_RX_QUEUE_SIZE);
     final List<TransactionListener> transactionListeners = new ArrayList<TransactionListener>();
 
     private final List<ZWaveTransaction> outstandingTransactions = new ArrayList<ZWaveTransaction>();
 
+    /**
+     * Transactions for nodes that are not awake. These are guarded by the sendQueue lock.
+     */
+    private final Map<Integer, PriorityQueue<ZWaveTransaction>> parkedTransactions = new HashMap<>();
+
     private ZWaveTransaction lastTransaction = null;
 
+    /**
+     * The maximum number of transactions that can be outstanding at once. Only a single transaction may be outstanding
+     * to each node, so this limits the number of nodes we are waiting on concurrently.
+     */
+    private volatile int maxOutstandingTransactions = DEFAULT_MAX_OUTSTANDING_TRANSACTIONS;
+
+    /**
+     * Creates the transaction manager with its own {@link ZWaveTimeoutScheduler}, which is stopped when the manager is
+     * shut down
+     *
+     * @param controller the {@link ZWaveController} used to send messages
+     */
     public ZWaveTransactionManager(ZWaveController controller) {
+        this(controller, new ZWaveTimeoutScheduler(), true);
+    }
+
+    /**
+     * Creates the transaction manager
+     *
+     * @param controller the {@link ZWaveController} used to send messages
+     * @param timeoutScheduler the {@link ZWaveTimeoutScheduler} used to manage transaction timeouts. The scheduler is
+     *            owned by the caller and is not stopped when the manager is shut down.
+     */
+    public ZWaveTransactionManager(ZWaveController controller, ZWaveTimeoutScheduler timeoutScheduler) {
+        this(controller, timeoutScheduler, false);
+    }
+
+    private ZWaveTransactionManager(ZWaveController controller, ZWaveTimeoutScheduler timeoutScheduler,
+            boolean ownsTimeoutScheduler) {
         this.controller = controller;
+        this.timeoutScheduler = timeoutScheduler;
+        this.ownsTimeoutScheduler = ownsTimeoutScheduler;
 
         receiveThread = new ZWaveReceiveThread();
         receiveThread.start();
@@ -213,6 +258,21 @@ public class ZWaveTransactionManager {
             recvQueue.notify();
         }
         receiveThread.interrupt();
+        completionDispatcher.shutdown();
+
+        synchronized (sendQueue) {
+            if (holdoffTimeout != null) {
+                holdoffTimeout.cancel();
+                holdoffTimeout = null;
+            }
+            for (ZWaveTransaction transaction : outstandingTransactions) {
+                cancelTransactionTimeout(transaction);
+            }
+        }
+
+        if (ownsTimeoutScheduler) {
+            timeoutScheduler.shutdown();
+        }
     }
 
     private void AddTransactionListener(TransactionListener listener) {
@@ -234,35 +294,80 @@ public class ZWaveTransactionManager {
     private void notifyTransactionComplete(final ZWaveTransaction transaction) {
         logger.debug("NODE {}: notifyTransactionResponse TID:{} {}", transaction.getNodeId(),
                 transaction.getTransactionId(), transaction.getTransactionState());
-        new Thread() {
-            @Override
-            public void run() {
-                synchronized (transactionListeners) {
-                    for (TransactionListener listener : transactionListeners) {
-                        listener.transactionEvent(transaction);
-                    }
-                }
-            }
-        }.start();
 
         // If this transaction isn't complete, check if it's a secure transaction as we need to
         // abort the original request.
+        final ZWaveTransaction linkedTransaction;
         if (transaction.getTransactionState() != TransactionState.DONE
                 && transaction instanceof ZWaveSecureTransaction) {
-            ZWaveSecureTransaction secureTransaction = (ZWaveSecureTransaction) transaction;
+            linkedTransaction = ((ZWaveSecureTransaction) transaction).getLinkedTransaction();
             logger.debug("NODE {}: processing secure transaction -- TID:{}", transaction.getNodeId(),
-                    secureTransaction.getLinkedTransaction().getTransactionId());
+                    linkedTransaction.getTransactionId());
+
+            synchronized (sendQueue) {
+                sendQueue.remove(linkedTransaction);
 
-            synchronized (transactionListeners) {
-                for (TransactionListener listener : transactionListeners) {
-                    listener.transactionEvent(secureTransaction.getLinkedTransaction());
+                PriorityQueue<ZWaveTransaction> parkedQueue = parkedTransactions.get(linkedTransaction.getNodeId());
+                if (parkedQueue != null && parkedQueue.remove(linkedTransaction) && parkedQueue.isEmpty()) {
+                    parkedTransactions.remove(linkedTransaction.getNodeId());
                 }
             }
+        } else {
+            linkedTransaction = null;
+        }
 
-            synchronized (sendQueue) {
-                sendQueue.remove(secureTransaction.getLinkedTransaction());
+        // Listeners are notified from the dispatcher thread so they are called in the order transactions complete
+        completionDispatcher.dispatch(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (transactionListeners) {
+                    for (TransactionListener listener : transactionListeners) {
+                        listener.transactionEvent(transaction);
+                    }
+                    if (linkedTransaction != null) {
+                        for (TransactionListener listener : transactionListeners) {
+                            listener.transactionEvent(linkedTransaction);
+                        }
+                    }
+                }
             }
+        });
+    }
+
+    /**
+     * Sets the maximum number of transactions that can be outstanding to different nodes at once. Setting this to 1
+     * will wait for each transaction to complete before the next is started.
+     *
+     * @param maxOutstandingTransactions the size of the transaction window
+     */
+    public void setMaxOutstandingTransactions(int maxOutstandingTransactions) {
+        if (maxOutstandingTransactions < 1) {
+            logger.debug("Invalid transaction window {} - using 1", maxOutstandingTransactions);
+            maxOutstandingTransactions = 1;
         }
+        logger.debug("Transaction window set to {}", maxOutstandingTransactions);
+        this.maxOutstandingTransactions = maxOutstandingTransactions;
+
+        sendNextMessage();
+    }
+
+    /**
+     * Gets the maximum number of transactions that can be outstanding to different nodes at once
+     *
+     * @return the size of the transaction window
+     */
+    public int getMaxOutstandingTransactions() {
+        return maxOutstandingTransactions;
+    }
+
+    /**
+     * Gets the {@link ZWaveTransactionCompletionDispatcher} used to notify transaction listeners. This is provided so
+     * that the dispatcher statistics can be read.
+     *
+     * @return the {@link ZWaveTransactionCompletionDispatcher}
+     */
+    public ZWaveTransactionCompletionDispatcher getCompletionDispatcher() {
+        return completionDispatcher;
     }
 
     /**
@@ -338,16 +443,36 @@ public class ZWaveTransactionManager {
                 }
             }
 
-            if (queue.remove(transaction)) {
+            PriorityQueue<ZWaveTransaction> parkedQueue = parkedTransactions.get(transaction.getNodeId());
+            if (queue.remove(transaction) || (parkedQueue != null && parkedQueue.remove(transaction))) {
                 logger.debug("NODE {}: Transaction already in queue - removed original", transaction.getNodeId());
             }
+
+            // If the node is asleep, park the transaction until it wakes up
+            if (queue == sendQueue) {
+                ZWaveNode node = controller.getNode(transaction.getNodeId());
+                if (node != null && !node.isAwake()) {
+                    parkTransaction(transaction);
+                    return;
+                }
+            }
+
             queue.add(transaction);
             logger.debug("NODE {}: Added {} to queue - size {}", transaction.getNodeId(),
                     transaction.getTransactionId(), queue.size());
         }
 
         sendNextMessage();
-        startTransactionTimer();
+    }
+
+    /**
+     * Gets the number of messages waiting in the transmit queue for all nodes. This does not include transactions that
+     * are outstanding, or nonce responses.
+     *
+     * @return number of messages in queue
+     */
+    public int getSendQueueLength() {
+        return sendQueue.size();
     }
 
     /**
@@ -379,7 +504,7 @@ public class ZWaveTransactionManager {
                 }
             }
 
-            return outstandingCount;
+            return outstandingCount + getParkedQueueLength(nodeId);
         }
     }
 
@@ -392,6 +517,73 @@ public class ZWaveTransactionManager {
             secureQueue.clear();
             controllerQueue.clear();
             priorityControllerQueue.clear();
+            parkedTransactions.clear();
+        }
+    }
+
+    /**
+     * Gets the number of transactions that are parked waiting for a node to wake up
+     *
+     * @param nodeId the node to check
+     * @return number of parked transactions
+     */
+    public int getParkedQueueLength(int nodeId) {
+        synchronized (sendQueue) {
+            PriorityQueue<ZWaveTransaction> parkedQueue = parkedTransactions.get(nodeId);
+            return parkedQueue == null ? 0 : parkedQueue.size();
+        }
+    }
+
+    /**
+     * Called when a node wakes up. Any transactions parked for the node are moved back to the send queue.
+     *
+     * @param nodeId the node that has woken up
+     */
+    public void nodeAwake(int nodeId) {
+        synchronized (sendQueue) {
+            PriorityQueue<ZWaveTransaction> parkedQueue = parkedTransactions.remove(nodeId);
+            if (parkedQueue != null) {
+                logger.debug("NODE {}: Awake - releasing {} parked transactions", nodeId, parkedQueue.size());
+                sendQueue.addAll(parkedQueue);
+            }
+        }
+
+        sendNextMessage();
+    }
+
+    /**
+     * Called when a node is removed from the network. Any transactions parked for the node are dropped.
+     *
+     * @param nodeId the node that has been removed
+     */
+    public void nodeRemoved(int nodeId) {
+        synchronized (sendQueue) {
+            PriorityQueue<ZWaveTransaction> parkedQueue = parkedTransactions.remove(nodeId);
+            if (parkedQueue != null) {
+                logger.debug("NODE {}: Removed - dropping {} parked transactions", nodeId, parkedQueue.size());
+            }
+        }
+    }
+
+    /**
+     * Parks a transaction until the node wakes up. Must be called with the sendQueue lock held.
+     *
+     * @param transaction the {@link ZWaveTransaction} to park
+     */
+    private void parkTransaction(ZWaveTransaction transaction) {
+        PriorityQueue<ZWaveTransaction> parkedQueue = parkedTransactions.get(transaction.getNodeId());
+        if (parkedQueue == null) {
+            parkedQueue = new PriorityQueue<>(11, new ZWaveTransactionComparator());
+            parkedTransactions.put(transaction.getNodeId(), parkedQueue);
+        }
+        parkedQueue.add(transaction);
+        logger.debug("NODE {}: Node not awake - parked {} - parked queue size {}", transaction.getNodeId(),
+                transaction.getTransactionId(), parkedQueue.size());
+
+        // Don't let a sleeping node hold an initialisation permit while its transaction is parked
+        ZWaveNodeInitScheduler initScheduler = controller.getNodeInitScheduler();
+        if (initScheduler != null) {
+            initScheduler.transactionParked(transaction.getNodeId());
         }
     }
 
@@ -425,7 +617,6 @@ public class ZWaveTransactionManager {
 
                     // See if we need to send another message
                     sendNextMessage();
-                    startTransactionTimer();
                 }
 
                 try {
@@ -463,6 +654,7 @@ public class ZWaveTransactionManager {
                         // Remove the transaction
                         synchronized (sendQueue) {
                             outstandingTransactions.remove(lastTransaction);
+                            cancelTransactionTimeout(lastTransaction);
                         }
 
                         // Requeue...
@@ -547,6 +739,7 @@ public class ZWaveTransactionManager {
                                                     lastTransaction = null;
                                                 }
                                                 completed.add(transaction);
+                                                cancelTransactionTimeout(transaction);
 
                                                 // Handle secure transactions - these are ones where we have
                                                 // requested a NONCE which we've just received, and we now need
@@ -621,7 +814,9 @@ public class ZWaveTransactionManager {
                         logger.debug("TID {}: Advanced to {}", currentTransaction.getTransactionId(),
                                 currentTransaction.getTransactionState());
                         // Transaction has advanced - update the timer.
-                        currentTransaction.setTimeout(getNextTimer(currentTransaction));
+                        synchronized (sendQueue) {
+                            startTransactionTimeout(currentTransaction);
+                        }
                     }
 
                     switch (currentTransaction.getTransactionState()) {
@@ -643,6 +838,7 @@ public class ZWaveTransactionManager {
                                 }
 
                                 outstandingTransactions.remove(currentTransaction);
+                                cancelTransactionTimeout(currentTransaction);
                             }
 
                             logger.debug("NODE {}: Response processed after {}ms", currentTransaction.getNodeId(),
@@ -670,6 +866,7 @@ public class ZWaveTransactionManager {
                                 }
 
                                 outstandingTransactions.remove(currentTransaction);
+                                cancelTransactionTimeout(currentTransaction);
                             }
 
                             ZWaveNode node = controller.getNode(currentTransaction.getNodeId());
@@ -686,6 +883,9 @@ public class ZWaveTransactionManager {
                             if (currentTransaction.decrementAttemptsRemaining() > 0) {
                                 logger.debug("NODE {}: CANCEL while sending message. Requeueing - {} attempts left!",
                                         currentTransaction.getNodeId(), currentTransaction.getAttemptsRemaining());
+                                if (node != null) {
+                                    node.incrementRetryCount();
+                                }
 
                                 // Reset the transaction
                                 currentTransaction.resetTransaction();
@@ -743,41 +943,38 @@ public class ZWaveTransactionManager {
 
     }
 
-    private Date getNextTimer(ZWaveTransaction transaction) {
-        long nextTimer = 0;
+    /**
+     * Gets the timeout for the current state of the transaction
+     *
+     * @param transaction the {@link ZWaveTransaction}
+     * @return the timeout in milliseconds, or 0 if no timeout is required
+     */
+    private long getNextTimer(ZWaveTransaction transaction) {
         switch (transaction.getTransactionState()) {
-            case CANCELLED:
-            case DONE:
-            case UNINTIALIZED:
-                break;
             case WAIT_RESPONSE:
-                nextTimer = System.currentTimeMillis() + timer1;
-                break;
+                return timer1;
             case WAIT_REQUEST:
-                nextTimer = System.currentTimeMillis() + timer2;
-                break;
+                return timer2;
             case WAIT_DATA:
-                nextTimer = System.currentTimeMillis() + transaction.getDataTimeout();
-                break;
+                return transaction.getDataTimeout();
             case ABORTED:
-                nextTimer = System.currentTimeMillis() + timerAbort;
-                break;
-        }
-
-        if (nextTimer == 0) {
-            return null;
+                return timerAbort;
+            case CANCELLED:
+            case DONE:
+            case UNINTIALIZED:
+            default:
+                return 0;
         }
-
-        return new Date(nextTimer);
     }
 
     private ZWaveTransaction getMessageFromQueue(PriorityBlockingQueue<ZWaveTransaction> queue) {
         Collection<ZWaveTransaction> returns = new ArrayList<>();
         ZWaveTransaction transaction;
+
         // Note that using the iterator here is not possible since it will not respect the priority
-        // We instead use the poll method, and any frames for nodes that can't currently be sent are
-        // placed into a separate list, and added to the queue again at the end.
-        // This might not be the best approach, but avoids the iterator problem!
+        // We instead use the poll method. Frames for nodes that are asleep are parked until the node wakes up, and
+        // any other frames that can't currently be sent are placed into a separate list, and added to the queue
+        // again at the end.
         while ((transaction = queue.poll()) != null) {
             ZWaveNode node = controller.getNode(transaction.getNodeId());
             if (node == null) {
@@ -787,7 +984,22 @@ public class ZWaveTransactionManager {
 
             // Check if the node is awake
             if (node.isAwake() == false) {
-                logger.trace("NODE {}: Node not awake!", node.getNodeId());
+                logger.trace("NODE {}: Node not awake!", transaction.getNodeId());
+                parkTransaction(transaction);
+                continue;
+            }
+
+            // Only a single transaction can be outstanding to each node
+            if (isTransactionOutstanding(transaction.getNodeId())) {
+                logger.trace("NODE {}: Node has outstanding transaction", transaction.getNodeId());
+                returns.add(transaction);
+                continue;
+            }
+
+            // If a nonce has been requested with a previous secure message, wait for it rather than sending a
+            // separate NONCE_GET
+            if (transaction.getRequiresSecurity() && isNonceRequestPending(node)) {
+                logger.trace("NODE {}: Node has pending nonce request", transaction.getNodeId());
                 returns.add(transaction);
                 continue;
             }
@@ -801,6 +1013,42 @@ public class ZWaveTransactionManager {
         return transaction;
     }
 
+    /**
+     * Checks if there is an outstanding transaction to a node. Must be called with the sendQueue lock held.
+     *
+     * @param nodeId the node to check
+     * @return true if a transaction to the node is outstanding
+     */
+    private boolean isTransactionOutstanding(int nodeId) {
+        for (ZWaveTransaction transaction : outstandingTransactions) {
+            if (transaction.getNodeId() == nodeId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isNonceRequestPending(ZWaveNode node) {
+        ZWaveSecurityCommandClass securityCommandClass = (ZWaveSecurityCommandClass) node
+                .getCommandClass(CommandClass.COMMAND_CLASS_SECURITY);
+        return securityCommandClass != null && securityCommandClass.isNonceRequestPending();
+    }
+
+    /**
+     * Checks if there is another secure transaction queued for a node. Must be called with the sendQueue lock held.
+     *
+     * @param nodeId the node to check
+     * @return true if a secure transaction to the node is queued
+     */
+    private boolean isSecureTransactionQueued(int nodeId) {
+        for (ZWaveTransaction transaction : sendQueue) {
+            if (transaction.getNodeId() == nodeId && transaction.getRequiresSecurity()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private void sendNextMessage() {
         synchronized (sendQueue) {
             logger.debug("Transaction SendNextMessage {} out at start. Holdoff {}.", outstandingTransactions.size(),
@@ -810,8 +1058,8 @@ public class ZWaveTransactionManager {
                 return;
             }
 
-            // If we're currently processing the core of a transaction, or there are too many
-            // outstanding transactions, then don't start another right now.
+            // If we're currently processing the core of a transaction then don't start another right now.
+            // The controller can only handle a single transaction until it has sent the frame to the node.
             if (lastTransaction != null) {
                 logger.trace("Transaction lastTransaction outstanding...");
                 return;
@@ -826,11 +1074,12 @@ public class ZWaveTransactionManager {
                 transaction = secureQueue.poll();
                 if (transaction != null) {
                     logger.trace("Transaction from secureQueue");
-                } else if (outstandingTransactions.size() == 0) {
+                } else if (outstandingTransactions.size() < maxOutstandingTransactions) {
+                    // Transactions to other nodes can be sent while we wait for DATA from a node
                     transaction = getMessageFromQueue(sendQueue);
                     if (transaction != null) {
                         logger.trace("Transaction from sendQueue");
-                    } else {
+                    } else if (outstandingTransactions.size() == 0) {
                         transaction = controllerQueue.poll();
                     }
                 }
@@ -855,14 +1104,28 @@ public class ZWaveTransactionManager {
 
                 if (securityCommandClass.isNonceAvailable()) {
                     // We have a NONCE, so encapsulate and send
-                    logger.trace("NODE {}: NONCE available so encap and send.", transaction.getNodeId());
+                    // If more secure messages are queued for the node, ask it to send the next nonce with this one
+                    boolean requestNonce = isSecureTransactionQueued(transaction.getNodeId());
+                    logger.trace("NODE {}: NONCE available so encap and send. Request NONCE {}.",
+                            transaction.getNodeId(), requestNonce);
 
                     ZWaveCommandClassTransactionPayload securePayload = new ZWaveCommandClassTransactionPayload(
                             transaction.getNodeId(),
-                            securityCommandClass.getSecurityMessageEncapsulation(transaction.getPayloadBuffer()),
+                            securityCommandClass.getSecurityMessageEncapsulation(transaction.getPayloadBuffer(),
+                                    requestNonce),
                             TransactionPriority.RealTime, transaction.getExpectedCommandClass(),
                             transaction.getExpectedCommandClassCommand());
 
+                    if (requestNonce) {
+                        // Make sure the queue is checked again if the nonce doesn't arrive
+                        timeoutScheduler.schedule(new Runnable() {
+                            @Override
+                            public void run() {
+                                sendNextMessage();
+                            }
+                        }, ZWaveSecurityCommandClass.NONCE_REQUEST_TIMEOUT, TimeUnit.MILLISECONDS);
+                    }
+
                     // Get the serial message for the secure message and add it to our transaction so it correlates
                     // properly
                     serialMessage = securePayload.getSerialMessage();
@@ -885,6 +1148,13 @@ public class ZWaveTransactionManager {
                     .setTransmitOptions(TRANSMIT_OPTION_ACK | TRANSMIT_OPTION_AUTO_ROUTE | TRANSMIT_OPTION_EXPLORE);
             controller.sendPacket(serialMessage);
 
+            if (transaction.getSerialMessageClass().requiresNode()) {
+                ZWaveNode node = controller.getNode(transaction.getNodeId());
+                if (node != null) {
+                    node.incrementSendCount();
+                }
+            }
+
             transaction.transactionStart();
             logger.debug("Transaction SendNextMessage started: {}", transaction);
 
@@ -895,8 +1165,7 @@ public class ZWaveTransactionManager {
 
             outstandingTransactions.add(transaction);
             logger.trace("Transaction SendNextMessage Transactions outstanding: {}", outstandingTransactions.size());
-            transaction.setTimeout(getNextTimer(transaction));
-            startTransactionTimer();
+            startTransactionTimeout(transaction);
             lastTransaction = transaction;
             logger.trace("Transaction SendNextMessage lastTransaction: {}", lastTransaction);
         }
@@ -906,141 +1175,130 @@ public class ZWaveTransactionManager {
         synchronized (sendQueue) {
             logger.debug("Holdoff Timer started...");
             holdoffActive.set(true);
-            holdoffDelay.setTimeInMillis(System.currentTimeMillis() + HOLDOFF_DELAY);
-            startTransactionTimer();
+            if (holdoffTimeout != null) {
+                holdoffTimeout.cancel();
+            }
+            HoldoffTimeoutTask task = new HoldoffTimeoutTask();
+            holdoffTimeout = timeoutScheduler.schedule(task, HOLDOFF_DELAY, TimeUnit.MILLISECONDS);
+            task.timeout = holdoffTimeout;
         }
     }
 
-    private void startTransactionTimer() {
-        synchronized (sendQueue) {
-            // Stop any existing timer
-            if (timerTask != null) {
-                logger.trace("STOP transaction timer");
+    /**
+     * Starts, or restarts, the timeout for a transaction based on its current state. Any existing timeout for the
+     * transaction is cancelled. Must be called with the sendQueue lock held.
+     *
+     * @param transaction the {@link ZWaveTransaction}
+     */
+    private void startTransactionTimeout(ZWaveTransaction transaction) {
+        cancelTransactionTimeout(transaction);
 
-                timerTask.cancel();
-                timerTask = null;
-            }
+        long delay = getNextTimer(transaction);
+        if (delay == 0) {
+            return;
+        }
 
-            if (holdoffActive.get()) {
-                long delay = holdoffDelay.getTimeInMillis() - System.currentTimeMillis();
-                if (delay > 0) {
-                    // Create the timer task
-                    timerTask = new ZWaveTransactionTimer();
+        logger.trace("TID {}: Start transaction timer for {}ms", transaction.getTransactionId(), delay);
+        TransactionTimeoutTask task = new TransactionTimeoutTask(transaction);
+        task.timeout = timeoutScheduler.schedule(task, delay, TimeUnit.MILLISECONDS);
+        transaction.setTimeout(task.timeout);
+    }
 
-                    logger.trace("Holdoff Timer finishing in {}ms", delay);
-                    timer.schedule(timerTask, delay);
-                } else {
-                    holdoffActive.set(false);
-                }
-                return;
-            }
+    /**
+     * Cancels the timeout for a transaction. Must be called with the sendQueue lock held.
+     *
+     * @param transaction the {@link ZWaveTransaction}
+     */
+    private void cancelTransactionTimeout(ZWaveTransaction transaction) {
+        ZWaveTimeoutScheduler.Timeout timeout = transaction.getTimeout();
+        if (timeout != null) {
+            timeout.cancel();
+            transaction.setTimeout(null);
+        }
+    }
 
-            // Find the time till the next timer
-            Date nextTimer = null;
-            for (ZWaveTransaction transaction : outstandingTransactions) {
-                if (nextTimer == null) {
-                    nextTimer = transaction.getTimeout();
-                    continue;
-                }
+    /**
+     * Ends the holdoff period. This is set after a RESponse error to delay the next message.
+     */
+    private class HoldoffTimeoutTask implements Runnable {
+        private ZWaveTimeoutScheduler.Timeout timeout;
 
-                Date time = transaction.getTimeout();
-                if (time != null && time.before(nextTimer)) {
-                    nextTimer = time;
+        @Override
+        public void run() {
+            synchronized (sendQueue) {
+                // Ignore this if the holdoff was restarted after we expired
+                if (holdoffTimeout != timeout) {
+                    return;
                 }
-            }
-
-            // Start the timer if required
-            if (nextTimer != null) {
-                // Create the timer task
-                timerTask = new ZWaveTransactionTimer();
-
-                logger.trace("Start transaction timer to {} - {}ms", nextTimer,
-                        (nextTimer.getTime() - System.currentTimeMillis()));
-                timer.schedule(timerTask, nextTimer);
+                holdoffTimeout = null;
+                holdoffActive.set(false);
+                logger.trace("Holdoff Timer triggered...");
+                sendNextMessage();
             }
         }
     }
 
-    private class ZWaveTransactionTimer extends TimerTask {
-        private final Logger logger = LoggerFactory.getLogger(ZWaveTransactionTimer.class);
+    private class TransactionTimeoutTask implements Runnable {
+        private final ZWaveTransaction transaction;
+        private ZWaveTimeoutScheduler.Timeout timeout;
+
+        TransactionTimeoutTask(ZWaveTransaction transaction) {
+            this.transaction = transaction;
+        }
 
         @Override
         public void run() {
             synchronized (sendQueue) {
-                // Handle the holdoff case.
-                // This is set after a RESponse error to delay the next message
-                if (holdoffActive.getAndSet(false)) {
-                    logger.trace("Holdoff Timer triggered...");
-                    sendNextMessage();
-                    startTransactionTimer();
+                // Ignore this if the transaction has advanced or completed while we were expiring
+                if (transaction.getTimeout() != timeout) {
                     return;
                 }
+                transaction.setTimeout(null);
+
+                // Timeout
+                logger.debug("NODE {}: TID {}: Timeout at state {}. {} retries remaining.", transaction.getNodeId(),
+                        transaction.getTransactionId(), transaction.getTransactionState(),
+                        transaction.getAttemptsRemaining());
+                if (transaction.getSerialMessageClass().requiresNode()) {
+                    ZWaveNode node = controller.getNode(transaction.getNodeId());
+                    if (node != null) {
+                        node.incrementTimeoutCount();
+                    }
+                }
 
-                logger.trace("Transaction Timeout.......... {} outstanding transactions",
-                        outstandingTransactions.size());
-                Date now = new Date();
-                // List<ZWaveTransaction> retries = new ArrayList<ZWaveTransaction>();
-
-                // Loop through all outstanding transactions to see if any have timed out
-                Iterator<ZWaveTransaction> iterator = outstandingTransactions.iterator();
-                while (iterator.hasNext()) {
-                    ZWaveTransaction transaction = iterator.next();
-                    Date timer = transaction.getTimeout();
-                    if (timer != null && timer.after(now) == false) {
-                        // Timeout
-                        logger.debug("NODE {}: TID {}: Timeout at state {}. {} retries remaining.",
-                                transaction.getNodeId(), transaction.getTransactionId(),
-                                transaction.getTransactionState(), transaction.getAttemptsRemaining());
-
-                        // If this is a SendData message, and we're not waiting for DATA
-                        // Then we need to cancel this request.
-                        // TODO: Maybe this should be generalised to allow for other commands?
-                        if (transaction.getSerialMessageClass() == SerialMessageClass.SendData
-                                && (transaction.getTransactionState() == TransactionState.WAIT_REQUEST
-                                        || transaction.getTransactionState() == TransactionState.WAIT_RESPONSE)) {
-                            // SendData requests need to be aborted - so we don't cancel the transaction.
-                            // Once aborted we will get the completion of the transaction which will cancel the
-                            // transaction.
-                            logger.debug("Aborting Transaction!");
-                            transaction.setTransactionAborted();
-                            transaction.setTimeout(getNextTimer(transaction));
-
-                            controller.sendPacket(new ZWaveTransactionMessageBuilder(SerialMessageClass.SendDataAbort)
-                                    .build().getSerialMessage());
-                        } else {
-                            // Remove this transaction from the outstanding transactions list
-                            iterator.remove();
-
-                            if (lastTransaction == transaction) {
-                                // If this is the current transaction, then reset it.
-                                lastTransaction = null;
-                                logger.debug("TID {}: Transaction is current transaction, so clearing!!!!!",
-                                        transaction.getTransactionId());
-                            }
+                // If this is a SendData message, and we're not waiting for DATA
+                // Then we need to cancel this request.
+                // TODO: Maybe this should be generalised to allow for other commands?
+                if (transaction.getSerialMessageClass() == SerialMessageClass.SendData
+                        && (transaction.getTransactionState() == TransactionState.WAIT_REQUEST
+                                || transaction.getTransactionState() == TransactionState.WAIT_RESPONSE)) {
+                    // SendData requests need to be aborted - so we don't cancel the transaction.
+                    // Once aborted we will get the completion of the transaction which will cancel the
+                    // transaction.
+                    logger.debug("Aborting Transaction!");
+                    transaction.setTransactionAborted();
+                    startTransactionTimeout(transaction);
+
+                    controller.sendPacket(new ZWaveTransactionMessageBuilder(SerialMessageClass.SendDataAbort)
+                            .build().getSerialMessage());
+                } else {
+                    // Remove this transaction from the outstanding transactions list
+                    outstandingTransactions.remove(transaction);
 
-                            // Resend if there are still attempts remaining
-                            // if (transaction.decrementAttemptsRemaining() <= 0) {
-                            transaction.setTransactionCanceled();
-                            controller.handleTransactionComplete(transaction, null);
-                            notifyTransactionComplete(transaction);
-                            // } else {
-                            // Resend - add to a separate list so as not to impact iterator
-                            // transaction.resetTransaction();
-                            // retries.add(transaction);
-                            // }
-                        }
+                    if (lastTransaction == transaction) {
+                        // If this is the current transaction, then reset it.
+                        lastTransaction = null;
+                        logger.debug("TID {}: Transaction is current transaction, so clearing!!!!!",
+                                transaction.getTransactionId());
                     }
-                }
 
-                // Add retries to the queue
-                // for (ZWaveTransaction transaction : retries) {
-                // logger.debug("Resending... Transaction " + transaction.getTransactionId());
-                // addTransactionToQueue(transaction);
-                // }
+                    transaction.setTransactionCanceled();
+                    controller.handleTransactionComplete(transaction, null);
+                    notifyTransactionComplete(transaction);
+                }
 
                 // If there's no outstanding transaction, try and send one
                 sendNextMessage();
-                startTransactionTimer();
             }
         }
     }
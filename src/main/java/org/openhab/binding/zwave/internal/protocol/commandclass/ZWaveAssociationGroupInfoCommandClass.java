@@ -16,7 +16,6 @@ import static org.openhab.binding.zwave.internal.protocol.commandclass.ZWaveComm
 
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -138,7 +137,7 @@ public class ZWaveAssociationGroupInfoCommandClass extends ZWaveCommandClass
                 break;
             }
         }
-        byte[] strBuffer = Arrays.copyOfRange(payload.getPayloadBuffer(), 4, 4 + numBytes);
+        byte[] strBuffer = payload.getPayloadBuffer(4, 4 + numBytes);
         String groupName = null;
         try {
             groupName = new String(strBuffer, "UTF-8");
@@ -12,10 +12,6 @@
  */
 package org.openhab.binding.zwave.internal.protocol.commandclass;
 
-import java.nio.ByteBuffer;
-import java.util.Arrays;
-
-import org.openhab.binding.zwave.internal.protocol.SerialMessage;
 import org.openhab.binding.zwave.internal.protocol.ZWaveCommandClassPayload;
 import org.openhab.binding.zwave.internal.protocol.ZWaveController;
 import org.openhab.binding.zwave.internal.protocol.ZWaveEndpoint;
@@ -74,16 +70,13 @@ public class ZWaveCRC16EncapsulationCommandClass extends ZWaveCommandClass {
     // @ZWaveResponseHandler(id = CRC_ENCAPSULATION_ENCAP, name = "CRC_ENCAPSULATION_ENCAP")
     public ZWaveCommandClassPayload handleCrcEncap(ZWaveCommandClassPayload payload) {
         // calculate CRC
-        byte[] messageCrc = payload.getPayloadBuffer(payload.getPayloadLength() - 2, payload.getPayloadLength());
-        byte[] tocheck = payload.getPayloadBuffer(0, payload.getPayloadLength() - 2);
-
-        short calculatedCrc = crc_ccit(tocheck);
+        int length = payload.getPayloadLength() - 2;
+        int messageCrc = (payload.getPayloadByte(length) << 8) | payload.getPayloadByte(length + 1);
+        int calculatedCrc = crc_ccit(payload, length);
         // check if messageCrc = calculatedCrc
-        ByteBuffer byteBuffer = ByteBuffer.allocate(2);
-        byteBuffer.putShort(calculatedCrc);
-        if (!Arrays.equals(messageCrc, byteBuffer.array())) {
+        if (messageCrc != calculatedCrc) {
             logger.info("NODE {}: CRC check failed message contains {} but should be {}", getNode().getNodeId(),
-                    SerialMessage.bb2hex(messageCrc), SerialMessage.bb2hex(byteBuffer.array()));
+                    String.format("%04X", messageCrc), String.format("%04X", calculatedCrc));
             return null;
         }
 
@@ -130,10 +123,11 @@ public class ZWaveCRC16EncapsulationCommandClass extends ZWaveCommandClass {
          */
     }
 
-    private short crc_ccit(final byte[] args) {
+    private int crc_ccit(final ZWaveCommandClassPayload payload, final int length) {
         int crc = 0x1D0F;
         int polynomial = 0x1021;
-        for (byte b : args) {
+        for (int index = 0; index < length; index++) {
+            int b = payload.getPayloadByte(index);
             for (int i = 0; i < 8; i++) {
                 boolean bit = ((b >> (7 - i) & 1) == 1);
                 boolean c15 = ((crc >> 15 & 1) == 1);
@@ -145,7 +139,6 @@ public class ZWaveCRC16EncapsulationCommandClass extends ZWaveCommandClass {
             }
         }
 
-        crc &= 0xffff;
-        return (short) crc;
+        return crc & 0xffff;
     }
 }
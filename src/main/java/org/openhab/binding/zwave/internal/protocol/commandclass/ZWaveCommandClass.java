@@ -12,11 +12,16 @@
  */
 package org.openhab.binding.zwave.internal.protocol.commandclass;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -41,18 +46,33 @@ import com.thoughtworks.xstream.annotations.XStreamOmitField;
  */
 public abstract class ZWaveCommandClass {
 
-    private class ZWaveResponseHandlerMethod {
-        int id;
-        String name;
-        Method method;
+    private static final MethodType HANDLER_TYPE = MethodType.methodType(void.class, ZWaveCommandClass.class,
+            ZWaveCommandClassPayload.class, int.class);
 
-        ZWaveResponseHandlerMethod(int id, String name, Method method) {
+    static class ZWaveResponseHandlerMethod {
+        final int id;
+        final String name;
+        final MethodHandle handle;
+
+        ZWaveResponseHandlerMethod(int id, String name, MethodHandle handle) {
             this.id = id;
             this.name = name;
-            this.method = method;
+            this.handle = handle;
         }
     };
 
+    /**
+     * The response handler tables are built once for each command class type, and shared by all instances
+     */
+    private static class ResponseHandlerCache extends ClassValue<Map<Integer, ZWaveResponseHandlerMethod>> {
+        @Override
+        protected Map<Integer, ZWaveResponseHandlerMethod> computeValue(Class<?> type) {
+            return createResponseHandlers(type);
+        }
+    }
+
+    private static final ResponseHandlerCache responseHandlers = new ResponseHandlerCache();
+
     @XStreamOmitField
     Map<Integer, ZWaveResponseHandlerMethod> commands;
 
@@ -99,17 +119,8 @@ public abstract class ZWaveCommandClass {
     }
 
     public void initialise(ZWaveNode node, ZWaveController controller, ZWaveEndpoint endpoint) {
-        // Create the map of response command handlers
-        commands = new HashMap<Integer, ZWaveResponseHandlerMethod>();
-        Method[] methods = getClass().getMethods();
-        for (Method method : methods) {
-            ZWaveResponseHandler handler = method.getAnnotation(ZWaveResponseHandler.class);
-            if (handler != null) {
-                ZWaveResponseHandlerMethod handlerMethod = new ZWaveResponseHandlerMethod(handler.id(), handler.name(),
-                        method);
-                commands.put(handler.id(), handlerMethod);
-            }
-        }
+        // Get the map of response command handlers
+        commands = responseHandlers.get(getClass());
 
         this.node = node;
         this.controller = controller;
@@ -118,6 +129,38 @@ public abstract class ZWaveCommandClass {
                 endpoint == null ? 0 : endpoint.getEndpointId());
     }
 
+    /**
+     * Creates the map of response command handlers for a command class type. Only handlers taking the payload and
+     * endpoint are added - these are called through a {@link MethodHandle} to avoid the cost of reflection.
+     *
+     * @param type the command class type
+     * @return map of command ID to handler
+     */
+    private static Map<Integer, ZWaveResponseHandlerMethod> createResponseHandlers(Class<?> type) {
+        Map<Integer, ZWaveResponseHandlerMethod> handlers = new HashMap<Integer, ZWaveResponseHandlerMethod>();
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        for (Method method : type.getMethods()) {
+            ZWaveResponseHandler handler = method.getAnnotation(ZWaveResponseHandler.class);
+            if (handler == null) {
+                continue;
+            }
+
+            if (!Arrays.equals(method.getParameterTypes(), HANDLER_TYPE.dropParameterTypes(0, 1).parameterArray())) {
+                logger.debug("Command class {} handler {} has unsupported parameters", type.getSimpleName(),
+                        method.getName());
+                continue;
+            }
+
+            try {
+                MethodHandle handle = lookup.unreflect(method).asType(HANDLER_TYPE);
+                handlers.put(handler.id(), new ZWaveResponseHandlerMethod(handler.id(), handler.name(), handle));
+            } catch (IllegalAccessException e) {
+                logger.error("Command class {} handler {} is not accessible", type.getSimpleName(), method.getName());
+            }
+        }
+        return Collections.unmodifiableMap(handlers);
+    }
+
     /**
      * Returns the node this command class belongs to.
      *
@@ -253,6 +296,7 @@ public abstract class ZWaveCommandClass {
         if (commands == null) {
             logger.debug("NODE {}: Received {} V{} but class has no handlers.", getNode().getNodeId(),
                     getCommandClass(), getVersion());
+            return;
         }
 
         ZWaveResponseHandlerMethod commandMethod = commands.get(payload.getCommandClassCommand());
@@ -267,20 +311,23 @@ public abstract class ZWaveCommandClass {
         }
 
         logger.debug("NODE {}: Received {} V{} {}", getNode().getNodeId(), getCommandClass(), getVersion(),
-                commands.get(payload.getCommandClassCommand()).name);
+                commandMethod.name);
 
-        Object[] parms = { payload, endpoint };
         try {
-            commands.get(payload.getCommandClassCommand()).method.invoke(this, parms);
-        } catch (InvocationTargetException e) {
+            commandMethod.handle.invokeExact(this, payload, endpoint);
+        } catch (ArrayIndexOutOfBoundsException e) {
             // Handle exceptions from the command class processing
-            if (e.getCause() instanceof ArrayIndexOutOfBoundsException) {
-                logger.debug("NODE {}: ArrayIndexOutOfBoundsException {} V{} {} {}", getNode().getNodeId(),
-                        getCommandClass(), getVersion(), commands.get(payload.getCommandClassCommand()).name,
-                        SerialMessage.bb2hex(payload.getPayloadBuffer()));
-            }
-        } catch (IllegalAccessException | IllegalArgumentException e) {
-            logger.error("NODE {}: Error in handleApplicationCommandRequest", getNode().getNodeId(), e);
+            logger.debug("NODE {}: ArrayIndexOutOfBoundsException {} V{} {} {}", getNode().getNodeId(),
+                    getCommandClass(), getVersion(), commandMethod.name,
+                    SerialMessage.bb2hex(payload.getPayloadBuffer()));
+        } catch (Exception e) {
+            logger.warn("NODE {}: Exception in {} V{} {}", getNode().getNodeId(), getCommandClass(), getVersion(),
+                    commandMethod.name, e);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            // The handlers can only throw exceptions or errors
+            throw new IllegalStateException(e);
         }
     };
 
@@ -380,21 +427,22 @@ public abstract class ZWaveCommandClass {
     }
 
     /**
-     * Extract a decimal value from a byte array.
+     * Extract a decimal value from a payload.
      *
-     * @param buffer the buffer to be parsed.
+     * @param payload the payload to be parsed.
      * @param offset the offset at which to start reading
+     * @param size the number of bytes in the value
      * @return the extracted decimal value
      */
-    protected int extractValue(byte[] buffer, int offset, int size) {
+    protected int extractValue(ZWaveCommandClassPayload payload, int offset, int size) {
         int value = 0;
         for (int i = 0; i < size; ++i) {
             value <<= 8;
-            value |= buffer[offset + i] & 0xFF;
+            value |= payload.getPayloadByte(offset + i);
         }
 
         // Deal with sign extension. All values are signed
-        if ((buffer[offset] & 0x80) == 0x80) {
+        if ((payload.getPayloadByte(offset) & 0x80) == 0x80) {
             // MSB is signed
             if (size == 1) {
                 value |= 0xffffff00;
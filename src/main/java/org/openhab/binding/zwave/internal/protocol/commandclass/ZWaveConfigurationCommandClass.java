@@ -95,7 +95,7 @@ public class ZWaveConfigurationCommandClass extends ZWaveCommandClass {
 
         // Recover the data
         try {
-            int value = extractValue(payload.getPayloadBuffer(), 4, size);
+            int value = extractValue(payload, 4, size);
 
             logger.debug("NODE {}: Node configuration report, parameter = {}, value = {}, size = {}",
                     getNode().getNodeId(), parameter, value, size);
@@ -120,9 +120,9 @@ public class ZWaveMeterTblMonitorCommandClass extends ZWaveCommandClass
         int meterType = payload.getPayloadByte(2) & 0x3F;
         int rateType = (payload.getPayloadByte(2) & 0xC0) >> 6;
         int properties = payload.getPayloadByte(3);
-        int datasetSupported = extractValue(payload.getPayloadBuffer(), 4, 3);
-        int datasetSupportedHistory = extractValue(payload.getPayloadBuffer(), 7, 3);
-        int dataSupportedHistory = extractValue(payload.getPayloadBuffer(), 10, 3);
+        int datasetSupported = extractValue(payload, 4, 3);
+        int datasetSupportedHistory = extractValue(payload, 7, 3);
+        int dataSupportedHistory = extractValue(payload, 10, 3);
 
         logger.debug("NODE {}: meterType              : {} {}", getNode().getNodeId(), meterType,
                 MeterTblMonitorType.getMeterType(meterType));
@@ -145,8 +145,8 @@ public class ZWaveMeterTblMonitorCommandClass extends ZWaveCommandClass
         int rateType = payload.getPayloadByte(3) & 0x03;
         boolean operatingStatus = (payload.getPayloadByte(3) & 0x80) > 0;
 
-        int dataset = extractValue(payload.getPayloadBuffer(), 4, 3);
-        int year = extractValue(payload.getPayloadBuffer(), 7, 2);
+        int dataset = extractValue(payload, 4, 3);
+        int year = extractValue(payload, 7, 2);
         int month = payload.getPayloadByte(9);
         int day = payload.getPayloadByte(10);
         int hour = payload.getPayloadByte(11);
@@ -156,7 +156,7 @@ public class ZWaveMeterTblMonitorCommandClass extends ZWaveCommandClass
         int scaleIndex = payload.getPayloadByte(14) & 0x1F;
         int precision = (payload.getPayloadByte(14) & 0xE0) >> 5;
 
-        int valueRaw = extractValue(payload.getPayloadBuffer(), 15, 4);
+        int valueRaw = extractValue(payload, 15, 4);
 
         logger.trace("NODE {}: numReports:{}", getNode().getNodeId(), numReports);
         logger.trace("NODE {}: rateType  :{}", getNode().getNodeId(), rateType);
@@ -16,10 +16,9 @@ import java.security.GeneralSecurityException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
-import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
-import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 
 import org.openhab.binding.zwave.internal.protocol.SerialMessage;
@@ -30,6 +29,7 @@ import org.openhab.binding.zwave.internal.protocol.ZWaveNode;
 import org.openhab.binding.zwave.internal.protocol.ZWaveTransaction.TransactionPriority;
 import org.openhab.binding.zwave.internal.protocol.commandclass.impl.CommandClassSecurityV1;
 import org.openhab.binding.zwave.internal.protocol.security.ZWaveNonce;
+import org.openhab.binding.zwave.internal.protocol.security.ZWaveSecurityContext;
 import org.openhab.binding.zwave.internal.protocol.transaction.ZWaveCommandClassTransactionPayload;
 import org.openhab.binding.zwave.internal.protocol.transaction.ZWaveCommandClassTransactionPayloadBuilder;
 import org.slf4j.Logger;
@@ -48,26 +48,15 @@ public class ZWaveSecurityCommandClass extends ZWaveCommandClass {
     @XStreamOmitField
     private static final Logger logger = LoggerFactory.getLogger(ZWaveSecurityCommandClass.class);
 
-    private static final byte[] DERIVE_ENCRYPT_KEY = { (byte) 0xAA, (byte) 0xAA, (byte) 0xAA, (byte) 0xAA, (byte) 0xAA,
-            (byte) 0xAA, (byte) 0xAA, (byte) 0xAA, (byte) 0xAA, (byte) 0xAA, (byte) 0xAA, (byte) 0xAA, (byte) 0xAA,
-            (byte) 0xAA, (byte) 0xAA, (byte) 0xAA };
-    private static final byte[] DERIVE_AUTH_KEY = { 0x55, 0x55, 0x55, 0x55, 0x55, 0x55, 0x55, 0x55, 0x55, 0x55, 0x55,
-            0x55, 0x55, 0x55, 0x55, 0x55 };
-
     @XStreamOmitField
     private SecretKey networkKey;
 
+    // Cipher contexts derived from the network key used for transmit and receive
     @XStreamOmitField
-    private SecretKey txEncryptionKey;
-
-    @XStreamOmitField
-    private SecretKey txAuthenticationKey;
+    private ZWaveSecurityContext txContext;
 
     @XStreamOmitField
-    private SecretKey rxEncryptionKey;
-
-    @XStreamOmitField
-    private SecretKey rxAuthenticationKey;
+    private ZWaveSecurityContext rxContext;
 
     // Our last nonce we sent to the remove
     @XStreamOmitField
@@ -81,6 +70,15 @@ public class ZWaveSecurityCommandClass extends ZWaveCommandClass {
     @XStreamOmitField
     private byte lastTheirNonceId = (byte) 0xFF;
 
+    // Time we asked the remote to send a nonce with an encapsulated message, or 0 if no nonce is expected
+    @XStreamOmitField
+    private volatile long nonceRequestTime = 0;
+
+    /**
+     * Time to wait for a nonce requested with an encapsulated message before a separate NONCE_GET is sent
+     */
+    public static final long NONCE_REQUEST_TIMEOUT = 1000;
+
     private static final String AES = "AES";
 
     private static final List<Byte> securityRequired = Arrays.asList(new Byte[] {
@@ -259,6 +257,7 @@ public class ZWaveSecurityCommandClass extends ZWaveCommandClass {
 
         Map<String, Object> response = CommandClassSecurityV1.handleSecurityNonceReport(payload.getPayloadBuffer());
         byte[] nonceBytes = (byte[]) response.get("NONCE_BYTE");
+        nonceRequestTime = 0;
         if (lastTheirNonceId != nonceBytes[0]) {
             theirNonce = new ZWaveNonce(nonceBytes);
             lastTheirNonceId = nonceBytes[0];
@@ -271,6 +270,10 @@ public class ZWaveSecurityCommandClass extends ZWaveCommandClass {
 
     @ZWaveResponseHandler(id = CommandClassSecurityV1.SECURITY_NONCE_GET, name = "SECURITY_NONCE_GET")
     public void handleSecurityNonceGet(ZWaveCommandClassPayload payload, int endpoint) {
+        sendNonceReport();
+    }
+
+    private void sendNonceReport() {
         ourNonce = new ZWaveNonce();
         getController().enqueueNonce(new ZWaveCommandClassTransactionPayloadBuilder(getNode().getNodeId(),
                 CommandClassSecurityV1.getSecurityNonceReport(ourNonce.getNonceBytes()))
@@ -301,18 +304,20 @@ public class ZWaveSecurityCommandClass extends ZWaveCommandClass {
         System.arraycopy(ciphertextBytes, 2, initializationVector, 0, 8);
         System.arraycopy(ourNonce.getNonceBytes(), 0, initializationVector, 8, 8);
 
-        Cipher cipher;
+        ZWaveSecurityContext context = rxContext;
+        if (context == null) {
+            logger.debug("NODE {}: SECURITY_ERR Network key not set!", getNode().getNodeId());
+            return null;
+        }
+
         try {
             byte nodeid = (byte) getNode().getNodeId();
             byte ourid = (byte) getController().getOwnNodeId();
-            byte[] messageAuthenticationCode = generateMAC(rxAuthenticationKey, ciphertextBytes, nodeid, ourid,
+            byte[] messageAuthenticationCode = context.generateMAC(ciphertextBytes, nodeid, ourid,
                     initializationVector);
 
-            byte[] securePayload = new byte[ciphertextBytes.length - 19];
-            System.arraycopy(ciphertextBytes, 10, securePayload, 0, ciphertextBytes.length - 19);
-            cipher = Cipher.getInstance("AES/OFB/NoPadding");
-            cipher.init(Cipher.DECRYPT_MODE, rxEncryptionKey, new IvParameterSpec(initializationVector));
-            byte[] plaintextBytes = cipher.doFinal(securePayload);
+            byte[] plaintextBytes = context.decrypt(initializationVector, ciphertextBytes, 10,
+                    ciphertextBytes.length - 19);
             System.arraycopy(plaintextBytes, 0, ciphertextBytes, 10, plaintextBytes.length);
 
             Map<String, Object> response = CommandClassSecurityV1.handleSecurityMessageEncapsulation(ciphertextBytes);
@@ -333,6 +338,12 @@ public class ZWaveSecurityCommandClass extends ZWaveCommandClass {
             // Our nonce has been used - forget it
             ourNonce = null;
 
+            // The remote wants to send more secure messages, so give it a nonce without waiting for a NONCE_GET
+            if ((ciphertextBytes[1] & 0xff) == CommandClassSecurityV1.SECURITY_MESSAGE_ENCAPSULATION_NONCE_GET) {
+                logger.debug("NODE {}: NONCE requested with encapsulated message", getNode().getNodeId());
+                sendNonceReport();
+            }
+
             logger.debug("NODE {}: SECURITY_RXD {}", getNode().getNodeId(),
                     SerialMessage.bb2hex((byte[]) response.get("COMMAND_BYTE")));
 
@@ -345,9 +356,28 @@ public class ZWaveSecurityCommandClass extends ZWaveCommandClass {
     }
 
     public byte[] getSecurityMessageEncapsulation(byte[] payload) {
+        return getSecurityMessageEncapsulation(payload, false);
+    }
+
+    /**
+     * Encapsulates a message using the nonce received from the remote. If requestNonce is set, the message is sent
+     * with SECURITY_MESSAGE_ENCAPSULATION_NONCE_GET so that the remote will send a new nonce once it has processed the
+     * message - this allows consecutive secure messages to be sent without a NONCE_GET round trip for each one.
+     *
+     * @param payload the message to encapsulate
+     * @param requestNonce true to request a new nonce from the remote
+     * @return the encapsulated message or null on error
+     */
+    public byte[] getSecurityMessageEncapsulation(byte[] payload, boolean requestNonce) {
         // tmpNonce.setNonceBytes(new byte[] { 0, 0, 0, 0, 0, 0, 0, 0 });
         // theirNonce.setNonceBytes(new byte[] { 1, 1, 1, 1, 1, 1, 1, 1 });
 
+        ZWaveSecurityContext context = txContext;
+        if (context == null) {
+            logger.debug("NODE {}: SECURITY_ERR Network key not set!", getNode().getNodeId());
+            return null;
+        }
+
         // Create the initialisation vector which is an 8 byte random number followed by their nonce
         ZWaveNonce tmpNonce = new ZWaveNonce();
         byte[] initializationVector = new byte[16];
@@ -358,18 +388,24 @@ public class ZWaveSecurityCommandClass extends ZWaveCommandClass {
             // Create the message payload with a fake MAC
             // This puts all the elements in the correct part of the packet for encryption
             byte[] messageAuthenticationCode = new byte[] { 0, 0, 0, 0, 0, 0, 0, 0 };
-            byte[] securePayload = CommandClassSecurityV1.getSecurityMessageEncapsulation(tmpNonce.getNonceBytes(), 0,
-                    false, false, payload, (int) theirNonce.getId(), messageAuthenticationCode);
+            byte[] securePayload;
+            if (requestNonce) {
+                securePayload = CommandClassSecurityV1.getSecurityMessageEncapsulationNonceGet(
+                        tmpNonce.getNonceBytes(), 0, false, false, payload, (int) theirNonce.getId(),
+                        messageAuthenticationCode);
+            } else {
+                securePayload = CommandClassSecurityV1.getSecurityMessageEncapsulation(tmpNonce.getNonceBytes(), 0,
+                        false, false, payload, (int) theirNonce.getId(), messageAuthenticationCode);
+            }
 
             // Now encrypt the secure part of the securePayload
-            Cipher encryptCipher = Cipher.getInstance("AES/OFB/NoPadding");
-            encryptCipher.init(Cipher.ENCRYPT_MODE, txEncryptionKey, new IvParameterSpec(initializationVector));
-            byte[] ciphertextBytes = encryptCipher.doFinal(securePayload, 10, securePayload.length - 19);
+            byte[] ciphertextBytes = context.encrypt(initializationVector, securePayload, 10,
+                    securePayload.length - 19);
             System.arraycopy(ciphertextBytes, 0, securePayload, 10, securePayload.length - 19);
 
             // Now generate the MAC
-            messageAuthenticationCode = generateMAC(txAuthenticationKey, securePayload,
-                    (byte) getController().getOwnNodeId(), (byte) getNode().getNodeId(), initializationVector);
+            messageAuthenticationCode = context.generateMAC(securePayload, (byte) getController().getOwnNodeId(),
+                    (byte) getNode().getNodeId(), initializationVector);
 
             // And copy the MAC to the end of securePayload
             System.arraycopy(messageAuthenticationCode, 0, securePayload, securePayload.length - 8, 8);
@@ -378,6 +414,7 @@ public class ZWaveSecurityCommandClass extends ZWaveCommandClass {
 
             // We've used this nonce, so forget it
             theirNonce = null;
+            nonceRequestTime = requestNonce ? System.nanoTime() : 0;
 
             return securePayload;
         } catch (GeneralSecurityException e) {
@@ -436,39 +473,19 @@ public class ZWaveSecurityCommandClass extends ZWaveCommandClass {
         logger.debug("NODE {}: setupNetworkKey useSchemeZero={}", getNode().getNodeId(), useSchemeZero);
 
         try {
-            SecretKey key;
-            Cipher cipher;
             if (useSchemeZero) {
                 logger.info("NODE {}: Using Scheme0 Network Key for Key Exchange since we are in inclusion mode.",
                         getNode().getNodeId());
                 // Scheme0 network key is a key of all zeros
-                key = new SecretKeySpec(new byte[16], AES);
+                txContext = new ZWaveSecurityContext(new byte[16]);
             } else {
                 // Use the real key
                 logger.trace("NODE {}: Using Real Network Key.", getNode().getNodeId());
-                key = networkKey;
+                txContext = new ZWaveSecurityContext(networkKey);
             }
 
-            // Derived the message encryption key from the network key
-            cipher = Cipher.getInstance("AES/ECB/NoPadding");
-            cipher.init(Cipher.ENCRYPT_MODE, key);
-            txEncryptionKey = new SecretKeySpec(cipher.doFinal(DERIVE_ENCRYPT_KEY), AES);
-
-            // Derived the message auth key from the network key
-            cipher.init(Cipher.ENCRYPT_MODE, key);
-            txAuthenticationKey = new SecretKeySpec(cipher.doFinal(DERIVE_AUTH_KEY), AES);
-
             // Always use the real key for RX
-
-            // Derived the message encryption key from the network key
-            cipher = Cipher.getInstance("AES/ECB/NoPadding");
-            cipher.init(Cipher.ENCRYPT_MODE, networkKey);
-            rxEncryptionKey = new SecretKeySpec(cipher.doFinal(DERIVE_ENCRYPT_KEY), AES);
-
-            // Derived the message auth key from the network key
-            cipher.init(Cipher.ENCRYPT_MODE, networkKey);
-            rxAuthenticationKey = new SecretKeySpec(cipher.doFinal(DERIVE_AUTH_KEY), AES);
-
+            rxContext = useSchemeZero ? new ZWaveSecurityContext(networkKey) : txContext;
         } catch (GeneralSecurityException e) {
             logger.error("NODE {}: Error building derived keys {}", getNode().getNodeId(), e);
         }
@@ -483,81 +500,29 @@ public class ZWaveSecurityCommandClass extends ZWaveCommandClass {
             logger.debug("NODE {}: isNonceAvailable = null", getNode().getNodeId());
             return false;
         }
-        return theirNonce.isValid();
+        if (!theirNonce.isValid()) {
+            // The nonce has expired - forget it
+            theirNonce = null;
+            return false;
+        }
+        return true;
     }
 
     /**
-     * Generate the MAC (Message Authentication Code) for an encrypted message
+     * Checks if a nonce has been requested from the remote with an encapsulated message and is still expected. While
+     * the nonce is expected, secure messages should wait for it rather than sending another NONCE_GET.
      *
-     * @param key
-     * @param payload
-     * @param sendingNode
-     * @param receivingNode
-     * @param iv
-     * @return
-     * @throws GeneralSecurityException
+     * @return true if a nonce is expected from the remote
      */
-    public byte[] generateMAC(SecretKey key, byte[] payload, byte sendingNode, byte receivingNode, byte[] iv)
-            throws GeneralSecurityException {
-        // Build a buffer containing a 4-byte header and the encrypted message data
-        // padded with zeros to a 16-byte boundary.
-        byte[] tempAuth = new byte[16];
-
-        int bufferSize = payload.length - 19 + 4; // -19 for packet overhead, +4 to account for the header
-        byte[] buffer = new byte[bufferSize];
-        buffer[0] = payload[1]; // Command byte
-        buffer[1] = sendingNode;
-        buffer[2] = receivingNode;
-        buffer[3] = (byte) (payload.length - 19);
-
-        System.arraycopy(payload, 10, buffer, 4, payload.length - 19);
-
-        // Encrypt the IV with ECB
-        Cipher encryptCipher = Cipher.getInstance("AES/ECB/NoPadding");
-        encryptCipher.init(Cipher.ENCRYPT_MODE, key);
-        tempAuth = encryptCipher.doFinal(iv);
-
-        // Working buffer
-        byte[] encpck = new byte[16];
-        int block = 0;
-
-        // Now XOR the buffer with our encrypted IV
-        for (int i = 0; i < bufferSize; i++) {
-            encpck[block] = buffer[i];
-            block++;
-
-            // If we hit a block boundary, then XOR and encrypt
-            if (block == 16) {
-                for (int j = 0; j < 16; j++) {
-                    // here we do our xor
-                    tempAuth[j] = (byte) (encpck[j] ^ tempAuth[j]);
-                    encpck[j] = 0;
-                }
-                // Reset encpck for good measure
-                Arrays.fill(encpck, (byte) 0);
-
-                // Reset our block counter back to 0
-                block = 0;
-
-                encryptCipher.init(Cipher.ENCRYPT_MODE, key);
-                tempAuth = encryptCipher.doFinal(tempAuth);
-            }
+    public boolean isNonceRequestPending() {
+        long requestTime = nonceRequestTime;
+        if (requestTime == 0) {
+            return false;
         }
-
-        // Add any left over data that isn't a full block size
-        if (block > 0) {
-            for (int i = 0; i < 16; i++) {
-                // encpck from block to 16 is already guaranteed to be 0 so its safe to XOR it with out tempAuth
-                tempAuth[i] = (byte) (encpck[i] ^ tempAuth[i]);
-            }
-
-            encryptCipher.init(Cipher.ENCRYPT_MODE, key);
-            tempAuth = encryptCipher.doFinal(tempAuth);
+        if (System.nanoTime() - requestTime >= TimeUnit.MILLISECONDS.toNanos(NONCE_REQUEST_TIMEOUT)) {
+            nonceRequestTime = 0;
+            return false;
         }
-
-        // We only care about the first 8 bytes of tempAuth as the MAC
-        byte[] mac = new byte[8];
-        System.arraycopy(tempAuth, 0, mac, 0, 8);
-        return mac;
+        return true;
     }
 }
@@ -0,0 +1,329 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.zwave.internal.protocol.initialization;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openhab.binding.zwave.internal.protocol.ZWaveNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Limits the number of node initialisation transactions that are active in the network at once, and tracks the
+ * progress of the initialisation.
+ * <p>
+ * The initialisation stages for each node are run as a task on a bounded pool of threads owned by the scheduler,
+ * rather than on a thread per node. If all threads are busy, the task waits for a thread, with mains powered nodes
+ * ahead of battery nodes.
+ * <p>
+ * Each {@link ZWaveNodeInitStageAdvancer} must acquire a permit from the scheduler before it sends a transaction, and
+ * release it once the transaction completes. The permit is not held while the advancer is backing off between retries,
+ * so nodes that are not responding do not block the initialisation of other nodes. When permits are not available,
+ * mains powered nodes are given priority over battery nodes, and otherwise permits are granted in the order they were
+ * requested.
+ * <p>
+ * Nodes that are asleep do not require a permit - their transactions are held by the transaction manager until the
+ * node wakes up, and do not load the network until then. A node may fall asleep while it waits for a permit, or while
+ * its transaction is queued, so the node is checked again once the permit is granted, and the transaction manager
+ * calls {@link #transactionParked(int)} to return the permit when it parks a transaction for a sleeping node.
+ *
+ * @author rmichalak - Initial contribution
+ *
+ */
+public class ZWaveNodeInitScheduler {
+    private final Logger logger = LoggerFactory.getLogger(ZWaveNodeInitScheduler.class);
+
+    public static final int DEFAULT_MAX_ACTIVE = 2;
+    public static final int DEFAULT_MAX_THREADS = 16;
+
+    private static final long THREAD_KEEPALIVE = 60;
+
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<Waiter>();
+    private int maxActive;
+    private int active = 0;
+    private long sequence = 0;
+    private final Set<Integer> permitHolders = new HashSet<Integer>();
+
+    private final Set<Integer> initialisingNodes = Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+    private final Set<Integer> completeNodes = Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong taskSequence = new AtomicLong();
+
+    private class Waiter implements Comparable<Waiter> {
+        private final int priority;
+        private final long sequence;
+
+        Waiter(int priority, long sequence) {
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Waiter other) {
+            if (priority != other.priority) {
+                return priority < other.priority ? -1 : 1;
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private class InitTask implements Runnable, Comparable<InitTask> {
+        private final int nodeId;
+        private final int priority;
+        private final long sequence;
+        private final Runnable stages;
+
+        InitTask(ZWaveNode node, Runnable stages) {
+            this.nodeId = node.getNodeId();
+            this.priority = (node.isListening() || node.isFrequentlyListening()) ? 0 : 1;
+            this.sequence = taskSequence.getAndIncrement();
+            this.stages = stages;
+        }
+
+        @Override
+        public void run() {
+            try {
+                stages.run();
+            } catch (Exception e) {
+                logger.error("NODE {}: Error in initialisation", nodeId, e);
+            }
+        }
+
+        @Override
+        public int compareTo(InitTask other) {
+            if (priority != other.priority) {
+                return priority < other.priority ? -1 : 1;
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * Creates a scheduler
+     *
+     * @param maxActive the maximum number of initialisation transactions that may be active at once
+     */
+    public ZWaveNodeInitScheduler(int maxActive) {
+        this(maxActive, DEFAULT_MAX_THREADS);
+    }
+
+    /**
+     * Creates a scheduler
+     *
+     * @param maxActive the maximum number of initialisation transactions that may be active at once
+     * @param maxThreads the maximum number of threads used to run the initialisation stages
+     */
+    public ZWaveNodeInitScheduler(int maxActive, int maxThreads) {
+        this.maxActive = Math.max(maxActive, 1);
+
+        maxThreads = Math.max(maxThreads, 1);
+        executor = new ThreadPoolExecutor(maxThreads, maxThreads, THREAD_KEEPALIVE, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<Runnable>(), new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "ZWaveNodeInit");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Runs the initialisation stages for a node. The stages are run on the scheduler's thread pool, and wait for a
+     * thread if all threads are busy.
+     *
+     * @param node the {@link ZWaveNode} being initialised
+     * @param stages the {@link Runnable} that runs the initialisation stages
+     */
+    public void execute(ZWaveNode node, Runnable stages) {
+        try {
+            executor.execute(new InitTask(node, stages));
+        } catch (RejectedExecutionException e) {
+            logger.debug("NODE {}: Initialisation scheduler is shutdown - initialisation not started",
+                    node.getNodeId());
+        }
+    }
+
+    /**
+     * Stops the initialisation threads. Initialisation that is in progress is interrupted.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Sets the maximum number of initialisation transactions that may be active at once
+     *
+     * @param maxActive the maximum number of active transactions. Values less than 1 are set to 1.
+     */
+    public synchronized void setMaxActive(int maxActive) {
+        this.maxActive = Math.max(maxActive, 1);
+        logger.debug("Node initialisation limit set to {}", this.maxActive);
+        notifyAll();
+    }
+
+    /**
+     * Gets the maximum number of initialisation transactions that may be active at once
+     *
+     * @return the maximum number of active transactions
+     */
+    public synchronized int getMaxActive() {
+        return maxActive;
+    }
+
+    /**
+     * Gets the number of initialisation transactions that are currently active
+     *
+     * @return the number of active transactions
+     */
+    public synchronized int getActive() {
+        return active;
+    }
+
+    /**
+     * Waits for a permit to send an initialisation transaction to the node. If this returns true, the caller must call
+     * {@link #release(ZWaveNode)} once the transaction is complete.
+     *
+     * @param node the {@link ZWaveNode} being initialised
+     * @return true if a permit was acquired, or false if the node is asleep and no permit is required
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public synchronized boolean acquire(ZWaveNode node) throws InterruptedException {
+        if (!node.isAwake()) {
+            return false;
+        }
+
+        int priority = (node.isListening() || node.isFrequentlyListening()) ? 0 : 1;
+        Waiter waiter = new Waiter(priority, sequence++);
+        waiters.add(waiter);
+        try {
+            while (active >= maxActive || waiters.peek() != waiter) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            waiters.remove(waiter);
+            notifyAll();
+            throw e;
+        }
+
+        waiters.poll();
+
+        // The node may have gone to sleep while we were waiting
+        if (!node.isAwake()) {
+            logger.debug("NODE {}: Node went to sleep while waiting for initialisation permit", node.getNodeId());
+            notifyAll();
+            return false;
+        }
+
+        permitHolders.add(node.getNodeId());
+        active++;
+        return true;
+    }
+
+    /**
+     * Releases a permit acquired with {@link #acquire(ZWaveNode)}. If the permit has already been returned because the
+     * transaction was parked, this does nothing.
+     *
+     * @param node the {@link ZWaveNode} that holds the permit
+     */
+    public void release(ZWaveNode node) {
+        releasePermit(node.getNodeId());
+    }
+
+    /**
+     * Called by the transaction manager when a transaction is parked because the node is asleep. Any permit held by
+     * the node is returned so that the sleeping node does not block the initialisation of other nodes while its
+     * transaction waits for the node to wake up.
+     *
+     * @param nodeId the node ID
+     */
+    public void transactionParked(int nodeId) {
+        if (releasePermit(nodeId)) {
+            logger.debug("NODE {}: Initialisation permit returned as transaction was parked", nodeId);
+        }
+    }
+
+    private synchronized boolean releasePermit(int nodeId) {
+        if (!permitHolders.remove(nodeId)) {
+            return false;
+        }
+        active--;
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Records that the initialisation of a node has started
+     *
+     * @param nodeId the node ID
+     */
+    public void initialisationStarted(int nodeId) {
+        completeNodes.remove(nodeId);
+        initialisingNodes.add(nodeId);
+    }
+
+    /**
+     * Records that the initialisation of a node has completed, and logs the overall progress
+     *
+     * @param nodeId the node ID
+     */
+    public void initialisationComplete(int nodeId) {
+        if (!initialisingNodes.remove(nodeId)) {
+            return;
+        }
+        completeNodes.add(nodeId);
+
+        int complete = completeNodes.size();
+        int total = complete + initialisingNodes.size();
+        logger.info("NODE {}: Initialisation complete. {} of {} nodes initialised.", nodeId, complete, total);
+    }
+
+    /**
+     * Gets the number of nodes whose initialisation is waiting for a thread
+     *
+     * @return the number of queued nodes
+     */
+    public int getQueuedNodeCount() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Gets the number of nodes that are initialising. This includes nodes that are waiting for a thread.
+     *
+     * @return the number of nodes that have not completed initialisation
+     */
+    public int getInitialisingNodeCount() {
+        return initialisingNodes.size();
+    }
+
+    /**
+     * Gets the number of nodes that have completed initialisation
+     *
+     * @return the number of nodes that have completed initialisation
+     */
+    public int getCompleteNodeCount() {
+        return completeNodes.size();
+    }
+}
@@ -12,8 +12,6 @@
  */
 package org.openhab.binding.zwave.internal.protocol.initialization;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
@@ -121,14 +119,12 @@ import org.slf4j.LoggerFactory;
 public class ZWaveNodeInitStageAdvancer {
     private static final Logger logger = LoggerFactory.getLogger(ZWaveNodeInitStageAdvancer.class);
 
-    private static final ZWaveNodeSerializer nodeSerializer = new ZWaveNodeSerializer();
+    private static final ZWaveNodeSerializer nodeSerializer = ZWaveNodeSerializer.getSharedSerializer();
 
     private final ZWaveNode node;
     private final ZWaveController controller;
     private boolean restoredFromConfigfile = false;
 
-    private Thread initialisationThread;
-
     private final long INCLUSION_TIMER = 20000000000L;
 
     private boolean initRunning = true;
@@ -172,9 +168,16 @@ public class ZWaveNodeInitStageAdvancer {
         }
         logger.debug("NODE {}: Starting initialisation from {}", node.getNodeId(), startStage);
 
+        ZWaveNodeInitScheduler initScheduler = controller.getNodeInitScheduler();
+        if (initScheduler == null) {
+            logger.debug("NODE {}: No initialisation scheduler - initialisation not started", node.getNodeId());
+            return;
+        }
+        initScheduler.initialisationStarted(node.getNodeId());
+
         queryStageTimeStamp = Calendar.getInstance().getTime();
 
-        initialisationThread = new Thread() {
+        initScheduler.execute(node, new Runnable() {
             @Override
             public void run() {
                 try {
@@ -217,10 +220,7 @@ public class ZWaveNodeInitStageAdvancer {
                     logger.error("NODE {}: Error in initialization thread", node.getNodeId(), e);
                 }
             }
-        };
-        initialisationThread.setName("ZWaveNode" + node.getNodeId() + "Init"
-                + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS")));
-        initialisationThread.start();
+        });
     }
 
     /**
@@ -242,6 +242,8 @@ public class ZWaveNodeInitStageAdvancer {
         // Remember the start time
         long timerStart = System.nanoTime();
 
+        ZWaveNodeInitScheduler initScheduler = controller.getNodeInitScheduler();
+
         // Use a random backoff so all nodes aren't synced.
         Random rand = new Random();
         int backoff = 250;
@@ -254,11 +256,25 @@ public class ZWaveNodeInitStageAdvancer {
                 return false;
             }
 
-            if (transaction instanceof ZWaveCommandClassTransactionPayload) {
-                logger.debug("NODE {}: ZWaveCommandClassTransactionPayload - send to node", node.getNodeId());
-                response = node.sendTransaction((ZWaveCommandClassTransactionPayload) transaction, 0);
-            } else {
-                response = controller.sendTransaction(transaction);
+            // Limit the number of initialisation transactions active in the network
+            boolean permit;
+            try {
+                permit = initScheduler != null && initScheduler.acquire(node);
+            } catch (InterruptedException e) {
+                break;
+            }
+
+            try {
+                if (transaction instanceof ZWaveCommandClassTransactionPayload) {
+                    logger.debug("NODE {}: ZWaveCommandClassTransactionPayload - send to node", node.getNodeId());
+                    response = node.sendTransaction((ZWaveCommandClassTransactionPayload) transaction, 0);
+                } else {
+                    response = controller.sendTransaction(transaction);
+                }
+            } finally {
+                if (permit) {
+                    initScheduler.release(node);
+                }
             }
 
             logger.debug("NODE {}: Node Init response ({}) {}", node.getNodeId(), retryCount, response);
@@ -1149,11 +1165,18 @@ public class ZWaveNodeInitStageAdvancer {
             case DYNAMIC_END:
             case HEAL_END:
             case DONE:
-                nodeSerializer.serializeNode(node);
+                nodeSerializer.serializeNode(node, controller.isBinarySnapshot());
                 break;
             default:
                 break;
         }
+
+        if (currentStage == ZWaveNodeInitStage.DONE) {
+            ZWaveNodeInitScheduler initScheduler = controller.getNodeInitScheduler();
+            if (initScheduler != null) {
+                initScheduler.initialisationComplete(node.getNodeId());
+            }
+        }
     }
 
     /**
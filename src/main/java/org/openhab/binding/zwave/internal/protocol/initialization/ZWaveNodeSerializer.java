@@ -12,14 +12,36 @@
  */
 package org.openhab.binding.zwave.internal.protocol.initialization;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.smarthome.config.core.ConfigConstants;
 import org.openhab.binding.zwave.ZWaveBindingConstants;
@@ -32,27 +54,117 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.XStreamException;
+import com.thoughtworks.xstream.io.binary.BinaryStreamDriver;
 import com.thoughtworks.xstream.io.xml.PrettyPrintWriter;
 import com.thoughtworks.xstream.io.xml.StaxDriver;
 
 /**
  * ZWaveNodeSerializer class. Serializes nodes to XML and back again.
+ * <p>
+ * A single shared serializer is used within the binding (see {@link #getSharedSerializer()}) so that the XStream
+ * annotations are only processed once. XStream is thread safe once configured, so nodes may be serialized and
+ * deserialized from multiple threads - only access to the same node file is serialised.
+ * <p>
+ * The XML file is always the master copy of the node. When binary snapshots are requested by the caller, a compact
+ * binary copy of the node is written alongside the XML file. Since the serializer is shared by all controllers, the
+ * snapshot setting is passed in with each call rather than held by the serializer. The snapshot holds a SHA-256 hash
+ * of the XML it was created from, and is only used to restore the node if the XML file content is unchanged - if the
+ * XML has been edited or replaced, the XML is parsed and the snapshot is rewritten. The XML file is still read to
+ * check the hash, but is not parsed when the snapshot is used.
+ * <p>
+ * Nodes are written behind on a background thread. {@link #serializeNode(ZWaveNode, boolean)} marshals the node on the
+ * calling thread, so the node is not read while it is being changed elsewhere, and the file is written after a short
+ * delay, and no more than once every {@link #WRITE_INTERVAL} milliseconds. Changes made while a write is pending
+ * replace the pending data, so the write always saves the latest state of the node. Files are written to a temporary
+ * file which is then renamed over the existing file, so a crash or power failure leaves either the old or the new file,
+ * and never a truncated one. Since the serializer is shared, a controller that is disposed calls {@link #flush(int)} to
+ * write its own pending nodes, and {@link #shutdownSharedSerializer()} is called when the binding is stopped to write
+ * any remaining nodes and stop the background thread.
  *
  * @author Chris Jackson
  * @author Jan-Willem Spuij
  */
 public class ZWaveNodeSerializer {
     private static final Logger logger = LoggerFactory.getLogger(ZWaveNodeSerializer.class);
+
+    private static final int SNAPSHOT_MAGIC = 0x5A574E53;
+    private static final int SNAPSHOT_VERSION = 3;
+    private static final String SNAPSHOT_HASH = "SHA-256";
+
+    /**
+     * Delay in milliseconds between a node being marked as dirty and it being written
+     */
+    private static final long WRITE_DELAY = 2000;
+
+    /**
+     * Minimum time in milliseconds between writes of the same node
+     */
+    private static final long WRITE_INTERVAL = 30000;
+
+    private static ZWaveNodeSerializer sharedSerializer;
+
     private final XStream stream = new XStream(new StaxDriver());
+    private final BinaryStreamDriver binaryDriver = new BinaryStreamDriver();
     private final String folderName;
+    private final Map<String, Object> fileLocks = new ConcurrentHashMap<>();
+
+    /**
+     * Maximum time in milliseconds to wait for a write in progress when shutting down
+     */
+    private static final long SHUTDOWN_TIMEOUT = 5000;
+
+    // The write thread, pending writes and the time of the last write, keyed by file name. Guarded by pendingWrites.
+    private ScheduledExecutorService writeExecutor;
+    private final Map<String, PendingWrite> pendingWrites = new HashMap<>();
+    private final Map<String, Long> lastWrites = new HashMap<>();
+
+    private class PendingWrite {
+        private final int homeId;
+        private final int nodeId;
+        private byte[] xml;
+        private byte[] snapshot;
+        private ScheduledFuture<?> future;
+
+        PendingWrite(int homeId, int nodeId) {
+            this.homeId = homeId;
+            this.nodeId = nodeId;
+        }
+    }
+
+    /**
+     * Gets the serializer that is shared by all users within the binding. The serializer is created the first time it
+     * is requested.
+     *
+     * @return the shared {@link ZWaveNodeSerializer}
+     */
+    public static synchronized ZWaveNodeSerializer getSharedSerializer() {
+        if (sharedSerializer == null) {
+            sharedSerializer = new ZWaveNodeSerializer(
+                    ConfigConstants.getUserDataFolder() + "/" + ZWaveBindingConstants.BINDING_ID);
+        }
+        return sharedSerializer;
+    }
+
+    /**
+     * Writes any pending nodes and stops the background write thread of the shared serializer, if it has been created.
+     * This is called when the binding is stopped.
+     */
+    public static synchronized void shutdownSharedSerializer() {
+        if (sharedSerializer != null) {
+            sharedSerializer.shutdown();
+        }
+    }
 
     /**
      * Constructor. Creates a new instance of the {@link ZWaveNodeSerializer} class.
+     *
+     * @param folderName the folder in which to store the node files
      */
-    public ZWaveNodeSerializer() {
+    protected ZWaveNodeSerializer(String folderName) {
         logger.trace("Initializing ZWaveNodeSerializer.");
 
-        folderName = ConfigConstants.getUserDataFolder() + "/" + ZWaveBindingConstants.BINDING_ID;
+        this.folderName = folderName;
 
         final File folder = new File(folderName);
 
@@ -88,77 +200,291 @@ public class ZWaveNodeSerializer {
     }
 
     /**
-     * Serializes an XML tree of a {@link ZWaveNode}
+     * Serializes an XML tree of a {@link ZWaveNode}. The node is marshalled immediately and written behind - if a write
+     * of the node is already pending, the new data replaces the data of that write.
      *
      * @param node
      *            the node to serialize
+     * @param binarySnapshot
+     *            true to write a binary snapshot of the node alongside the XML
      */
-    public void serializeNode(ZWaveNode node) {
-        synchronized (stream) {
-            // Don't serialise if the stage is not at least finished static
-            // If we do serialise when we haven't completed the static stages
-            // then when the binding starts it will have incomplete information!
-            if (node.getNodeInitStage().isStaticComplete() == false) {
-                logger.debug("NODE {}: Serialise aborted as static stages not complete", node.getNodeId());
+    public void serializeNode(ZWaveNode node, boolean binarySnapshot) {
+        // Don't serialise if the stage is not at least finished static
+        // If we do serialise when we haven't completed the static stages
+        // then when the binding starts it will have incomplete information!
+        if (node.getNodeInitStage().isStaticComplete() == false) {
+            logger.debug("NODE {}: Serialise aborted as static stages not complete", node.getNodeId());
+            return;
+        }
+
+        // Marshal the node now so the background thread doesn't read the node while it is being updated
+        byte[] xml;
+        byte[] snapshot = null;
+        try {
+            xml = marshalXml(node);
+            if (binarySnapshot) {
+                snapshot = marshalSnapshot(node);
+            }
+        } catch (IOException | XStreamException e) {
+            logger.error("NODE {}: Error serializing node: {}", node.getNodeId(), e.getMessage());
+            return;
+        }
+
+        final File file = getXmlFile(node.getHomeId(), node.getNodeId());
+        synchronized (pendingWrites) {
+            PendingWrite pending = pendingWrites.get(file.getName());
+            if (pending != null) {
+                logger.debug("NODE {}: Serialize already pending", node.getNodeId());
+                pending.xml = xml;
+                pending.snapshot = snapshot;
                 return;
             }
 
-            File file = new File(this.folderName,
-                    String.format("network_%08x__node_%d.xml", node.getHomeId(), node.getNodeId()));
-            BufferedWriter writer = null;
+            long delay = WRITE_DELAY;
+            Long lastWrite = lastWrites.get(file.getName());
+            if (lastWrite != null) {
+                delay = Math.max(delay, lastWrite + WRITE_INTERVAL - getTime());
+            }
 
-            logger.debug("NODE {}: Serializing to file {}", node.getNodeId(), file.getPath());
+            logger.debug("NODE {}: Serializing to file {} in {}ms", node.getNodeId(), file.getPath(), delay);
+            pending = new PendingWrite(node.getHomeId(), node.getNodeId());
+            pending.xml = xml;
+            pending.snapshot = snapshot;
+            pending.future = getWriteExecutor().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    writePending(file);
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+            pendingWrites.put(file.getName(), pending);
+        }
+    }
+
+    /**
+     * Writes all pending nodes immediately, then stops the background write thread. This blocks until the nodes have
+     * been written. The thread is restarted if another node is serialized.
+     */
+    public void shutdown() {
+        ScheduledExecutorService executor;
+        synchronized (pendingWrites) {
+            executor = writeExecutor;
+            writeExecutor = null;
+        }
 
+        if (executor != null) {
+            executor.shutdownNow();
             try {
-                writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
-                stream.marshal(node, new PrettyPrintWriter(writer));
-                writer.flush();
-            } catch (IOException e) {
-                logger.error("NODE {}: Error serializing to file: {}", node.getNodeId(), e.getMessage());
-            } finally {
-                if (writer != null) {
-                    try {
-                        writer.close();
-                    } catch (IOException e) {
-                    }
+                if (!executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                    logger.debug("Timeout waiting for node serializer to stop");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Any writes that were waiting on the executor are written now
+        flush();
+    }
+
+    /**
+     * Writes all pending nodes immediately. This blocks until the nodes have been written.
+     */
+    public void flush() {
+        List<String> files;
+        synchronized (pendingWrites) {
+            files = new ArrayList<>(pendingWrites.keySet());
+        }
+        for (String file : files) {
+            writePending(new File(folderName, file));
+        }
+    }
+
+    /**
+     * Writes the pending nodes of a single network immediately. This blocks until the nodes have been written. Pending
+     * nodes of other networks are left to be written behind as normal.
+     *
+     * @param homeId the home ID of the network
+     */
+    public void flush(int homeId) {
+        List<String> files = new ArrayList<>();
+        synchronized (pendingWrites) {
+            for (Map.Entry<String, PendingWrite> pending : pendingWrites.entrySet()) {
+                if (pending.getValue().homeId == homeId) {
+                    files.add(pending.getKey());
+                }
+            }
+        }
+        for (String file : files) {
+            writePending(new File(folderName, file));
+        }
+    }
+
+    /**
+     * Returns true if a node has changes that are waiting to be written
+     *
+     * @param homeId the home ID of the network
+     * @param nodeId the node ID
+     * @return true if the node is waiting to be written
+     */
+    public boolean isWritePending(int homeId, int nodeId) {
+        synchronized (pendingWrites) {
+            return pendingWrites.containsKey(getXmlFile(homeId, nodeId).getName());
+        }
+    }
+
+    private ScheduledExecutorService getWriteExecutor() {
+        if (writeExecutor == null) {
+            writeExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "ZWaveNodeSerializer");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return writeExecutor;
+    }
+
+    private void writePending(File file) {
+        synchronized (getFileLock(file)) {
+            PendingWrite pending;
+            synchronized (pendingWrites) {
+                pending = pendingWrites.remove(file.getName());
+                if (pending == null) {
+                    return;
                 }
+                pending.future.cancel(false);
+                lastWrites.put(file.getName(), getTime());
+            }
+
+            logger.debug("NODE {}: Serializing to file {}", pending.nodeId, file.getPath());
+            try {
+                writeFile(file, pending.xml);
+            } catch (IOException e) {
+                logger.error("NODE {}: Error serializing to file: {}", pending.nodeId, e.getMessage());
+                return;
+            }
+
+            if (pending.snapshot != null) {
+                writeSnapshot(getSnapshotFile(pending.homeId, pending.nodeId), pending.nodeId, pending.xml,
+                        pending.snapshot);
             }
         }
     }
 
+    private byte[] marshalXml(ZWaveNode node) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        Writer writer = new OutputStreamWriter(buffer, StandardCharsets.UTF_8);
+        stream.marshal(node, new PrettyPrintWriter(writer));
+        writer.flush();
+        return buffer.toByteArray();
+    }
+
+    private byte[] marshalSnapshot(ZWaveNode node) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(buffer);
+        stream.marshal(node, binaryDriver.createWriter(output));
+        output.flush();
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Writes a file atomically. The data is written to a temporary file which is then renamed over the original file.
+     *
+     * @param file the {@link File} to write
+     * @param data the data to write
+     * @throws IOException
+     */
+    private void writeFile(File file, byte[] data) throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (FileOutputStream output = new FileOutputStream(tempFile)) {
+            output.write(data);
+            output.getFD().sync();
+        }
+
+        try {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private byte[] getHash(byte[] data) throws IOException {
+        try {
+            return MessageDigest.getInstance(SNAPSHOT_HASH).digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("Snapshot hash not available", e);
+        }
+    }
+
+    private long getTime() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
     /**
      * Deserializes an XML tree of a {@link ZWaveNode}
      *
+     * @param homeId
+     *            the home ID of the network
      * @param nodeId
      *            the number of the node to deserialize
+     * @param binarySnapshot
+     *            true to restore the node from its binary snapshot if it matches the XML, and to write the snapshot if
+     *            it doesn't
      * @return returns the Node or null in case Serialization failed.
      */
-    public ZWaveNode deserializeNode(int homeId, int nodeId) {
-        synchronized (stream) {
-            File file = new File(folderName, String.format("network_%08x__node_%d.xml", homeId, nodeId));
-            BufferedReader reader = null;
+    public ZWaveNode deserializeNode(int homeId, int nodeId, boolean binarySnapshot) {
+        File file = getXmlFile(homeId, nodeId);
+        logger.debug("NODE {}: Serializing from file {}", nodeId, file.getPath());
 
-            logger.debug("NODE {}: Serializing from file {}", nodeId, file.getPath());
+        // Make sure the file is up to date if there are changes waiting to be written
+        writePending(file);
 
+        synchronized (getFileLock(file)) {
             if (!file.exists()) {
                 logger.debug("NODE {}: Error serializing from file: file does not exist.", nodeId);
                 return null;
             }
 
+            long start = System.nanoTime();
+            byte[] xml;
             try {
-                reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
-                return (ZWaveNode) stream.fromXML(reader);
+                xml = Files.readAllBytes(file.toPath());
+            } catch (IOException e) {
+                logger.debug("NODE {}: Error serializing from file: {}", nodeId, e.getMessage());
+                return null;
+            }
+
+            if (binarySnapshot) {
+                ZWaveNode node = readSnapshot(homeId, nodeId, xml);
+                if (node != null) {
+                    logger.debug("NODE {}: Restored from snapshot in {}us", nodeId,
+                            TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                    return node;
+                }
+            }
+
+            ZWaveNode node;
+            try (Reader reader = new InputStreamReader(new ByteArrayInputStream(xml), StandardCharsets.UTF_8)) {
+                node = (ZWaveNode) stream.fromXML(reader);
             } catch (IOException e) {
                 logger.debug("NODE {}: Error serializing from file: {}", nodeId, e.getMessage());
-            } finally {
-                if (reader != null) {
-                    try {
-                        reader.close();
-                    } catch (IOException e) {
-                    }
+                return null;
+            }
+            logger.debug("NODE {}: Restored from XML in {}us", nodeId,
+                    TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+
+            // Create the snapshot so that the next restore can use it
+            if (binarySnapshot && node != null) {
+                try {
+                    writeSnapshot(getSnapshotFile(homeId, nodeId), nodeId, xml, marshalSnapshot(node));
+                } catch (IOException | XStreamException e) {
+                    logger.debug("NODE {}: Error writing snapshot: {}", nodeId, e.getMessage());
                 }
             }
-            return null;
+            return node;
         }
     }
 
@@ -169,10 +495,108 @@ public class ZWaveNodeSerializer {
      * @return true if the file was deleted
      */
     public boolean deleteNode(int homeId, int nodeId) {
-        synchronized (stream) {
-            File file = new File(folderName, String.format("network_%08x__node_%d.xml", homeId, nodeId));
+        File file = getXmlFile(homeId, nodeId);
+        synchronized (getFileLock(file)) {
+            synchronized (pendingWrites) {
+                PendingWrite pending = pendingWrites.remove(file.getName());
+                if (pending != null) {
+                    pending.future.cancel(false);
+                }
+                lastWrites.remove(file.getName());
+            }
 
+            getSnapshotFile(homeId, nodeId).delete();
             return file.delete();
         }
     }
+
+    private File getXmlFile(int homeId, int nodeId) {
+        return new File(folderName, String.format("network_%08x__node_%d.xml", homeId, nodeId));
+    }
+
+    private File getSnapshotFile(int homeId, int nodeId) {
+        return new File(folderName, String.format("network_%08x__node_%d.bin", homeId, nodeId));
+    }
+
+    private Object getFileLock(File file) {
+        Object lock = fileLocks.get(file.getName());
+        if (lock == null) {
+            Object newLock = new Object();
+            lock = fileLocks.putIfAbsent(file.getName(), newLock);
+            if (lock == null) {
+                lock = newLock;
+            }
+        }
+        return lock;
+    }
+
+    /**
+     * Writes the binary snapshot of the node. The snapshot header records the hash of the XML that the snapshot
+     * matches, so the snapshot can be validated without parsing the XML file.
+     *
+     * @param file the snapshot {@link File}
+     * @param nodeId the node ID
+     * @param xml the XML data for the node, as written to the XML file
+     * @param snapshot the binary data for the node
+     */
+    private void writeSnapshot(File file, int nodeId, byte[] xml, byte[] snapshot) {
+        try {
+            byte[] hash = getHash(xml);
+
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            DataOutputStream output = new DataOutputStream(buffer);
+            output.writeInt(SNAPSHOT_MAGIC);
+            output.writeInt(SNAPSHOT_VERSION);
+            output.writeInt(hash.length);
+            output.write(hash);
+            output.write(snapshot);
+            output.flush();
+
+            writeFile(file, buffer.toByteArray());
+        } catch (IOException e) {
+            logger.debug("NODE {}: Error writing snapshot: {}", nodeId, e.getMessage());
+            file.delete();
+        }
+    }
+
+    /**
+     * Reads the binary snapshot of the node if it matches the XML. The hash in the snapshot header is compared with the
+     * hash of the XML - the XML is not parsed.
+     *
+     * @param homeId the home ID of the network
+     * @param nodeId the node to read
+     * @param xml the content of the XML file for the node
+     * @return the {@link ZWaveNode} or null if there is no valid snapshot matching the XML
+     */
+    private ZWaveNode readSnapshot(int homeId, int nodeId, byte[] xml) {
+        File file = getSnapshotFile(homeId, nodeId);
+        if (!file.exists()) {
+            return null;
+        }
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (input.readInt() != SNAPSHOT_MAGIC || input.readInt() != SNAPSHOT_VERSION) {
+                logger.debug("NODE {}: Snapshot version is not supported", nodeId);
+                return null;
+            }
+
+            byte[] xmlHash = getHash(xml);
+            if (input.readInt() != xmlHash.length) {
+                logger.debug("NODE {}: Snapshot does not match XML file", nodeId);
+                return null;
+            }
+            byte[] hash = new byte[xmlHash.length];
+            input.readFully(hash);
+            if (!Arrays.equals(hash, xmlHash)) {
+                logger.debug("NODE {}: Snapshot does not match XML file", nodeId);
+                return null;
+            }
+
+            logger.debug("NODE {}: Restoring from snapshot {}", nodeId, file.getPath());
+            return (ZWaveNode) stream.unmarshal(binaryDriver.createReader(input));
+        } catch (IOException | XStreamException | ClassCastException e) {
+            logger.debug("NODE {}: Error reading snapshot: {}", nodeId, e.getMessage());
+            return null;
+        }
+    }
 }
@@ -24,15 +24,24 @@ import java.util.concurrent.TimeUnit;
  *
  */
 public class ZWaveNonce {
-    private final long RESEED_INTERVAL = TimeUnit.HOURS.toMillis(6);
+    private static final long RESEED_INTERVAL = TimeUnit.HOURS.toMillis(6);
     private final long timeout = 12000000000L;
     private byte[] nonceBytes;
     private long timer;
 
+    // A single random source is shared by all nonces, and is only recreated when it is reseeded
     private static SecureRandom secureRandom = null;
     private static long reseedAt = 0;
 
     public ZWaveNonce() {
+        nonceBytes = new byte[8];
+        generateRandomBytes(nonceBytes);
+
+        // Start the timer
+        this.timer = System.nanoTime();
+    }
+
+    private static synchronized void generateRandomBytes(byte[] bytes) {
         if (System.currentTimeMillis() > reseedAt) {
             try {
                 secureRandom = SecureRandom.getInstance("SHA1PRNG", "SUN");
@@ -45,11 +54,7 @@ public class ZWaveNonce {
 
             reseedAt = System.currentTimeMillis() + RESEED_INTERVAL;
         }
-        nonceBytes = new byte[8];
-        secureRandom.nextBytes(nonceBytes);
-
-        // Start the timer
-        this.timer = System.nanoTime();
+        secureRandom.nextBytes(bytes);
     }
 
     public ZWaveNonce(byte[] nonceBytes) {
@@ -0,0 +1,153 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.zwave.internal.protocol.security;
+
+import java.security.GeneralSecurityException;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Holds the ciphers used to encrypt, decrypt and authenticate security encapsulated frames with a network key.
+ * <p>
+ * The encryption and authentication keys are derived from the network key when the context is created, and the
+ * ciphers are created once and reused for every frame. The MAC cipher is initialised once with the authentication key,
+ * and the encryption cipher is only reinitialised with the IV for each frame - the key schedule is not recalculated.
+ * <p>
+ * Ciphers are not thread safe, so all operations are synchronized on the context.
+ *
+ * @author rmichalak - Initial contribution
+ *
+ */
+public class ZWaveSecurityContext {
+    private static final String AES = "AES";
+
+    private static final byte[] DERIVE_ENCRYPT_KEY = { (byte) 0xAA, (byte) 0xAA, (byte) 0xAA, (byte) 0xAA, (byte) 0xAA,
+            (byte) 0xAA, (byte) 0xAA, (byte) 0xAA, (byte) 0xAA, (byte) 0xAA, (byte) 0xAA, (byte) 0xAA, (byte) 0xAA,
+            (byte) 0xAA, (byte) 0xAA, (byte) 0xAA };
+    private static final byte[] DERIVE_AUTH_KEY = { 0x55, 0x55, 0x55, 0x55, 0x55, 0x55, 0x55, 0x55, 0x55, 0x55, 0x55,
+            0x55, 0x55, 0x55, 0x55, 0x55 };
+
+    // Size of the security header (command class, command and IV) and trailer (nonce ID and MAC)
+    private static final int PACKET_OVERHEAD = 19;
+    private static final int PAYLOAD_OFFSET = 10;
+
+    private final SecretKey encryptionKey;
+    private final Cipher encryptionCipher;
+    private final Cipher macCipher;
+    private final byte[] macBlock = new byte[16];
+
+    /**
+     * Creates a context for a network key
+     *
+     * @param networkKey the network key
+     * @throws GeneralSecurityException if the ciphers can't be created
+     */
+    public ZWaveSecurityContext(SecretKey networkKey) throws GeneralSecurityException {
+        Cipher deriveCipher = Cipher.getInstance("AES/ECB/NoPadding");
+        deriveCipher.init(Cipher.ENCRYPT_MODE, networkKey);
+        encryptionKey = new SecretKeySpec(deriveCipher.doFinal(DERIVE_ENCRYPT_KEY), AES);
+        SecretKey authenticationKey = new SecretKeySpec(deriveCipher.doFinal(DERIVE_AUTH_KEY), AES);
+
+        encryptionCipher = Cipher.getInstance("AES/OFB/NoPadding");
+
+        macCipher = Cipher.getInstance("AES/ECB/NoPadding");
+        macCipher.init(Cipher.ENCRYPT_MODE, authenticationKey);
+    }
+
+    /**
+     * Creates a context for a network key
+     *
+     * @param networkKey the 16 byte network key
+     * @throws GeneralSecurityException if the ciphers can't be created
+     */
+    public ZWaveSecurityContext(byte[] networkKey) throws GeneralSecurityException {
+        this(new SecretKeySpec(networkKey, AES));
+    }
+
+    /**
+     * Encrypts data with the encryption key
+     *
+     * @param iv the 16 byte initialisation vector
+     * @param input the buffer holding the data
+     * @param offset the offset of the data in the buffer
+     * @param length the length of the data
+     * @return the encrypted data
+     * @throws GeneralSecurityException
+     */
+    public synchronized byte[] encrypt(byte[] iv, byte[] input, int offset, int length)
+            throws GeneralSecurityException {
+        encryptionCipher.init(Cipher.ENCRYPT_MODE, encryptionKey, new IvParameterSpec(iv));
+        return encryptionCipher.doFinal(input, offset, length);
+    }
+
+    /**
+     * Decrypts data with the encryption key
+     *
+     * @param iv the 16 byte initialisation vector
+     * @param input the buffer holding the data
+     * @param offset the offset of the data in the buffer
+     * @param length the length of the data
+     * @return the decrypted data
+     * @throws GeneralSecurityException
+     */
+    public synchronized byte[] decrypt(byte[] iv, byte[] input, int offset, int length)
+            throws GeneralSecurityException {
+        encryptionCipher.init(Cipher.DECRYPT_MODE, encryptionKey, new IvParameterSpec(iv));
+        return encryptionCipher.doFinal(input, offset, length);
+    }
+
+    /**
+     * Generate the MAC (Message Authentication Code) for an encrypted message. This is a CBC-MAC of a 4 byte header
+     * and the encrypted data, padded with zeros to a 16 byte boundary, using the encrypted IV as the first block.
+     *
+     * @param payload the security encapsulation frame
+     * @param sendingNode the ID of the sending node
+     * @param receivingNode the ID of the receiving node
+     * @param iv the 16 byte initialisation vector
+     * @return the 8 byte MAC
+     * @throws GeneralSecurityException
+     */
+    public synchronized byte[] generateMAC(byte[] payload, byte sendingNode, byte receivingNode, byte[] iv)
+            throws GeneralSecurityException {
+        int dataLength = payload.length - PACKET_OVERHEAD;
+        byte[] header = { payload[1], sendingNode, receivingNode, (byte) dataLength };
+
+        // Encrypt the IV with ECB
+        macCipher.doFinal(iv, 0, 16, macBlock, 0);
+
+        // XOR each block of the header and data into the MAC, and encrypt it
+        // Any partial block at the end is padded with zeros, which leaves the MAC unchanged before it's encrypted
+        int block = 0;
+        for (int i = 0; i < header.length + dataLength; i++) {
+            byte value = i < header.length ? header[i] : payload[PAYLOAD_OFFSET + i - header.length];
+            macBlock[block] ^= value;
+            block++;
+
+            if (block == 16) {
+                macCipher.doFinal(macBlock, 0, 16, macBlock, 0);
+                block = 0;
+            }
+        }
+        if (block > 0) {
+            macCipher.doFinal(macBlock, 0, 16, macBlock, 0);
+        }
+
+        // We only care about the first 8 bytes as the MAC
+        byte[] mac = new byte[8];
+        System.arraycopy(macBlock, 0, mac, 0, 8);
+        return mac;
+    }
+}
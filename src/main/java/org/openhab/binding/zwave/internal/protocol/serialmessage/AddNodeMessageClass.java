@@ -56,11 +56,6 @@ public class AddNodeMessageClass extends ZWaveCommandProcessor {
     private final int OPTION_HIGH_POWER = 0x80;
     private final int OPTION_NETWORK_WIDE = 0x40;
 
-    private Basic basic;
-    private Generic generic;
-    private Specific specific;
-    private List<CommandClass> commandClasses;
-
     public ZWaveSerialPayload doRequestStart(boolean highPower, boolean networkWide) {
         logger.debug("Setting controller into INCLUSION mode, highPower:{} networkWide:{}.", highPower, networkWide);
 
@@ -110,9 +105,8 @@ public class AddNodeMessageClass extends ZWaveCommandProcessor {
                     break;
                 }
                 logger.debug("NODE {}: Adding slave.", incomingMessage.getMessagePayloadByte(2));
-                processNodeInformation(incomingMessage);
-                zController.notifyEventListeners(new ZWaveInclusionEvent(ZWaveInclusionState.IncludeSlaveFound,
-                        incomingMessage.getMessagePayloadByte(2), basic, generic, specific, commandClasses));
+                zController.notifyEventListeners(
+                        processNodeInformation(ZWaveInclusionState.IncludeSlaveFound, incomingMessage));
                 break;
 
             case ADD_NODE_STATUS_ADDING_CONTROLLER:
@@ -120,9 +114,8 @@ public class AddNodeMessageClass extends ZWaveCommandProcessor {
                     break;
                 }
                 logger.debug("NODE {}: Adding controller.", incomingMessage.getMessagePayloadByte(2));
-                processNodeInformation(incomingMessage);
-                zController.notifyEventListeners(new ZWaveInclusionEvent(ZWaveInclusionState.IncludeControllerFound,
-                        incomingMessage.getMessagePayloadByte(2), basic, generic, specific, commandClasses));
+                zController.notifyEventListeners(
+                        processNodeInformation(ZWaveInclusionState.IncludeControllerFound, incomingMessage));
                 break;
 
             case ADD_NODE_STATUS_PROTOCOL_DONE:
@@ -153,14 +146,15 @@ public class AddNodeMessageClass extends ZWaveCommandProcessor {
         return true;
     }
 
-    private void processNodeInformation(SerialMessage incomingMessage) throws ZWaveSerialMessageException {
+    private ZWaveInclusionEvent processNodeInformation(ZWaveInclusionState state, SerialMessage incomingMessage)
+            throws ZWaveSerialMessageException {
         int length = incomingMessage.getMessagePayloadByte(3);
 
-        basic = Basic.getBasic(incomingMessage.getMessagePayloadByte(4));
-        generic = Generic.getGeneric(incomingMessage.getMessagePayloadByte(5));
-        specific = Specific.getSpecific(generic, incomingMessage.getMessagePayloadByte(6));
+        Basic basic = Basic.getBasic(incomingMessage.getMessagePayloadByte(4));
+        Generic generic = Generic.getGeneric(incomingMessage.getMessagePayloadByte(5));
+        Specific specific = Specific.getSpecific(generic, incomingMessage.getMessagePayloadByte(6));
 
-        commandClasses = new ArrayList<CommandClass>();
+        List<CommandClass> commandClasses = new ArrayList<CommandClass>();
 
         for (int i = 7; i < length + 4; i++) {
             int data = incomingMessage.getMessagePayloadByte(i);
@@ -173,5 +167,7 @@ public class AddNodeMessageClass extends ZWaveCommandProcessor {
             commandClasses.add(commandClass);
         }
 
+        return new ZWaveInclusionEvent(state, incomingMessage.getMessagePayloadByte(2), basic, generic, specific,
+                commandClasses);
     }
 }
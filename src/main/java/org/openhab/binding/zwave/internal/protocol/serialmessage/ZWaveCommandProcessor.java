@@ -12,10 +12,12 @@
  */
 package org.openhab.binding.zwave.internal.protocol.serialmessage;
 
-import java.lang.reflect.Constructor;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
 
 import org.openhab.binding.zwave.internal.protocol.SerialMessage;
+import org.openhab.binding.zwave.internal.protocol.SerialMessage.SerialMessageClass;
 import org.openhab.binding.zwave.internal.protocol.ZWaveController;
 import org.openhab.binding.zwave.internal.protocol.ZWaveSerialMessageException;
 import org.openhab.binding.zwave.internal.protocol.ZWaveTransaction;
@@ -39,7 +41,7 @@ import org.slf4j.LoggerFactory;
 public abstract class ZWaveCommandProcessor {
     private static final Logger logger = LoggerFactory.getLogger(ZWaveCommandProcessor.class);
 
-    private static HashMap<SerialMessage.SerialMessageClass, Class<? extends ZWaveCommandProcessor>> messageMap = null;
+    private static final Map<SerialMessageClass, ZWaveCommandProcessor> messageMap = createMessageMap();
 
     public ZWaveCommandProcessor() {
     }
@@ -92,64 +94,68 @@ public abstract class ZWaveCommandProcessor {
     }
 
     /**
-     * Returns the message processor for the specified message class
+     * Returns the message processor for the specified message class.
+     * <p>
+     * Processors that only handle the message they are passed are shared, and the same instance is returned for every
+     * message. Processors that hold the result of a controller request for the controller to read are created for each
+     * message.
      *
      * @param serialMessage The message class required to be processed
      * @return The message processor
      */
     public static ZWaveCommandProcessor getMessageDispatcher(SerialMessage.SerialMessageClass serialMessage) {
-        if (messageMap == null) {
-            messageMap = new HashMap<SerialMessage.SerialMessageClass, Class<? extends ZWaveCommandProcessor>>();
-            messageMap.put(SerialMessage.SerialMessageClass.AddNodeToNetwork, AddNodeMessageClass.class);
-            messageMap.put(SerialMessage.SerialMessageClass.ApplicationCommandHandler,
-                    ApplicationCommandMessageClass.class);
-            messageMap.put(SerialMessage.SerialMessageClass.ApplicationUpdate, ApplicationUpdateMessageClass.class);
-            messageMap.put(SerialMessage.SerialMessageClass.AssignReturnRoute, AssignReturnRouteMessageClass.class);
-            messageMap.put(SerialMessage.SerialMessageClass.AssignSucReturnRoute,
-                    AssignSucReturnRouteMessageClass.class);
-            messageMap.put(SerialMessage.SerialMessageClass.DeleteReturnRoute, DeleteReturnRouteMessageClass.class);
-            messageMap.put(SerialMessage.SerialMessageClass.DeleteSUCReturnRoute,
-                    DeleteSucReturnRouteMessageClass.class);
-            messageMap.put(SerialMessage.SerialMessageClass.GetRoutingInfo, GetRoutingInfoMessageClass.class);
-            messageMap.put(SerialMessage.SerialMessageClass.GetVersion, GetVersionMessageClass.class);
-            messageMap.put(SerialMessage.SerialMessageClass.GetSucNodeId, GetSucNodeIdMessageClass.class);
-            messageMap.put(SerialMessage.SerialMessageClass.GetControllerCapabilities,
-                    GetControllerCapabilitiesMessageClass.class);
-            messageMap.put(SerialMessage.SerialMessageClass.IdentifyNode, IdentifyNodeMessageClass.class);
-            messageMap.put(SerialMessage.SerialMessageClass.MemoryGetId, MemoryGetIdMessageClass.class);
-            messageMap.put(SerialMessage.SerialMessageClass.RemoveFailedNodeID, RemoveFailedNodeMessageClass.class);
-            messageMap.put(SerialMessage.SerialMessageClass.IsFailedNodeID, IsFailedNodeMessageClass.class);
-            messageMap.put(SerialMessage.SerialMessageClass.RemoveNodeFromNetwork, RemoveNodeMessageClass.class);
-            messageMap.put(SerialMessage.SerialMessageClass.ReplaceFailedNode, ReplaceFailedNodeMessageClass.class);
-            messageMap.put(SerialMessage.SerialMessageClass.RequestNetworkUpdate,
-                    RequestNetworkUpdateMessageClass.class);
-            messageMap.put(SerialMessage.SerialMessageClass.RequestNodeInfo, RequestNodeInfoMessageClass.class);
-            messageMap.put(SerialMessage.SerialMessageClass.RequestNodeNeighborUpdate,
-                    RequestNodeNeighborUpdateMessageClass.class);
-            messageMap.put(SerialMessage.SerialMessageClass.SendData, SendDataMessageClass.class);
-            messageMap.put(SerialMessage.SerialMessageClass.SerialApiGetCapabilities,
-                    SerialApiGetCapabilitiesMessageClass.class);
-            messageMap.put(SerialMessage.SerialMessageClass.SerialApiGetInitData,
-                    SerialApiGetInitDataMessageClass.class);
-            messageMap.put(SerialMessage.SerialMessageClass.SerialApiSetTimeouts,
-                    SerialApiSetTimeoutsMessageClass.class);
-            messageMap.put(SerialMessage.SerialMessageClass.SerialApiSoftReset, SerialApiSoftResetMessageClass.class);
-            messageMap.put(SerialMessage.SerialMessageClass.SetSucNodeID, SetSucNodeMessageClass.class);
-            messageMap.put(SerialMessage.SerialMessageClass.SetDefault, ControllerSetDefaultMessageClass.class);
+        if (serialMessage == null) {
+            return null;
         }
 
-        Constructor<? extends ZWaveCommandProcessor> constructor;
-        try {
-            if (messageMap.get(serialMessage) == null) {
-                logger.warn("SerialMessage class {} is not implemented!", serialMessage);
-                return null;
-            }
-            constructor = messageMap.get(serialMessage).getConstructor();
-            return constructor.newInstance();
-        } catch (Exception e) {
-            logger.debug("Command processor error");
+        switch (serialMessage) {
+            case GetControllerCapabilities:
+                return new GetControllerCapabilitiesMessageClass();
+            case GetSucNodeId:
+                return new GetSucNodeIdMessageClass();
+            case GetVersion:
+                return new GetVersionMessageClass();
+            case MemoryGetId:
+                return new MemoryGetIdMessageClass();
+            case SerialApiGetCapabilities:
+                return new SerialApiGetCapabilitiesMessageClass();
+            case SerialApiGetInitData:
+                return new SerialApiGetInitDataMessageClass();
+            default:
+                break;
         }
 
-        return null;
+        ZWaveCommandProcessor processor = messageMap.get(serialMessage);
+        if (processor == null) {
+            logger.warn("SerialMessage class {} is not implemented!", serialMessage);
+        }
+        return processor;
+    }
+
+    private static Map<SerialMessageClass, ZWaveCommandProcessor> createMessageMap() {
+        Map<SerialMessageClass, ZWaveCommandProcessor> map = new EnumMap<SerialMessageClass, ZWaveCommandProcessor>(
+                SerialMessageClass.class);
+        map.put(SerialMessageClass.AddNodeToNetwork, new AddNodeMessageClass());
+        map.put(SerialMessageClass.ApplicationCommandHandler, new ApplicationCommandMessageClass());
+        map.put(SerialMessageClass.ApplicationUpdate, new ApplicationUpdateMessageClass());
+        map.put(SerialMessageClass.AssignReturnRoute, new AssignReturnRouteMessageClass());
+        map.put(SerialMessageClass.AssignSucReturnRoute, new AssignSucReturnRouteMessageClass());
+        map.put(SerialMessageClass.DeleteReturnRoute, new DeleteReturnRouteMessageClass());
+        map.put(SerialMessageClass.DeleteSUCReturnRoute, new DeleteSucReturnRouteMessageClass());
+        map.put(SerialMessageClass.GetRoutingInfo, new GetRoutingInfoMessageClass());
+        map.put(SerialMessageClass.IdentifyNode, new IdentifyNodeMessageClass());
+        map.put(SerialMessageClass.RemoveFailedNodeID, new RemoveFailedNodeMessageClass());
+        map.put(SerialMessageClass.IsFailedNodeID, new IsFailedNodeMessageClass());
+        map.put(SerialMessageClass.RemoveNodeFromNetwork, new RemoveNodeMessageClass());
+        map.put(SerialMessageClass.ReplaceFailedNode, new ReplaceFailedNodeMessageClass());
+        map.put(SerialMessageClass.RequestNetworkUpdate, new RequestNetworkUpdateMessageClass());
+        map.put(SerialMessageClass.RequestNodeInfo, new RequestNodeInfoMessageClass());
+        map.put(SerialMessageClass.RequestNodeNeighborUpdate, new RequestNodeNeighborUpdateMessageClass());
+        map.put(SerialMessageClass.SendData, new SendDataMessageClass());
+        map.put(SerialMessageClass.SerialApiSetTimeouts, new SerialApiSetTimeoutsMessageClass());
+        map.put(SerialMessageClass.SerialApiSoftReset, new SerialApiSoftResetMessageClass());
+        map.put(SerialMessageClass.SetSucNodeID, new SetSucNodeMessageClass());
+        map.put(SerialMessageClass.SetDefault, new ControllerSetDefaultMessageClass());
+        return Collections.unmodifiableMap(map);
     }
 }
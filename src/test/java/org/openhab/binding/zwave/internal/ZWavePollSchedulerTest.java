@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.zwave.internal;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.openhab.binding.zwave.internal.ZWavePollScheduler.PollListener;
+import org.openhab.binding.zwave.internal.ZWavePollScheduler.QueueMonitor;
+
+/**
+ *
+ * @author rmichalak - Initial contribution
+ *
+ */
+public class ZWavePollSchedulerTest {
+    private static final long PERIOD = 60000;
+
+    private long time = 1000000;
+    private int queueLength = 0;
+    private final List<Integer> polls = new ArrayList<Integer>();
+
+    private ZWavePollScheduler createScheduler() {
+        return new ZWavePollScheduler(new QueueMonitor() {
+            @Override
+            public int getSendQueueLength() {
+                return queueLength;
+            }
+        }) {
+            @Override
+            protected long now() {
+                return time;
+            }
+        };
+    }
+
+    private PollListener createListener(final int nodeId) {
+        return new PollListener() {
+            @Override
+            public void poll(boolean periodic) {
+                polls.add(nodeId);
+            }
+        };
+    }
+
+    @Test
+    public void spreadPolls() {
+        ZWavePollScheduler scheduler = createScheduler();
+        for (int nodeId = 1; nodeId <= 4; nodeId++) {
+            scheduler.addNode(nodeId, createListener(nodeId), PERIOD);
+        }
+
+        // Nodes are spread evenly across the period
+        assertEquals(time, scheduler.getNextPoll(1));
+        assertEquals(time + PERIOD / 2, scheduler.getNextPoll(2));
+        assertEquals(time + PERIOD / 4, scheduler.getNextPoll(3));
+        assertEquals(time + PERIOD * 3 / 4, scheduler.getNextPoll(4));
+
+        scheduler.tick();
+        assertEquals(1, polls.size());
+        assertEquals(time + PERIOD, scheduler.getNextPoll(1));
+
+        time += PERIOD / 4;
+        scheduler.tick();
+        assertEquals(2, polls.size());
+        assertEquals(3, (int) polls.get(1));
+
+        // Removed nodes are not polled
+        scheduler.removeNode(2);
+        assertEquals(-1, scheduler.getNextPoll(2));
+        time += PERIOD / 4;
+        scheduler.tick();
+        assertEquals(2, polls.size());
+
+        // A new node fills the largest gap
+        scheduler.addNode(5, createListener(5), PERIOD);
+        assertEquals(time, scheduler.getNextPoll(5));
+    }
+
+    @Test
+    public void deferWhenQueueIsBusy() {
+        ZWavePollScheduler scheduler = createScheduler();
+        scheduler.setQueueWatermark(5);
+        scheduler.addNode(1, createListener(1), PERIOD);
+        scheduler.addNode(2, createListener(2), PERIOD);
+
+        time += PERIOD / 2;
+        queueLength = 6;
+        scheduler.tick();
+        assertEquals(0, polls.size());
+
+        // Deferred polls are sent when the queue is below the watermark, and don't skip their next period
+        queueLength = 5;
+        time += 1000;
+        scheduler.tick();
+        assertEquals(2, polls.size());
+        assertEquals(1, (int) polls.get(0));
+        assertEquals(2, (int) polls.get(1));
+        assertEquals(time - 1000 + PERIOD / 2, scheduler.getNextPoll(1));
+        assertEquals(time - 1000 + PERIOD, scheduler.getNextPoll(2));
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.zwave.internal;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+import org.eclipse.smarthome.core.thing.ThingTypeUID;
+import org.junit.Test;
+
+/**
+ * Test the precomputed product index
+ *
+ * @author rmichalak - Initial contribution
+ *
+ */
+public class ZWaveProductIndexFileTest {
+
+    @Test
+    public void createIndex() throws Exception {
+        ZWaveProductIndex index = ZWaveProductIndexFile.createIndex(new File("src/main/resources/ESH-INF/thing"));
+
+        assertTrue(index.getThingTypes().contains(new ThingTypeUID("zwave:serial_zstick")));
+        assertTrue(index.getThingTypes().contains(new ThingTypeUID("zwave:device")));
+        assertTrue(index.size() > index.getThingTypes().size() / 2);
+
+        // AEON Labs DSB05 (0086:0002:0005)
+        ZWaveProduct product = index.findProduct(0x86, 2, 5, "1.0");
+        assertNotNull(product);
+        assertEquals(new ThingTypeUID("zwave:aeon_dsb05_00_000"), product.getThingTypeUID());
+    }
+
+    @Test
+    public void writeAndRead() throws IOException {
+        ZWaveProductIndex index = new ZWaveProductIndex();
+        index.addThingType(new ThingTypeUID("zwave:first"));
+        index.addThingType(new ThingTypeUID("zwave:second"));
+        index.addProduct(new ZWaveProduct(new ThingTypeUID("zwave:first"), 1, 2, 3, "1.2", "1.7"));
+        index.addProduct(new ZWaveProduct(new ThingTypeUID("zwave:second"), 1, 2, null, null, null));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ZWaveProductIndexFile.write(index, output);
+        ZWaveProductIndex readIndex = ZWaveProductIndexFile.read(new ByteArrayInputStream(output.toByteArray()));
+
+        assertEquals(index.getThingTypes(), readIndex.getThingTypes());
+        assertEquals(2, readIndex.size());
+        assertEquals(new ThingTypeUID("zwave:first"), readIndex.findProduct(1, 2, 3, "1.5").getThingTypeUID());
+        assertEquals(new ThingTypeUID("zwave:second"), readIndex.findProduct(1, 2, 3, "1.8").getThingTypeUID());
+        assertNull(readIndex.getProducts().get(1).getId());
+    }
+
+    @Test(expected = IOException.class)
+    public void readInvalid() throws IOException {
+        ZWaveProductIndexFile.read(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }));
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.zwave.internal;
+
+import static org.junit.Assert.*;
+
+import org.eclipse.smarthome.core.thing.ThingTypeUID;
+import org.junit.Test;
+
+/**
+ * Test product index lookups
+ *
+ * @author rmichalak - Initial contribution
+ *
+ */
+public class ZWaveProductIndexTest {
+
+    @Test
+    public void findProduct() {
+        ZWaveProduct oldVersion = new ZWaveProduct(new ThingTypeUID("zwave:old"), 1, 2, 3, null, "1.9");
+        ZWaveProduct anyId = new ZWaveProduct(new ThingTypeUID("zwave:any"), 1, 2, null, null, null);
+        ZWaveProduct newVersion = new ZWaveProduct(new ThingTypeUID("zwave:new"), 1, 2, 3, "2.0", null);
+        ZWaveProduct other = new ZWaveProduct(new ThingTypeUID("zwave:other"), 4, 2, 3, null, null);
+
+        ZWaveProductIndex index = new ZWaveProductIndex();
+        index.addProduct(oldVersion);
+        index.addProduct(anyId);
+        index.addProduct(newVersion);
+        index.addProduct(other);
+        assertEquals(4, index.size());
+        assertEquals(anyId, index.getProducts().get(1));
+
+        assertEquals(oldVersion, index.findProduct(1, 2, 3, "1.5"));
+        assertEquals(oldVersion, index.findProduct(1, 2, 3, "1.5"));
+        assertEquals(other, index.findProduct(4, 2, 3, "1.5"));
+
+        // The wildcard product was added first so takes priority over the later exact match
+        assertEquals(anyId, index.findProduct(1, 2, 3, "2.1"));
+        assertEquals(anyId, index.findProduct(1, 2, 7, "1.0"));
+
+        assertNull(index.findProduct(1, 5, 3, "1.0"));
+        assertNull(index.findProduct(1, 5, 3, "1.0"));
+        assertNull(index.findProduct(9, 2, 3, "1.0"));
+        assertNull(index.findProduct(1, 2, 3, "invalid"));
+    }
+
+    @Test
+    public void findProductInOrder() {
+        ZWaveProduct first = new ZWaveProduct(new ThingTypeUID("zwave:first"), 1, 2, 3, "1.0", "1.9");
+        ZWaveProduct second = new ZWaveProduct(new ThingTypeUID("zwave:second"), 1, 2, null, "1.5", null);
+
+        ZWaveProductIndex index = new ZWaveProductIndex();
+        index.addProduct(first);
+        index.addProduct(second);
+
+        assertEquals(first, index.findProduct(1, 2, 3, "1.5"));
+        assertEquals(second, index.findProduct(1, 2, 3, "1.10"));
+        assertNull(index.findProduct(1, 2, 3, "0.5"));
+    }
+
+    @Test
+    public void productsForThingType() {
+        ThingTypeUID thingType = new ThingTypeUID("zwave:device");
+        ThingTypeUID noProducts = new ThingTypeUID("zwave:none");
+        ZWaveProduct first = new ZWaveProduct(thingType, 1, 2, 3, null, null);
+        ZWaveProduct second = new ZWaveProduct(thingType, 1, 2, 4, null, null);
+
+        ZWaveProductIndex index = new ZWaveProductIndex();
+        index.addThingType(thingType);
+        index.addProduct(first);
+        index.addProduct(second);
+        index.addThingType(noProducts);
+
+        assertEquals(2, index.getProducts(thingType).size());
+        assertEquals(first, index.getProducts(thingType).get(0));
+        assertTrue(index.getProducts(noProducts).isEmpty());
+        assertNull(index.getProducts(new ThingTypeUID("zwave:unknown")));
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.zwave.internal;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.openhab.binding.zwave.internal.ZWaveReportTracker.ReportKey;
+import org.openhab.binding.zwave.internal.protocol.commandclass.ZWaveCommandClass.CommandClass;
+import org.openhab.binding.zwave.internal.protocol.commandclass.ZWaveMeterCommandClass.MeterScale;
+
+/**
+ *
+ * @author rmichalak - Initial contribution
+ *
+ */
+public class ZWaveReportTrackerTest {
+    private static final long POLL_PERIOD = 60000;
+
+    @Test
+    public void reportKey() {
+        assertEquals(new ReportKey(1, CommandClass.COMMAND_CLASS_METER, MeterScale.E_KWh),
+                new ReportKey(1, CommandClass.COMMAND_CLASS_METER, MeterScale.E_KWh));
+        assertNotEquals(new ReportKey(1, CommandClass.COMMAND_CLASS_METER, MeterScale.E_KWh),
+                new ReportKey(1, CommandClass.COMMAND_CLASS_METER, MeterScale.E_W));
+        assertNotEquals(new ReportKey(1, CommandClass.COMMAND_CLASS_METER, null),
+                new ReportKey(2, CommandClass.COMMAND_CLASS_METER, null));
+        assertEquals(new ReportKey(0, CommandClass.COMMAND_CLASS_SWITCH_BINARY, null),
+                new ReportKey(0, CommandClass.COMMAND_CLASS_SWITCH_BINARY, null));
+    }
+
+    @Test
+    public void polledValue() {
+        ZWaveReportTracker tracker = new ZWaveReportTracker();
+        ReportKey key = new ReportKey(0, CommandClass.COMMAND_CLASS_SWITCH_BINARY, null);
+
+        assertTrue(tracker.isPollRequired(null, POLL_PERIOD, 0));
+        assertTrue(tracker.isPollRequired(key, POLL_PERIOD, 0));
+
+        // Poll responses don't make the value reporting
+        long time = 1000;
+        for (int cnt = 0; cnt < 5; cnt++) {
+            tracker.reportReceived(key, true, time);
+            time += POLL_PERIOD;
+            assertTrue(tracker.isPollRequired(key, POLL_PERIOD, time));
+        }
+        assertFalse(tracker.isReporting(key, POLL_PERIOD, time));
+        assertEquals(POLL_PERIOD, tracker.getPollPeriod(key, POLL_PERIOD, time));
+
+        // A single unsolicited report defers the next poll
+        tracker.reportReceived(key, false, time);
+        assertFalse(tracker.isPollRequired(key, POLL_PERIOD, time + POLL_PERIOD / 4));
+        assertTrue(tracker.isPollRequired(key, POLL_PERIOD, time + POLL_PERIOD / 2));
+        assertEquals(POLL_PERIOD, tracker.getPollPeriod(key, POLL_PERIOD, time));
+    }
+
+    @Test
+    public void reportingValue() {
+        ZWaveReportTracker tracker = new ZWaveReportTracker();
+        ReportKey key = new ReportKey(0, CommandClass.COMMAND_CLASS_METER, MeterScale.E_W);
+
+        long time = 1000;
+        for (int cnt = 0; cnt < 5; cnt++) {
+            tracker.reportReceived(key, false, time);
+            time += POLL_PERIOD / 2;
+        }
+        assertTrue(tracker.isReporting(key, POLL_PERIOD, time));
+        assertEquals(POLL_PERIOD * ZWaveReportTracker.REPORTING_POLL_FACTOR,
+                tracker.getPollPeriod(key, POLL_PERIOD, time));
+        assertFalse(tracker.isPollRequired(key, POLL_PERIOD, time));
+
+        // Values reported less often than the poll period are still polled
+        assertFalse(tracker.isReporting(key, POLL_PERIOD / 4, time));
+
+        // When the reports stop, the value reverts to the normal poll period
+        time += POLL_PERIOD;
+        assertFalse(tracker.isReporting(key, POLL_PERIOD, time));
+        assertEquals(POLL_PERIOD, tracker.getPollPeriod(key, POLL_PERIOD, time));
+        assertTrue(tracker.isPollRequired(key, POLL_PERIOD, time));
+    }
+}
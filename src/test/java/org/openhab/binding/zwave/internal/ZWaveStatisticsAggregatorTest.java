@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.zwave.internal;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.junit.Test;
+import org.openhab.binding.zwave.internal.ZWaveStatisticsAggregator.StatisticsListener;
+
+/**
+ *
+ * @author rmichalak - Initial contribution
+ *
+ */
+public class ZWaveStatisticsAggregatorTest {
+    private class Listener implements StatisticsListener {
+        List<Map<String, Long>> updates = new ArrayList<Map<String, Long>>();
+
+        @Override
+        public void statisticsUpdated(Map<String, Long> statistics) {
+            updates.add(statistics);
+        }
+    }
+
+    @Test
+    public void flushChanges() {
+        ZWaveStatisticsAggregator aggregator = new ZWaveStatisticsAggregator();
+        Listener listener = new Listener();
+
+        LongAdder counter1 = new LongAdder();
+        LongAdder counter2 = new LongAdder();
+        Map<String, LongAdder> counters = new HashMap<String, LongAdder>();
+        counters.put("counter1", counter1);
+        counters.put("counter2", counter2);
+        aggregator.addStatistics(listener, counters);
+
+        // The first flush publishes everything
+        aggregator.flush();
+        assertEquals(1, listener.updates.size());
+        assertEquals(2, listener.updates.get(0).size());
+        assertEquals(Long.valueOf(0), listener.updates.get(0).get("counter1"));
+
+        // Nothing changed, so nothing is published
+        aggregator.flush();
+        assertEquals(1, listener.updates.size());
+
+        // Multiple changes are coalesced into a single update with the latest value
+        counter2.increment();
+        counter2.increment();
+        counter2.increment();
+        aggregator.flush();
+        assertEquals(2, listener.updates.size());
+        assertEquals(1, listener.updates.get(1).size());
+        assertEquals(Long.valueOf(3), listener.updates.get(1).get("counter2"));
+
+        // Once removed, nothing more is published
+        aggregator.removeStatistics(listener);
+        counter1.increment();
+        aggregator.flush();
+        assertEquals(2, listener.updates.size());
+    }
+
+    @Test
+    public void listenerException() {
+        ZWaveStatisticsAggregator aggregator = new ZWaveStatisticsAggregator();
+        Listener listener = new Listener();
+
+        Map<String, LongAdder> counters = new HashMap<String, LongAdder>();
+        counters.put("counter", new LongAdder());
+        aggregator.addStatistics(new StatisticsListener() {
+            @Override
+            public void statisticsUpdated(Map<String, Long> statistics) {
+                throw new IllegalStateException();
+            }
+        }, counters);
+        aggregator.addStatistics(listener, counters);
+
+        aggregator.flush();
+        assertEquals(1, listener.updates.size());
+    }
+
+    @Test
+    public void flushGauges() {
+        ZWaveStatisticsAggregator aggregator = new ZWaveStatisticsAggregator();
+        Listener listener = new Listener();
+
+        final AtomicLong depth = new AtomicLong();
+        Map<String, LongSupplier> gauges = new HashMap<String, LongSupplier>();
+        gauges.put("depth", new LongSupplier() {
+            @Override
+            public long getAsLong() {
+                return depth.get();
+            }
+        });
+        aggregator.addGauges(listener, gauges);
+
+        aggregator.flush();
+        assertEquals(1, listener.updates.size());
+        assertEquals(Long.valueOf(0), listener.updates.get(0).get("depth"));
+
+        // Gauges can fall as well as rise, and are published when they change
+        depth.set(5);
+        aggregator.flush();
+        depth.set(2);
+        aggregator.flush();
+        aggregator.flush();
+        assertEquals(3, listener.updates.size());
+        assertEquals(Long.valueOf(2), listener.updates.get(2).get("depth"));
+    }
+}
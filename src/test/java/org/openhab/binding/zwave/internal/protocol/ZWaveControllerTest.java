@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.zwave.internal.protocol;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.openhab.binding.zwave.internal.protocol.commandclass.ZWaveCommandClass.CommandClass;
+import org.openhab.binding.zwave.internal.protocol.event.ZWaveCommandClassValueEvent;
+import org.openhab.binding.zwave.internal.protocol.event.ZWaveEvent;
+
+/**
+ *
+ * @author rmichalak - Initial contribution
+ *
+ */
+public class ZWaveControllerTest {
+    private class Listener implements ZWaveEventListener {
+        List<ZWaveEvent> events = new ArrayList<ZWaveEvent>();
+
+        @Override
+        public void ZWaveIncomingEvent(ZWaveEvent event) {
+            events.add(event);
+        }
+    }
+
+    private ZWaveEvent createEvent(int nodeId) {
+        return new ZWaveCommandClassValueEvent(nodeId, 0, CommandClass.COMMAND_CLASS_SWITCH_BINARY, 0);
+    }
+
+    @Test
+    public void eventListenerRouting() {
+        ZWaveController controller = new ZWaveController(Mockito.mock(ZWaveIoHandler.class));
+        Listener global = new Listener();
+        Listener node2 = new Listener();
+        Listener node3 = new Listener();
+
+        controller.addEventListener(global);
+        controller.addEventListener(node2, 2);
+        controller.addEventListener(node3, 3);
+
+        // Duplicate registrations are ignored
+        controller.addEventListener(global);
+        controller.addEventListener(node2, 2);
+
+        controller.notifyEventListeners(createEvent(2));
+        controller.notifyEventListeners(createEvent(3));
+        controller.notifyEventListeners(createEvent(4));
+
+        assertEquals(3, global.events.size());
+        assertEquals(1, node2.events.size());
+        assertEquals(2, node2.events.get(0).getNodeId());
+        assertEquals(1, node3.events.size());
+        assertEquals(3, node3.events.get(0).getNodeId());
+
+        controller.removeEventListener(global);
+        controller.removeEventListener(node2);
+        controller.notifyEventListeners(createEvent(2));
+        controller.notifyEventListeners(createEvent(3));
+
+        assertEquals(3, global.events.size());
+        assertEquals(1, node2.events.size());
+        assertEquals(2, node3.events.size());
+
+        controller.shutdown();
+    }
+}
@@ -18,6 +18,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import org.junit.After;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
@@ -34,6 +35,13 @@ import org.openhab.binding.zwave.internal.protocol.serialmessage.ZWaveInclusionS
  *
  */
 public class ZWaveInclusionControllerTest {
+    private final ZWaveTimeoutScheduler timeoutScheduler = new ZWaveTimeoutScheduler();
+
+    @After
+    public void shutdown() {
+        timeoutScheduler.shutdown();
+    }
+
     @Test
     public void testInclusion() {
         ZWaveController controller = Mockito.mock(ZWaveController.class);
@@ -46,7 +54,7 @@ public class ZWaveInclusionControllerTest {
         ArgumentCaptor<ZWaveNode> nodeCapture = ArgumentCaptor.forClass(ZWaveNode.class);
         Mockito.doNothing().when(controller).includeNode(nodeCapture.capture());
 
-        ZWaveInclusionController inclusionController = new ZWaveInclusionController(controller, "");
+        ZWaveInclusionController inclusionController = new ZWaveInclusionController(controller, "", timeoutScheduler);
         assertEquals(ZWaveInclusionState.Unknown, inclusionController.getState());
 
         ZWaveMessagePayloadTransaction txFrame;
@@ -115,7 +123,7 @@ public class ZWaveInclusionControllerTest {
         ArgumentCaptor<ZWaveNode> nodeCapture = ArgumentCaptor.forClass(ZWaveNode.class);
         Mockito.doNothing().when(controller).includeNode(nodeCapture.capture());
 
-        ZWaveInclusionController inclusionController = new ZWaveInclusionController(controller, "");
+        ZWaveInclusionController inclusionController = new ZWaveInclusionController(controller, "", timeoutScheduler);
         assertEquals(ZWaveInclusionState.Unknown, inclusionController.getState());
 
         ZWaveMessagePayloadTransaction txFrame;
@@ -162,7 +170,7 @@ public class ZWaveInclusionControllerTest {
         ArgumentCaptor<ZWaveNode> nodeCapture = ArgumentCaptor.forClass(ZWaveNode.class);
         Mockito.doNothing().when(controller).includeNode(nodeCapture.capture());
 
-        ZWaveInclusionController inclusionController = new ZWaveInclusionController(controller, "");
+        ZWaveInclusionController inclusionController = new ZWaveInclusionController(controller, "", timeoutScheduler);
         assertEquals(ZWaveInclusionState.Unknown, inclusionController.getState());
 
         ZWaveMessagePayloadTransaction txFrame;
@@ -206,7 +214,7 @@ public class ZWaveInclusionControllerTest {
         ArgumentCaptor<ZWaveNode> nodeCapture = ArgumentCaptor.forClass(ZWaveNode.class);
         Mockito.doNothing().when(controller).includeNode(nodeCapture.capture());
 
-        ZWaveInclusionController inclusionController = new ZWaveInclusionController(controller, "");
+        ZWaveInclusionController inclusionController = new ZWaveInclusionController(controller, "", timeoutScheduler);
         assertEquals(ZWaveInclusionState.Unknown, inclusionController.getState());
 
         ZWaveMessagePayloadTransaction txFrame;
@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.zwave.internal.protocol;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.openhab.binding.zwave.internal.protocol.event.ZWaveEvent;
+import org.openhab.binding.zwave.internal.protocol.event.ZWaveNodeStatusEvent;
+
+/**
+ *
+ * @author rmichalak - Initial contribution
+ *
+ */
+public class ZWaveNodeStateTrackerTest {
+    private ZWaveTimeoutScheduler scheduler;
+    private ZWaveController controller;
+    private ZWaveNodeStateTracker tracker;
+
+    @Before
+    public void setUp() {
+        scheduler = new ZWaveTimeoutScheduler(1, 64);
+        controller = mock(ZWaveController.class);
+        tracker = new ZWaveNodeStateTracker(controller, scheduler);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    private ZWaveNodeStatusEvent getLastEvent(int count) {
+        ArgumentCaptor<ZWaveEvent> captor = ArgumentCaptor.forClass(ZWaveEvent.class);
+        verify(controller, times(count)).notifyEventListeners(captor.capture());
+        return (ZWaveNodeStatusEvent) captor.getValue();
+    }
+
+    @Test
+    public void deadDelay() throws InterruptedException {
+        tracker.setDeadDelay(100);
+        tracker.setHoldPeriod(0);
+
+        // A node that recovers within the delay is not reported
+        tracker.setNodeState(2, ZWaveNodeState.DEAD);
+        tracker.setNodeState(2, ZWaveNodeState.ALIVE);
+        Thread.sleep(200);
+        verify(controller, never()).notifyEventListeners(any(ZWaveEvent.class));
+
+        // A node that remains dead is reported once the delay expires
+        tracker.setNodeState(2, ZWaveNodeState.DEAD);
+        verify(controller, never()).notifyEventListeners(any(ZWaveEvent.class));
+        verify(controller, timeout(1000)).notifyEventListeners(any(ZWaveEvent.class));
+        assertEquals(ZWaveNodeState.DEAD, getLastEvent(1).getState());
+
+        // Recovery is reported immediately
+        tracker.setNodeState(2, ZWaveNodeState.ALIVE);
+        assertEquals(ZWaveNodeState.ALIVE, getLastEvent(2).getState());
+    }
+
+    @Test
+    public void holdPeriod() throws InterruptedException {
+        tracker.setDeadDelay(0);
+        tracker.setHoldPeriod(100);
+
+        tracker.setNodeState(3, ZWaveNodeState.FAILED);
+        assertEquals(ZWaveNodeState.FAILED, getLastEvent(1).getState());
+
+        // Flapping within the hold period is not reported
+        tracker.setNodeState(3, ZWaveNodeState.ALIVE);
+        tracker.setNodeState(3, ZWaveNodeState.FAILED);
+        Thread.sleep(200);
+        verify(controller, times(1)).notifyEventListeners(any(ZWaveEvent.class));
+
+        // Once the hold period has passed, a change is reported immediately
+        tracker.setNodeState(3, ZWaveNodeState.ALIVE);
+        assertEquals(ZWaveNodeState.ALIVE, getLastEvent(2).getState());
+
+        // A change within the hold period is reported when it expires
+        tracker.setNodeState(3, ZWaveNodeState.DEAD);
+        verify(controller, timeout(1000).times(3)).notifyEventListeners(any(ZWaveEvent.class));
+        assertEquals(ZWaveNodeState.DEAD, getLastEvent(3).getState());
+    }
+
+    @Test
+    public void removeNodeCancelsNotification() throws InterruptedException {
+        tracker.setDeadDelay(50);
+
+        tracker.setNodeState(4, ZWaveNodeState.DEAD);
+        tracker.removeNode(4);
+        Thread.sleep(150);
+        verify(controller, never()).notifyEventListeners(any(ZWaveEvent.class));
+    }
+}
@@ -0,0 +1,154 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.zwave.internal.protocol;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.openhab.binding.zwave.internal.protocol.SerialMessage.SerialMessageClass;
+import org.openhab.binding.zwave.internal.protocol.SerialMessage.SerialMessageType;
+
+/**
+ *
+ * @author rmichalak - Initial contribution
+ *
+ */
+public class ZWaveSerialFrameDecoderTest {
+    private final byte[] frame = { 0x01, 0x04, 0x01, 0x13, 0x01, (byte) 0xE8 };
+
+    private class Handler implements ZWaveSerialFrameDecoder.FrameHandler {
+        List<SerialMessage> frames = new ArrayList<SerialMessage>();
+        List<Integer> responses = new ArrayList<Integer>();
+
+        @Override
+        public void frameReceived(SerialMessage message) {
+            frames.add(message);
+        }
+
+        @Override
+        public void sendResponse(int response) {
+            responses.add(response);
+        }
+    }
+
+    @Test
+    public void decodeFrame() {
+        Handler handler = new Handler();
+        ZWaveSerialFrameDecoder decoder = new ZWaveSerialFrameDecoder(handler);
+
+        decoder.decode(frame, 0, frame.length);
+
+        assertEquals(1, handler.frames.size());
+        assertEquals(SerialMessageClass.SendData, handler.frames.get(0).getMessageClass());
+        assertEquals(SerialMessageType.Response, handler.frames.get(0).getMessageType());
+        assertEquals(1, handler.responses.size());
+        assertEquals(Integer.valueOf(ZWaveSerialFrameDecoder.ACK), handler.responses.get(0));
+        assertEquals(1, decoder.getSOFCount());
+    }
+
+    @Test
+    public void decodeSplitFrames() {
+        Handler handler = new Handler();
+        ZWaveSerialFrameDecoder decoder = new ZWaveSerialFrameDecoder(handler);
+
+        // Two frames and an ACK, split over several reads
+        byte[] buffer = new byte[frame.length * 2 + 1];
+        buffer[0] = ZWaveSerialFrameDecoder.ACK;
+        System.arraycopy(frame, 0, buffer, 1, frame.length);
+        System.arraycopy(frame, 0, buffer, frame.length + 1, frame.length);
+
+        decoder.decode(buffer, 0, 3);
+        assertEquals(1, handler.frames.size());
+        decoder.decode(buffer, 3, 5);
+        assertEquals(2, handler.frames.size());
+        decoder.decode(buffer, 8, buffer.length - 8);
+        assertEquals(3, handler.frames.size());
+
+        assertEquals(SerialMessageType.ACK, handler.frames.get(0).getMessageType());
+        assertEquals(SerialMessageClass.SendData, handler.frames.get(1).getMessageClass());
+        assertEquals(SerialMessageClass.SendData, handler.frames.get(2).getMessageClass());
+        assertNotSame(handler.frames.get(1), handler.frames.get(2));
+        assertEquals(1, decoder.getACKCount());
+        assertEquals(2, decoder.getSOFCount());
+    }
+
+    @Test
+    public void decodeControlFrames() {
+        Handler handler = new Handler();
+        ZWaveSerialFrameDecoder decoder = new ZWaveSerialFrameDecoder(handler);
+
+        byte[] buffer = { ZWaveSerialFrameDecoder.ACK, ZWaveSerialFrameDecoder.NAK, ZWaveSerialFrameDecoder.CAN,
+                ZWaveSerialFrameDecoder.ACK, 0x55 };
+        decoder.decode(buffer, 0, buffer.length);
+
+        assertEquals(4, handler.frames.size());
+        assertEquals(SerialMessageType.ACK, handler.frames.get(0).getMessageType());
+        assertEquals(SerialMessageType.NAK, handler.frames.get(1).getMessageType());
+        assertEquals(SerialMessageType.CAN, handler.frames.get(2).getMessageType());
+        assertSame(handler.frames.get(0), handler.frames.get(3));
+        assertEquals(0, handler.responses.size());
+
+        assertEquals(2, decoder.getACKCount());
+        assertEquals(1, decoder.getNAKCount());
+        assertEquals(1, decoder.getCANCount());
+        assertEquals(1, decoder.getOOFCount());
+    }
+
+    @Test
+    public void decodeChecksumError() {
+        Handler handler = new Handler();
+        ZWaveSerialFrameDecoder decoder = new ZWaveSerialFrameDecoder(handler);
+
+        byte[] buffer = frame.clone();
+        buffer[buffer.length - 1] = 0x00;
+        decoder.decode(buffer, 0, buffer.length);
+
+        assertEquals(0, handler.frames.size());
+        assertEquals(1, handler.responses.size());
+        assertEquals(Integer.valueOf(ZWaveSerialFrameDecoder.NAK), handler.responses.get(0));
+        assertEquals(1, decoder.getCSECount());
+
+        // The decoder should recover for the next frame
+        decoder.decode(frame, 0, frame.length);
+        assertEquals(1, handler.frames.size());
+    }
+
+    @Test
+    public void decodeTimeout() {
+        Handler handler = new Handler();
+        ZWaveSerialFrameDecoder decoder = new ZWaveSerialFrameDecoder(handler);
+
+        // Partial frame, then a timeout, then a complete frame
+        decoder.decode(frame, 0, 4);
+        decoder.timeout();
+        decoder.decode(frame, 0, frame.length);
+
+        assertEquals(1, handler.frames.size());
+        assertEquals(2, decoder.getSOFCount());
+    }
+
+    @Test
+    public void decodeInvalidLength() {
+        Handler handler = new Handler();
+        ZWaveSerialFrameDecoder decoder = new ZWaveSerialFrameDecoder(handler);
+
+        byte[] buffer = { 0x01, 0x02, ZWaveSerialFrameDecoder.ACK };
+        decoder.decode(buffer, 0, buffer.length);
+
+        assertEquals(1, handler.frames.size());
+        assertEquals(SerialMessageType.ACK, handler.frames.get(0).getMessageType());
+    }
+}
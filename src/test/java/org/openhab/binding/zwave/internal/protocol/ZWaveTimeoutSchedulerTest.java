@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.zwave.internal.protocol;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author rmichalak - Initial contribution
+ *
+ */
+public class ZWaveTimeoutSchedulerTest {
+
+    @Test
+    public void timeoutExpires() throws InterruptedException {
+        ZWaveTimeoutScheduler scheduler = new ZWaveTimeoutScheduler(10, 8);
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        long start = System.nanoTime();
+        ZWaveTimeoutScheduler.Timeout timeout = scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        }, 200, TimeUnit.MILLISECONDS);
+        assertEquals(1, scheduler.getActiveTimeouts());
+
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        // Only test the minimum time in case execution is delayed
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 190);
+        assertTrue(timeout.isExpired());
+        assertFalse(timeout.cancel());
+        assertEquals(0, scheduler.getActiveTimeouts());
+
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void timeoutLongerThanWheel() throws InterruptedException {
+        // 8 buckets of 10ms - this timeout needs several rounds of the wheel
+        ZWaveTimeoutScheduler scheduler = new ZWaveTimeoutScheduler(10, 8);
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        long start = System.nanoTime();
+        scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        }, 300, TimeUnit.MILLISECONDS);
+
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 290);
+
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void timeoutCancelled() throws InterruptedException {
+        ZWaveTimeoutScheduler scheduler = new ZWaveTimeoutScheduler(10, 8);
+        final AtomicBoolean expired = new AtomicBoolean(false);
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        ZWaveTimeoutScheduler.Timeout timeout = scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                expired.set(true);
+            }
+        }, 50, TimeUnit.MILLISECONDS);
+        assertTrue(timeout.cancel());
+        assertTrue(timeout.isCancelled());
+        assertEquals(0, scheduler.getActiveTimeouts());
+
+        // Use a later timeout to know the cancelled one has been passed
+        scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        }, 150, TimeUnit.MILLISECONDS);
+
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertFalse(expired.get());
+
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void timeoutOrder() throws InterruptedException {
+        ZWaveTimeoutScheduler scheduler = new ZWaveTimeoutScheduler(10, 16);
+        final StringBuilder order = new StringBuilder();
+        final CountDownLatch latch = new CountDownLatch(3);
+
+        scheduler.schedule(new Task(order, latch, "C"), 250, TimeUnit.MILLISECONDS);
+        scheduler.schedule(new Task(order, latch, "A"), 50, TimeUnit.MILLISECONDS);
+        scheduler.schedule(new Task(order, latch, "B"), 150, TimeUnit.MILLISECONDS);
+
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertEquals("ABC", order.toString());
+
+        scheduler.shutdown();
+    }
+
+    private class Task implements Runnable {
+        private final StringBuilder order;
+        private final CountDownLatch latch;
+        private final String name;
+
+        Task(StringBuilder order, CountDownLatch latch, String name) {
+            this.order = order;
+            this.latch = latch;
+            this.name = name;
+        }
+
+        @Override
+        public void run() {
+            order.append(name);
+            latch.countDown();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.zwave.internal.protocol;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author rmichalak - Initial contribution
+ *
+ */
+public class ZWaveTransactionCompletionDispatcherTest {
+
+    @Test
+    public void dispatchInOrder() throws InterruptedException {
+        ZWaveTransactionCompletionDispatcher dispatcher = new ZWaveTransactionCompletionDispatcher(4);
+        final List<Integer> received = Collections.synchronizedList(new ArrayList<Integer>());
+        final CountDownLatch latch = new CountDownLatch(50);
+
+        for (int cnt = 0; cnt < 50; cnt++) {
+            final int value = cnt;
+            dispatcher.dispatch(new Runnable() {
+                @Override
+                public void run() {
+                    received.add(value);
+                    latch.countDown();
+                }
+            });
+        }
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        for (int cnt = 0; cnt < 50; cnt++) {
+            assertEquals(Integer.valueOf(cnt), received.get(cnt));
+        }
+
+        dispatcher.shutdown();
+    }
+
+    @Test
+    public void dispatchDoesNotBlockWhenBackedUp() throws InterruptedException {
+        ZWaveTransactionCompletionDispatcher dispatcher = new ZWaveTransactionCompletionDispatcher(2, 1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(3);
+
+        Runnable notification = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                }
+                done.countDown();
+            }
+        };
+
+        // First is running, the rest fill the queue above the high water mark
+        for (int cnt = 0; cnt < 3; cnt++) {
+            dispatcher.dispatch(notification);
+        }
+        assertEquals(1, dispatcher.getHighWaterCount());
+        assertEquals(2, dispatcher.getMaxQueueDepth());
+
+        // The queue is full, so the next notification is run by the caller
+        final List<Thread> threads = new ArrayList<Thread>();
+        dispatcher.dispatch(new Runnable() {
+            @Override
+            public void run() {
+                threads.add(Thread.currentThread());
+            }
+        });
+        assertEquals(1, dispatcher.getOverflowCount());
+        assertEquals(Thread.currentThread(), threads.get(0));
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(1, dispatcher.getHighWaterCount());
+
+        dispatcher.shutdown();
+    }
+
+    @Test
+    public void dispatchAfterShutdown() {
+        ZWaveTransactionCompletionDispatcher dispatcher = new ZWaveTransactionCompletionDispatcher();
+        dispatcher.shutdown();
+
+        dispatcher.dispatch(new Runnable() {
+            @Override
+            public void run() {
+                fail();
+            }
+        });
+        assertEquals(0, dispatcher.getDispatchedCount());
+    }
+}
@@ -17,7 +17,6 @@ import static org.junit.Assert.*;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.Calendar;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.PriorityBlockingQueue;
@@ -71,12 +70,6 @@ public class ZWaveTransactionManagerTest {
         Mockito.when(controller.getNode(Mockito.anyInt())).thenReturn(node);
         ZWaveTransactionManager manager = new ZWaveTransactionManager(controller);
 
-        Field holdoffDelay = manager.getClass().getDeclaredField("holdoffDelay");
-        holdoffDelay.setAccessible(true);
-        Calendar holdoff = Calendar.getInstance();
-        holdoff.setTimeInMillis(System.currentTimeMillis() + 999999);
-        holdoffDelay.set(manager, holdoff);
-
         Field holdoffActive = manager.getClass().getDeclaredField("holdoffActive");
         holdoffActive.setAccessible(true);
         holdoffActive.set(manager, new AtomicBoolean(true));
@@ -112,11 +105,6 @@ public class ZWaveTransactionManagerTest {
         ZWaveTransactionManager manager = new ZWaveTransactionManager(controller);
 
         // Set holdoff to prevent messages being sent
-        Field holdoffDelay = manager.getClass().getDeclaredField("holdoffDelay");
-        holdoffDelay.setAccessible(true);
-        Calendar holdoff = Calendar.getInstance();
-        holdoff.setTimeInMillis(System.currentTimeMillis() + 999999);
-        holdoffDelay.set(manager, holdoff);
         Field holdoffActive = manager.getClass().getDeclaredField("holdoffActive");
         holdoffActive.setAccessible(true);
         holdoffActive.set(manager, new AtomicBoolean(true));
@@ -187,6 +175,124 @@ public class ZWaveTransactionManagerTest {
         assertNull(transaction);
     }
 
+    @Test
+    public void transactionWindow() throws NoSuchFieldException, SecurityException, IllegalArgumentException,
+            IllegalAccessException, NoSuchMethodException, InvocationTargetException {
+        ZWaveController controller = Mockito.mock(ZWaveController.class);
+        ArgumentCaptor<SerialMessage> txQueueCapture = ArgumentCaptor.forClass(SerialMessage.class);
+        Mockito.doNothing().when(controller).sendPacket(txQueueCapture.capture());
+        ZWaveNode node = Mockito.mock(ZWaveNode.class);
+        Mockito.when(node.isAwake()).thenReturn(true);
+        Mockito.when(node.isListening()).thenReturn(true);
+        Mockito.when(controller.getNode(Mockito.anyInt())).thenReturn(node);
+        ZWaveTransactionManager manager = new ZWaveTransactionManager(controller);
+
+        // Transactions are sent one at a time unless the window is increased
+        assertEquals(1, manager.getMaxOutstandingTransactions());
+        manager.setMaxOutstandingTransactions(2);
+
+        Field lastTransaction = manager.getClass().getDeclaredField("lastTransaction");
+        lastTransaction.setAccessible(true);
+        Method sendNextMessage = manager.getClass().getDeclaredMethod("sendNextMessage");
+        sendNextMessage.setAccessible(true);
+
+        // The first transaction is sent straight away
+        manager.queueTransactionForSend(new ZWaveCommandClassTransactionPayloadBuilder(1,
+                org.openhab.binding.zwave.internal.protocol.commandclass.ZWaveCommandClass.CommandClass.COMMAND_CLASS_BASIC,
+                1).withExpectedResponseCommand(2).withPriority(TransactionPriority.Get).build());
+        assertEquals(1, txQueueCapture.getAllValues().size());
+
+        manager.queueTransactionForSend(new ZWaveCommandClassTransactionPayloadBuilder(1,
+                org.openhab.binding.zwave.internal.protocol.commandclass.ZWaveCommandClass.CommandClass.COMMAND_CLASS_BASIC,
+                1).withExpectedResponseCommand(2).withPriority(TransactionPriority.Get).build());
+        manager.queueTransactionForSend(new ZWaveCommandClassTransactionPayloadBuilder(2,
+                org.openhab.binding.zwave.internal.protocol.commandclass.ZWaveCommandClass.CommandClass.COMMAND_CLASS_BASIC,
+                1).withExpectedResponseCommand(2).withPriority(TransactionPriority.Get).build());
+        manager.queueTransactionForSend(new ZWaveCommandClassTransactionPayloadBuilder(3,
+                org.openhab.binding.zwave.internal.protocol.commandclass.ZWaveCommandClass.CommandClass.COMMAND_CLASS_BASIC,
+                1).withExpectedResponseCommand(2).withPriority(TransactionPriority.Get).build());
+
+        // Nothing else is sent while the controller is processing the first transaction
+        assertEquals(1, txQueueCapture.getAllValues().size());
+
+        // Once the first transaction is waiting for data, the next node can be sent - but not node 1 again
+        lastTransaction.set(manager, null);
+        sendNextMessage.invoke(manager);
+        assertEquals(2, txQueueCapture.getAllValues().size());
+        assertEquals(2, txQueueCapture.getAllValues().get(1).getMessagePayload()[0]);
+
+        // The window is full
+        lastTransaction.set(manager, null);
+        sendNextMessage.invoke(manager);
+        assertEquals(2, txQueueCapture.getAllValues().size());
+
+        // Opening the window releases the next node
+        lastTransaction.set(manager, null);
+        manager.setMaxOutstandingTransactions(3);
+        assertEquals(3, txQueueCapture.getAllValues().size());
+        assertEquals(3, txQueueCapture.getAllValues().get(2).getMessagePayload()[0]);
+
+        assertEquals(2, manager.getSendQueueLength(1));
+    }
+
+    @Test
+    public void parkSleepingNode() {
+        ZWaveController controller = Mockito.mock(ZWaveController.class);
+        ArgumentCaptor<SerialMessage> txQueueCapture = ArgumentCaptor.forClass(SerialMessage.class);
+        Mockito.doNothing().when(controller).sendPacket(txQueueCapture.capture());
+        ZWaveNode node = Mockito.mock(ZWaveNode.class);
+        Mockito.when(node.isAwake()).thenReturn(false);
+        Mockito.when(controller.getNode(1)).thenReturn(node);
+        ZWaveTransactionManager manager = new ZWaveTransactionManager(controller);
+
+        manager.queueTransactionForSend(new ZWaveCommandClassTransactionPayloadBuilder(1,
+                org.openhab.binding.zwave.internal.protocol.commandclass.ZWaveCommandClass.CommandClass.COMMAND_CLASS_BASIC,
+                1).withExpectedResponseCommand(2).withPriority(TransactionPriority.Get).build());
+        manager.queueTransactionForSend(new ZWaveCommandClassTransactionPayloadBuilder(1,
+                org.openhab.binding.zwave.internal.protocol.commandclass.ZWaveCommandClass.CommandClass.COMMAND_CLASS_BASIC,
+                2).withPriority(TransactionPriority.Set).build());
+
+        // Nothing is sent while the node is asleep
+        assertEquals(0, txQueueCapture.getAllValues().size());
+        assertEquals(2, manager.getParkedQueueLength(1));
+        assertEquals(2, manager.getSendQueueLength(1));
+
+        // Once awake, the highest priority transaction is sent and the remainder are back in the send queue
+        Mockito.when(node.isAwake()).thenReturn(true);
+        manager.nodeAwake(1);
+        assertEquals(1, txQueueCapture.getAllValues().size());
+        assertEquals(0, manager.getParkedQueueLength(1));
+        assertEquals(2, manager.getSendQueueLength(1));
+    }
+
+    @Test
+    public void parkedUntilAwakeNotified() {
+        ZWaveController controller = Mockito.mock(ZWaveController.class);
+        ArgumentCaptor<SerialMessage> txQueueCapture = ArgumentCaptor.forClass(SerialMessage.class);
+        Mockito.doNothing().when(controller).sendPacket(txQueueCapture.capture());
+        ZWaveNode node = Mockito.mock(ZWaveNode.class);
+        Mockito.when(node.isAwake()).thenReturn(false);
+        Mockito.when(controller.getNode(1)).thenReturn(node);
+        ZWaveTransactionManager manager = new ZWaveTransactionManager(controller);
+
+        manager.queueTransactionForSend(new ZWaveCommandClassTransactionPayloadBuilder(1,
+                org.openhab.binding.zwave.internal.protocol.commandclass.ZWaveCommandClass.CommandClass.COMMAND_CLASS_BASIC,
+                1).withPriority(TransactionPriority.Set).build());
+        assertEquals(1, manager.getParkedQueueLength(1));
+
+        // Sending other transactions does not release the parked transactions, even though the node is now awake
+        Mockito.when(node.isAwake()).thenReturn(true);
+        manager.queueTransactionForSend(new ZWaveCommandClassTransactionPayloadBuilder(2,
+                org.openhab.binding.zwave.internal.protocol.commandclass.ZWaveCommandClass.CommandClass.COMMAND_CLASS_BASIC,
+                1).withPriority(TransactionPriority.Set).build());
+        assertEquals(1, manager.getParkedQueueLength(1));
+
+        // And are dropped if the node is removed
+        manager.nodeRemoved(1);
+        assertEquals(0, manager.getParkedQueueLength(1));
+        assertEquals(0, txQueueCapture.getAllValues().size());
+    }
+
     class test implements Runnable {
         ZWaveTransactionManager manager;
         int node;
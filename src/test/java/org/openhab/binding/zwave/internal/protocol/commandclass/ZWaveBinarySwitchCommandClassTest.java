@@ -12,7 +12,7 @@
  */
 package org.openhab.binding.zwave.internal.protocol.commandclass;
 
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.*;
 
 import java.util.Arrays;
 
@@ -51,4 +51,16 @@ public class ZWaveBinarySwitchCommandClassTest extends ZWaveCommandClassTest {
         msg = cls.setValueMessage(33);
         assertTrue(Arrays.equals(msg.getPayloadBuffer(), expectedResponseV1));
     }
+
+    @Test
+    public void responseHandlersShared() {
+        ZWaveBinarySwitchCommandClass cls1 = (ZWaveBinarySwitchCommandClass) getCommandClass(
+                CommandClass.COMMAND_CLASS_SWITCH_BINARY);
+        ZWaveBinarySwitchCommandClass cls2 = (ZWaveBinarySwitchCommandClass) getCommandClass(
+                CommandClass.COMMAND_CLASS_SWITCH_BINARY);
+
+        assertNotNull(cls1.commands);
+        assertSame(cls1.commands, cls2.commands);
+        assertTrue(cls1.commands.containsKey(3));
+    }
 }
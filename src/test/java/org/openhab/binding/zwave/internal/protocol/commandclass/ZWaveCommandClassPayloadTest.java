@@ -60,4 +60,26 @@ public class ZWaveCommandClassPayloadTest {
             e.printStackTrace();
         }
     }
+
+    @Test
+    public void TestNestedViews() {
+        ZWaveCommandClassPayload payload1 = new ZWaveCommandClassPayload(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 });
+        ZWaveCommandClassPayload payload2 = new ZWaveCommandClassPayload(payload1, 2, 8);
+        ZWaveCommandClassPayload payload3 = new ZWaveCommandClassPayload(payload2, 3);
+        assertEquals(3, payload3.getPayloadLength());
+        assertEquals(6, payload3.getCommandClassId());
+        assertEquals(8, payload3.getPayloadByte(2));
+        assertTrue(Arrays.equals(payload3.getPayloadBuffer(), new byte[] { 6, 7, 8 }));
+        assertTrue(Arrays.equals(payload3.getPayloadBuffer(1, 5), new byte[] { 7, 8, 0, 0 }));
+
+        // The view must not allow access to data outside of the payload
+        try {
+            payload3.getPayloadByte(3);
+            fail("Expected ArrayIndexOutOfBoundsException");
+        } catch (ArrayIndexOutOfBoundsException e) {
+        }
+
+        ZWaveCommandClassPayload payload4 = new ZWaveCommandClassPayload(payload2, 1, 10);
+        assertEquals(5, payload4.getPayloadLength());
+    }
 }
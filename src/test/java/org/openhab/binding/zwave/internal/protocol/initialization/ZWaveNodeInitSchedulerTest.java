@@ -0,0 +1,212 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.zwave.internal.protocol.initialization;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.openhab.binding.zwave.internal.protocol.ZWaveNode;
+
+/**
+ *
+ * @author rmichalak - Initial contribution
+ *
+ */
+public class ZWaveNodeInitSchedulerTest {
+    private ZWaveNode createNode(int nodeId, boolean listening, boolean awake) {
+        ZWaveNode node = mock(ZWaveNode.class);
+        when(node.getNodeId()).thenReturn(nodeId);
+        when(node.isListening()).thenReturn(listening);
+        when(node.isAwake()).thenReturn(listening || awake);
+        return node;
+    }
+
+    private Thread startAcquire(final ZWaveNodeInitScheduler scheduler, final ZWaveNode node,
+            final List<Integer> order) {
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    scheduler.acquire(node);
+                    order.add(node.getNodeId());
+                    scheduler.release(node);
+                } catch (InterruptedException e) {
+                }
+            }
+        };
+        thread.start();
+        return thread;
+    }
+
+    private void waitForWaiters(Thread thread) throws InterruptedException {
+        for (int cnt = 0; cnt < 100 && thread.getState() != Thread.State.WAITING; cnt++) {
+            Thread.sleep(10);
+        }
+        assertEquals(Thread.State.WAITING, thread.getState());
+    }
+
+    @Test
+    public void sleepingNodeNotLimited() throws InterruptedException {
+        ZWaveNodeInitScheduler scheduler = new ZWaveNodeInitScheduler(1);
+
+        ZWaveNode node = createNode(2, true, false);
+        assertTrue(scheduler.acquire(node));
+        assertFalse(scheduler.acquire(createNode(3, false, false)));
+        assertEquals(1, scheduler.getActive());
+
+        scheduler.release(node);
+        assertEquals(0, scheduler.getActive());
+    }
+
+    @Test
+    public void nodeSleepsWhileWaiting() throws InterruptedException {
+        final ZWaveNodeInitScheduler scheduler = new ZWaveNodeInitScheduler(1);
+        final List<Boolean> result = Collections.synchronizedList(new ArrayList<Boolean>());
+
+        ZWaveNode mains = createNode(2, true, false);
+        assertTrue(scheduler.acquire(mains));
+
+        final ZWaveNode battery = createNode(3, false, true);
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    result.add(scheduler.acquire(battery));
+                } catch (InterruptedException e) {
+                }
+            }
+        };
+        thread.start();
+        waitForWaiters(thread);
+
+        // The battery node falls asleep before the permit is granted
+        when(battery.isAwake()).thenReturn(false);
+        scheduler.release(mains);
+        thread.join(1000);
+
+        assertEquals(1, result.size());
+        assertFalse(result.get(0));
+        assertEquals(0, scheduler.getActive());
+    }
+
+    @Test
+    public void parkedTransactionReturnsPermit() throws InterruptedException {
+        ZWaveNodeInitScheduler scheduler = new ZWaveNodeInitScheduler(1);
+
+        ZWaveNode node = createNode(3, false, true);
+        assertTrue(scheduler.acquire(node));
+        assertEquals(1, scheduler.getActive());
+
+        scheduler.transactionParked(3);
+        assertEquals(0, scheduler.getActive());
+
+        // Another node can now get the permit, and the late release doesn't free it
+        ZWaveNode other = createNode(4, true, false);
+        assertTrue(scheduler.acquire(other));
+        scheduler.release(node);
+        assertEquals(1, scheduler.getActive());
+
+        scheduler.release(other);
+        assertEquals(0, scheduler.getActive());
+    }
+
+    @Test
+    public void mainsNodesFirst() throws InterruptedException {
+        ZWaveNodeInitScheduler scheduler = new ZWaveNodeInitScheduler(1);
+        List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+
+        ZWaveNode first = createNode(2, true, false);
+        assertTrue(scheduler.acquire(first));
+
+        // An awake battery node requests first, then a mains node
+        Thread battery = startAcquire(scheduler, createNode(3, false, true), order);
+        waitForWaiters(battery);
+        Thread mains = startAcquire(scheduler, createNode(4, true, false), order);
+        waitForWaiters(mains);
+        assertTrue(order.isEmpty());
+
+        scheduler.release(first);
+        battery.join(1000);
+        mains.join(1000);
+
+        assertEquals(2, order.size());
+        assertEquals(Integer.valueOf(4), order.get(0));
+        assertEquals(Integer.valueOf(3), order.get(1));
+        assertEquals(0, scheduler.getActive());
+    }
+
+    @Test
+    public void progress() {
+        ZWaveNodeInitScheduler scheduler = new ZWaveNodeInitScheduler(1);
+
+        scheduler.initialisationStarted(2);
+        scheduler.initialisationStarted(3);
+        assertEquals(2, scheduler.getInitialisingNodeCount());
+        assertEquals(0, scheduler.getCompleteNodeCount());
+
+        scheduler.initialisationComplete(2);
+        assertEquals(1, scheduler.getInitialisingNodeCount());
+        assertEquals(1, scheduler.getCompleteNodeCount());
+
+        // A node that is reinitialised is no longer complete
+        scheduler.initialisationStarted(2);
+        assertEquals(2, scheduler.getInitialisingNodeCount());
+        assertEquals(0, scheduler.getCompleteNodeCount());
+    }
+
+    @Test
+    public void initialisationQueuedMainsFirst() throws InterruptedException {
+        ZWaveNodeInitScheduler scheduler = new ZWaveNodeInitScheduler(1, 1);
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(3);
+
+        // The only thread is busy, so the other nodes are queued
+        scheduler.execute(createNode(2, true, true), new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                }
+                order.add(2);
+                done.countDown();
+            }
+        });
+        for (final int nodeId : new int[] { 3, 4 }) {
+            scheduler.execute(createNode(nodeId, nodeId == 4, false), new Runnable() {
+                @Override
+                public void run() {
+                    order.add(nodeId);
+                    done.countDown();
+                }
+            });
+        }
+        assertEquals(2, scheduler.getQueuedNodeCount());
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(Integer.valueOf(2), order.get(0));
+        assertEquals(Integer.valueOf(4), order.get(1));
+        assertEquals(Integer.valueOf(3), order.get(2));
+
+        scheduler.shutdown();
+    }
+}
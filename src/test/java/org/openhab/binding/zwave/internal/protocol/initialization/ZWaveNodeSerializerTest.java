@@ -0,0 +1,201 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.zwave.internal.protocol.initialization;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openhab.binding.zwave.internal.protocol.ZWaveNode;
+import org.openhab.binding.zwave.internal.protocol.commandclass.ZWaveCommandClass.CommandClass;
+import org.openhab.binding.zwave.internal.protocol.commandclass.ZWaveBinarySwitchCommandClass;
+
+/**
+ *
+ * @author rmichalak - Initial contribution
+ *
+ */
+public class ZWaveNodeSerializerTest {
+    private final int homeId = 0x12345678;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ZWaveNode createNode(int nodeId, int manufacturer) {
+        ZWaveNode node = new ZWaveNode(homeId, nodeId, null);
+        node.setManufacturer(manufacturer);
+        node.addCommandClass(new ZWaveBinarySwitchCommandClass(node, null, null));
+        node.setNodeStage(ZWaveNodeInitStage.DONE);
+        return node;
+    }
+
+    @Test
+    public void serializeSnapshot() throws IOException {
+        ZWaveNodeSerializer serializer = new ZWaveNodeSerializer(folder.getRoot().getPath());
+
+        serializer.serializeNode(createNode(5, 0x86), true);
+        assertTrue(serializer.isWritePending(homeId, 5));
+        assertFalse(new File(folder.getRoot(), "network_12345678__node_5.xml").exists());
+
+        serializer.flush();
+        assertFalse(serializer.isWritePending(homeId, 5));
+        assertTrue(new File(folder.getRoot(), "network_12345678__node_5.xml").exists());
+        assertTrue(new File(folder.getRoot(), "network_12345678__node_5.bin").exists());
+
+        ZWaveNode node = serializer.deserializeNode(homeId, 5, true);
+        assertNotNull(node);
+        assertEquals(5, node.getNodeId());
+        assertEquals(0x86, node.getManufacturer());
+        assertNotNull(node.getCommandClass(CommandClass.COMMAND_CLASS_SWITCH_BINARY));
+
+        assertTrue(serializer.deleteNode(homeId, 5));
+        assertFalse(new File(folder.getRoot(), "network_12345678__node_5.bin").exists());
+        assertNull(serializer.deserializeNode(homeId, 5, true));
+    }
+
+    @Test
+    public void staleSnapshotIgnored() throws IOException {
+        ZWaveNodeSerializer serializer = new ZWaveNodeSerializer(folder.getRoot().getPath());
+        serializer.serializeNode(createNode(6, 0x86), true);
+        serializer.flush();
+
+        // Update the XML without updating the snapshot
+        serializer.serializeNode(createNode(6, 0x10F), false);
+        serializer.flush();
+        assertTrue(new File(folder.getRoot(), "network_12345678__node_6.bin").exists());
+
+        // The snapshot no longer matches the XML, so the XML must be used
+        assertEquals(0x10F, serializer.deserializeNode(homeId, 6, true).getManufacturer());
+
+        // And the snapshot is rewritten to match
+        assertEquals(0x10F, serializer.deserializeNode(homeId, 6, true).getManufacturer());
+    }
+
+    @Test
+    public void editedXmlUsed() throws IOException {
+        ZWaveNodeSerializer serializer = new ZWaveNodeSerializer(folder.getRoot().getPath());
+        serializer.serializeNode(createNode(11, 0x86), true);
+        serializer.flush();
+
+        // Edit the XML, keeping the length and modification time
+        File xmlFile = new File(folder.getRoot(), "network_12345678__node_11.xml");
+        long lastModified = xmlFile.lastModified();
+        String xml = new String(Files.readAllBytes(xmlFile.toPath()), StandardCharsets.UTF_8);
+        String edited = xml.replace("<manufacturer>134</manufacturer>", "<manufacturer>271</manufacturer>");
+        assertFalse(xml.equals(edited));
+        Files.write(xmlFile.toPath(), edited.getBytes(StandardCharsets.UTF_8));
+        assertEquals(xml.length(), xmlFile.length());
+        assertTrue(xmlFile.setLastModified(lastModified));
+
+        assertEquals(0x10F, serializer.deserializeNode(homeId, 11, true).getManufacturer());
+    }
+
+    @Test
+    public void snapshotUsedWhenXmlUnchanged() throws IOException {
+        ZWaveNodeSerializer serializer = new ZWaveNodeSerializer(folder.getRoot().getPath());
+        serializer.serializeNode(createNode(12, 0x86), true);
+        serializer.flush();
+
+        // Touching the XML file doesn't invalidate the snapshot
+        File xmlFile = new File(folder.getRoot(), "network_12345678__node_12.xml");
+        assertTrue(xmlFile.setLastModified(xmlFile.lastModified() + 2000));
+
+        // The snapshot is rewritten if the XML is used, so it is left unchanged if the snapshot is used
+        File snapshotFile = new File(folder.getRoot(), "network_12345678__node_12.bin");
+        long snapshotModified = snapshotFile.lastModified() - 10000;
+        assertTrue(snapshotFile.setLastModified(snapshotModified));
+        assertEquals(0x86, serializer.deserializeNode(homeId, 12, true).getManufacturer());
+        assertEquals(snapshotModified, snapshotFile.lastModified());
+    }
+
+    @Test
+    public void pendingWritesCoalesced() {
+        ZWaveNodeSerializer serializer = new ZWaveNodeSerializer(folder.getRoot().getPath());
+
+        // The latest node is written
+        serializer.serializeNode(createNode(8, 0x86), false);
+        serializer.serializeNode(createNode(8, 0x10F), false);
+        assertEquals(0x10F, serializer.deserializeNode(homeId, 8, false).getManufacturer());
+        assertFalse(serializer.isWritePending(homeId, 8));
+        assertFalse(new File(folder.getRoot(), "network_12345678__node_8.xml.tmp").exists());
+
+        // Deleting the node cancels any pending write
+        serializer.serializeNode(createNode(8, 0x86), false);
+        serializer.deleteNode(homeId, 8);
+        serializer.flush();
+        assertFalse(new File(folder.getRoot(), "network_12345678__node_8.xml").exists());
+    }
+
+    @Test
+    public void shutdownWritesPending() {
+        ZWaveNodeSerializer serializer = new ZWaveNodeSerializer(folder.getRoot().getPath());
+
+        serializer.serializeNode(createNode(9, 0x86), false);
+        serializer.shutdown();
+        assertFalse(serializer.isWritePending(homeId, 9));
+        assertTrue(new File(folder.getRoot(), "network_12345678__node_9.xml").exists());
+
+        // The serializer can still be used after shutdown
+        serializer.serializeNode(createNode(9, 0x10F), false);
+        assertTrue(serializer.isWritePending(homeId, 9));
+        serializer.shutdown();
+        assertEquals(0x10F, serializer.deserializeNode(homeId, 9, false).getManufacturer());
+    }
+
+    @Test
+    public void flushNetwork() {
+        ZWaveNodeSerializer serializer = new ZWaveNodeSerializer(folder.getRoot().getPath());
+
+        ZWaveNode otherNode = new ZWaveNode(0x87654321, 13, null);
+        otherNode.setNodeStage(ZWaveNodeInitStage.DONE);
+        serializer.serializeNode(createNode(13, 0x86), false);
+        serializer.serializeNode(otherNode, false);
+
+        // Only the nodes in the network are written
+        serializer.flush(homeId);
+        assertFalse(serializer.isWritePending(homeId, 13));
+        assertTrue(serializer.isWritePending(0x87654321, 13));
+
+        serializer.shutdown();
+        assertFalse(serializer.isWritePending(0x87654321, 13));
+    }
+
+    @Test
+    public void nodeMarshalledWhenSerialized() {
+        ZWaveNodeSerializer serializer = new ZWaveNodeSerializer(folder.getRoot().getPath());
+
+        // Changes made to the node after it is serialized are not written
+        ZWaveNode node = createNode(10, 0x86);
+        serializer.serializeNode(node, false);
+        node.setManufacturer(0x10F);
+        serializer.flush();
+
+        assertEquals(0x86, serializer.deserializeNode(homeId, 10, false).getManufacturer());
+    }
+
+    @Test
+    public void incompleteNodeNotSerialized() {
+        ZWaveNodeSerializer serializer = new ZWaveNodeSerializer(folder.getRoot().getPath());
+
+        serializer.serializeNode(new ZWaveNode(homeId, 7, null), false);
+        serializer.flush();
+
+        assertFalse(new File(folder.getRoot(), "network_12345678__node_7.xml").exists());
+    }
+}
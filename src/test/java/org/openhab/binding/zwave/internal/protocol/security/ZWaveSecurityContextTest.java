@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.zwave.internal.protocol.security;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author rmichalak - Initial contribution
+ *
+ */
+public class ZWaveSecurityContextTest {
+    private static final byte[] NETWORK_KEY = { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16 };
+
+    private byte[] createFrame(int dataLength) {
+        byte[] frame = new byte[dataLength + 19];
+        for (int cnt = 0; cnt < frame.length; cnt++) {
+            frame[cnt] = (byte) (cnt * 7);
+        }
+        frame[1] = (byte) 0x81;
+        return frame;
+    }
+
+    private byte[] createIv() {
+        byte[] iv = new byte[16];
+        for (int cnt = 0; cnt < iv.length; cnt++) {
+            iv[cnt] = (byte) (0xA0 + cnt);
+        }
+        return iv;
+    }
+
+    // Reference CBC-MAC using a CBC cipher over the IV, header and padded data
+    private byte[] referenceMAC(byte[] frame, byte sendingNode, byte receivingNode, byte[] iv) throws Exception {
+        Cipher ecb = Cipher.getInstance("AES/ECB/NoPadding");
+        ecb.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(NETWORK_KEY, "AES"));
+        byte[] authKey = new byte[16];
+        Arrays.fill(authKey, (byte) 0x55);
+        authKey = ecb.doFinal(authKey);
+
+        int dataLength = frame.length - 19;
+        byte[] buffer = new byte[16 + ((dataLength + 4 + 15) / 16) * 16];
+        System.arraycopy(iv, 0, buffer, 0, 16);
+        buffer[16] = frame[1];
+        buffer[17] = sendingNode;
+        buffer[18] = receivingNode;
+        buffer[19] = (byte) dataLength;
+        System.arraycopy(frame, 10, buffer, 20, dataLength);
+
+        Cipher cbc = Cipher.getInstance("AES/CBC/NoPadding");
+        cbc.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(authKey, "AES"), new IvParameterSpec(new byte[16]));
+        byte[] result = cbc.doFinal(buffer);
+        return Arrays.copyOfRange(result, result.length - 16, result.length - 8);
+    }
+
+    @Test
+    public void generateMAC() throws Exception {
+        ZWaveSecurityContext context = new ZWaveSecurityContext(NETWORK_KEY);
+        byte[] iv = createIv();
+
+        // Check data that ends on and off the block boundary, and that the context can be reused
+        for (int length : new int[] { 0, 3, 12, 28, 40, 12 }) {
+            byte[] frame = createFrame(length);
+            assertArrayEquals(referenceMAC(frame, (byte) 1, (byte) 5, iv),
+                    context.generateMAC(frame, (byte) 1, (byte) 5, iv));
+        }
+    }
+
+    @Test
+    public void encryptDecrypt() throws Exception {
+        ZWaveSecurityContext txContext = new ZWaveSecurityContext(NETWORK_KEY);
+        ZWaveSecurityContext rxContext = new ZWaveSecurityContext(NETWORK_KEY);
+        byte[] iv = createIv();
+        byte[] frame = createFrame(20);
+
+        byte[] encrypted = txContext.encrypt(iv, frame, 10, 20);
+        assertFalse(Arrays.equals(Arrays.copyOfRange(frame, 10, 30), encrypted));
+        assertArrayEquals(encrypted, txContext.encrypt(iv, frame, 10, 20));
+
+        byte[] decrypted = rxContext.decrypt(iv, encrypted, 0, encrypted.length);
+        assertArrayEquals(Arrays.copyOfRange(frame, 10, 30), decrypted);
+
+        // A different IV gives different data
+        iv[15]++;
+        assertFalse(Arrays.equals(encrypted, txContext.encrypt(iv, frame, 10, 20)));
+    }
+}
@@ -12,10 +12,12 @@
  */
 package org.openhab.binding.zwave.internal.protocol.serialmessage;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
+import org.junit.Test;
 import org.mockito.Mockito;
 import org.openhab.binding.zwave.internal.protocol.SerialMessage;
+import org.openhab.binding.zwave.internal.protocol.SerialMessage.SerialMessageClass;
 import org.openhab.binding.zwave.internal.protocol.SerialMessage.SerialMessageType;
 import org.openhab.binding.zwave.internal.protocol.ZWaveController;
 import org.openhab.binding.zwave.internal.protocol.ZWaveMessagePayloadTransaction;
@@ -64,4 +66,22 @@ public class ZWaveCommandProcessorTest {
             e.printStackTrace();
         }
     }
+
+    @Test
+    public void getMessageDispatcher() {
+        // Processors that don't hold any state are shared
+        assertTrue(ZWaveCommandProcessor
+                .getMessageDispatcher(SerialMessageClass.SendData) instanceof SendDataMessageClass);
+        assertSame(ZWaveCommandProcessor.getMessageDispatcher(SerialMessageClass.SendData),
+                ZWaveCommandProcessor.getMessageDispatcher(SerialMessageClass.SendData));
+
+        // Processors holding the response for the controller are created for each message
+        assertTrue(ZWaveCommandProcessor
+                .getMessageDispatcher(SerialMessageClass.GetVersion) instanceof GetVersionMessageClass);
+        assertNotSame(ZWaveCommandProcessor.getMessageDispatcher(SerialMessageClass.GetVersion),
+                ZWaveCommandProcessor.getMessageDispatcher(SerialMessageClass.GetVersion));
+
+        assertNull(ZWaveCommandProcessor.getMessageDispatcher(SerialMessageClass.SendTestFrame));
+        assertNull(ZWaveCommandProcessor.getMessageDispatcher(null));
+    }
 }